@@ -0,0 +1,70 @@
+package com.example.mqpoc.bench;
+
+import com.example.mqpoc.messaging.dedup.DedupStore;
+import com.example.mqpoc.messaging.dedup.TimeBucketedDedupStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 소비 핫패스의 중복 제거 비용. 저장소가 {@code maxEntries}까지 찬 상태에서 측정한다.
+ * 테이블이 캐시보다 크면 구간 테이블마다 캐시 미스가 한 번씩 나므로 {@code unique}가 {@code duplicate}보다 느리다.
+ * <ul>
+ *     <li>{@code unique}: 새 messageId 선점 후 완료 기록 (가득 찬 구간은 early rotation 으로 비워진다). UUID 문자열 생성 비용이 포함된다.</li>
+ *     <li>{@code duplicate}: 이미 기록된 messageId 조회</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DedupStoreBenchmark {
+
+    private static final int ID_POOL = 4096;
+
+    @Param({"200000"})
+    public int maxEntries;
+
+    private TimeBucketedDedupStore store;
+    private long salt;
+    private String[] seenIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new TimeBucketedDedupStore(Duration.ofHours(1), maxEntries, 4);
+        seenIds = new String[ID_POOL];
+        for (int i = 0; i < maxEntries; i++) {
+            String id = UUID.randomUUID().toString();
+            store.claim("serviceA", id);
+            store.complete("serviceA", id);
+            if (i >= maxEntries - ID_POOL) {
+                seenIds[i - (maxEntries - ID_POOL)] = id;
+            }
+        }
+        salt = UUID.randomUUID().getMostSignificantBits();
+        System.out.printf("%n[memory] entries=%d bytes=%d%n", store.size(), store.memoryBytes());
+    }
+
+    @Benchmark
+    public DedupStore.Claim unique() {
+        String id = new UUID(salt, next++).toString();
+        DedupStore.Claim claim = store.claim("serviceA", id);
+        store.complete("serviceA", id);
+        return claim;
+    }
+
+    @Benchmark
+    public DedupStore.Claim duplicate() {
+        return store.claim("serviceA", seenIds[next++ & (ID_POOL - 1)]);
+    }
+}
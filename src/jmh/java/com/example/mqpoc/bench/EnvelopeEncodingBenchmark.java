@@ -0,0 +1,121 @@
+package com.example.mqpoc.bench;
+
+import com.example.mqpoc.bench.support.BenchFixtures;
+import com.example.mqpoc.config.JacksonConfig;
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.config.RabbitConfig;
+import com.example.mqpoc.messaging.codec.MessageCompressor;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.messaging.model.payload.OrderCreatedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서비스 {@code encoding} 설정(형식 × 압축)별 envelope 발행/수신 비용과 바디 크기.
+ * <ul>
+ *     <li>{@code encode}: 퍼블리셔 경로 (content-type 지정 → 컨버터 → 임계값 압축)</li>
+ *     <li>{@code decode}: 리스너 경로 (압축 해제 post processor → 컨버터 → payload 접근)</li>
+ * </ul>
+ * 인코딩된 바디 크기는 setup 에서 한 번 출력한다. (압축 임계값 0 = 항상 압축)
+ * {@code zstd-dict}는 서로 다른 주문 샘플로 학습한 사전을 {@code order.created} 타입에 등록해 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EnvelopeEncodingBenchmark {
+
+    @Param({"10", "100"})
+    public int itemCount;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"none", "gzip", "lz4", "zstd", "zstd-dict"})
+    public String compression;
+
+    private MessageConverter converter;
+    private MessageCompressor compressor;
+    private MessagePostProcessor decompressor;
+    private MessagingProperties.Encoding encoding;
+    private EventEnvelope<OrderCreatedEvent> envelope;
+    private Message encoded;
+    private Type envelopeType;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        converter = new RabbitConfig().messageConverter(objectMapper);
+        encoding = new MessagingProperties.Encoding(
+                MessagingProperties.Encoding.Format.valueOf(format.toUpperCase()),
+                MessagingProperties.Encoding.Algorithm.valueOf(compression.replace("-dict", "").toUpperCase()),
+                DataSize.ofBytes(0));
+        Map<String, String> overrides = new HashMap<>();
+        if (compression.endsWith("-dict")) {
+            Path dictionary = Files.createTempFile("order-created", ".dict");
+            dictionary.toFile().deleteOnExit();
+            Files.write(dictionary, trainDictionary());
+            overrides.put("messaging.compression.zstd-dictionaries.[order.created]", dictionary.toUri().toString());
+        }
+        compressor = new MessageCompressor(BenchFixtures.messagingProperties(overrides));
+        decompressor = compressor.decompressor();
+        envelopeType = objectMapper.getTypeFactory().constructParametricType(EventEnvelope.class, OrderCreatedEvent.class);
+        envelope = BenchFixtures.envelope("order.created", BenchFixtures.order(itemCount));
+        encoded = encode();
+        System.out.printf("%n[size] format=%s compression=%s items=%d bytes=%d%n",
+                format, compression, itemCount, encoded.getBody().length);
+    }
+
+    @Benchmark
+    public Message encode() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(encoding.format().contentType());
+        properties.setType(envelope.getEventType());
+        return compressor.compress(converter.toMessage(envelope, properties), encoding);
+    }
+
+    @Benchmark
+    public Object decode() {
+        MessageProperties source = encoded.getMessageProperties();
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(source.getContentType());
+        properties.setContentEncoding(source.getContentEncoding());
+        properties.setType(source.getType());
+        properties.setInferredArgumentType(envelopeType);
+        Message inbound = decompressor.postProcessMessage(new Message(encoded.getBody(), properties));
+        return ((EventEnvelope<?>) converter.fromMessage(inbound)).getPayload();
+    }
+
+    private byte[] trainDictionary() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(encoding.format().contentType());
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            EventEnvelope<OrderCreatedEvent> sample = BenchFixtures.envelope("order.created", BenchFixtures.order(1 + i % itemCount));
+            samples.add(converter.toMessage(sample, properties).getBody());
+        }
+        return MessageCompressor.trainDictionary(samples, 16 * 1024);
+    }
+}
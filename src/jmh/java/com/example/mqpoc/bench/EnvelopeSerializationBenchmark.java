@@ -0,0 +1,108 @@
+package com.example.mqpoc.bench;
+
+import com.example.mqpoc.bench.support.BenchFixtures;
+import com.example.mqpoc.config.JacksonConfig;
+import com.example.mqpoc.config.RabbitConfig;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.messaging.model.payload.OrderCreatedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EventEnvelope} 직렬화/역직렬화 비용.
+ * <ul>
+ *     <li>{@code converter}: jackson({@link Jackson2JsonMessageConverter}, 이전 기본값) | envelope({@link RabbitConfig#messageConverter},
+ *     스트리밍 envelope 코덱)</li>
+ *     <li>{@code typed*}: {@code EventEnvelope<OrderCreatedEvent>} (리스너가 제네릭 타입으로 받는 경로)</li>
+ *     <li>{@code map*}: {@code EventEnvelope<Map>} ({@code PublishRequest.payload}가 그대로 실리는 경로)</li>
+ *     <li>{@code *Deserialize}는 payload 까지 꺼내고, {@code typedDeserializeMetadataOnly}는 메타데이터만 읽는다.
+ *     (envelope 코덱은 payload 를 지연 디코딩한다)</li>
+ * </ul>
+ * 역직렬화는 리스너 어댑터와 같이 {@link MessageProperties#setInferredArgumentType(Type)}로 대상 타입을 넘긴다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EnvelopeSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int itemCount;
+
+    @Param({"jackson", "envelope"})
+    public String converterType;
+
+    private MessageConverter converter;
+    private EventEnvelope<OrderCreatedEvent> typedEnvelope;
+    private EventEnvelope<Map<String, Object>> mapEnvelope;
+    private byte[] typedBody;
+    private byte[] mapBody;
+    private Type typedType;
+    private Type mapType;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        converter = "jackson".equals(converterType)
+                ? new Jackson2JsonMessageConverter(objectMapper)
+                : new RabbitConfig().messageConverter(objectMapper);
+        TypeFactory typeFactory = objectMapper.getTypeFactory();
+        typedType = typeFactory.constructParametricType(EventEnvelope.class, OrderCreatedEvent.class);
+        mapType = typeFactory.constructParametricType(EventEnvelope.class,
+                typeFactory.constructMapType(Map.class, String.class, Object.class));
+
+        typedEnvelope = BenchFixtures.envelope("order.created", BenchFixtures.order(itemCount));
+        mapEnvelope = BenchFixtures.envelope("order.created", BenchFixtures.orderMap(itemCount));
+        typedBody = converter.toMessage(typedEnvelope, new MessageProperties()).getBody();
+        mapBody = converter.toMessage(mapEnvelope, new MessageProperties()).getBody();
+    }
+
+    @Benchmark
+    public Message typedSerialize() {
+        return converter.toMessage(typedEnvelope, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object typedDeserialize() {
+        return ((EventEnvelope<?>) converter.fromMessage(inbound(typedBody, typedType))).getPayload();
+    }
+
+    @Benchmark
+    public Object typedDeserializeMetadataOnly() {
+        return ((EventEnvelope<?>) converter.fromMessage(inbound(typedBody, typedType))).getMetadata();
+    }
+
+    @Benchmark
+    public Message mapSerialize() {
+        return converter.toMessage(mapEnvelope, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object mapDeserialize() {
+        return ((EventEnvelope<?>) converter.fromMessage(inbound(mapBody, mapType))).getPayload();
+    }
+
+    private static Message inbound(byte[] body, Type type) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding("utf-8");
+        properties.setInferredArgumentType(type);
+        return new Message(body, properties);
+    }
+}
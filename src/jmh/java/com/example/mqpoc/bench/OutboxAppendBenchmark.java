@@ -0,0 +1,67 @@
+package com.example.mqpoc.bench;
+
+import com.example.mqpoc.messaging.outbox.OutboxLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 아웃박스 모드에서 HTTP 스레드가 기다리는 시간: 레코드 기록 + fsync(group commit) 완료까지.
+ * 요청 스레드 여러 개가 동시에 기록하는 상황을 {@code @Threads(8)}로 흉내 내며, {@code flushInterval}이 길수록
+ * fsync 한 번에 묶이는 기록이 많아져 처리량은 오르고 건당 지연은 늘어난다. 결과는 디스크의 fsync 지연에 크게 좌우된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class OutboxAppendBenchmark {
+
+    @Param({"0ms", "2ms"})
+    public String flushInterval;
+
+    @Param({"512"})
+    public int recordSize;
+
+    private Path directory;
+    private OutboxLog outboxLog;
+    private byte[] record;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("outbox-bench");
+        outboxLog = OutboxLog.open(directory, 64L * 1024 * 1024, Long.MAX_VALUE,
+                Duration.ofMillis(Long.parseLong(flushInterval.replace("ms", ""))));
+        record = new byte[recordSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        outboxLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean append() {
+        return outboxLog.append(record);
+    }
+}
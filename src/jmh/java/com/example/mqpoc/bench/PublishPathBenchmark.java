@@ -0,0 +1,89 @@
+package com.example.mqpoc.bench;
+
+import com.example.mqpoc.bench.support.BenchFixtures;
+import com.example.mqpoc.bench.support.StubRabbitConnectionFactory;
+import com.example.mqpoc.config.JacksonConfig;
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.config.RabbitConfig;
+import com.example.mqpoc.messaging.codec.MessageCompressor;
+import com.example.mqpoc.messaging.metrics.MessagingMetrics;
+import com.example.mqpoc.messaging.model.payload.OrderCreatedEvent;
+import com.example.mqpoc.messaging.outbox.OutboxLog;
+import com.example.mqpoc.messaging.publisher.EventPublisher;
+import com.example.mqpoc.messaging.publisher.PendingConfirms;
+import com.example.mqpoc.messaging.publisher.PublishAdmission;
+import com.example.mqpoc.messaging.publisher.PublishResult;
+import com.example.mqpoc.messaging.shard.ShardRouter;
+import com.example.mqpoc.messaging.trace.EventTracer;
+import com.example.mqpoc.messaging.trace.TraceSink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EventPublisher}의 전체 발행 경로(envelope/헤더 조립 → 변환 → 채널 캐시 → basicPublish → confirm)를
+ * {@link StubRabbitConnectionFactory} 위에서 측정한다. 스텁은 publish 즉시 ACK 하므로 네트워크/브로커 비용은 빠진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PublishPathBenchmark {
+
+    @Param({"1", "10"})
+    public int itemCount;
+
+    private CachingConnectionFactory connectionFactory;
+    private EventTracer tracer;
+    private EventPublisher publisher;
+    private OrderCreatedEvent order;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MessagingProperties properties = BenchFixtures.messagingProperties(Map.of());
+        connectionFactory = new CachingConnectionFactory(new StubRabbitConnectionFactory());
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+        connectionFactory.setPublisherReturns(true);
+        RabbitConfig.configureChannelPools(connectionFactory, properties.connections());
+
+        tracer = new EventTracer(properties, new DefaultListableBeanFactory().getBeanProvider(TraceSink.class));
+        tracer.start();
+        RabbitConfig config = new RabbitConfig();
+        RabbitTemplate rabbitTemplate = config.rabbitTemplate(connectionFactory,
+                config.messageConverter(new JacksonConfig().objectMapper()), tracer,
+                new MessagingMetrics(new SimpleMeterRegistry(), properties), properties);
+        publisher = new EventPublisher(rabbitTemplate, properties, new PendingConfirms(properties), tracer,
+                new MessageCompressor(properties), new PublishAdmission(properties), new ShardRouter(),
+                new DefaultListableBeanFactory().getBeanProvider(OutboxLog.class));
+        order = BenchFixtures.order(itemCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tracer.stop();
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public void publish() {
+        publisher.publish("serviceA", "order.created", order, null);
+    }
+
+    @Benchmark
+    public PublishResult publishAsync() {
+        return publisher.publishAsync("serviceA", "order.created", order, null).join();
+    }
+}
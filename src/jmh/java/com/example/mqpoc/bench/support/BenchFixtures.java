@@ -0,0 +1,100 @@
+package com.example.mqpoc.bench.support;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.messaging.model.EventMetadata;
+import com.example.mqpoc.messaging.model.payload.OrderCreatedEvent;
+import com.example.mqpoc.messaging.model.payload.OrderItem;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 벤치마크 공통 데이터/설정 생성기.
+ */
+public final class BenchFixtures {
+
+    private BenchFixtures() {
+    }
+
+    /**
+     * application.yml 의 serviceA 설정과 같은 값을 바인딩한다. 나머지 항목은 레코드 기본값을 따른다.
+     */
+    public static MessagingProperties messagingProperties(Map<String, String> overrides) {
+        Map<String, String> source = new LinkedHashMap<>();
+        source.put("messaging.shared.dlx", "shared.dlx");
+        source.put("messaging.shared.dlq", "shared.dlq");
+        source.put("messaging.trace.enabled", "false");
+        source.put("messaging.services.serviceA.prefix", "serviceA");
+        source.put("messaging.services.serviceA.exchange", "serviceA.events");
+        source.put("messaging.services.serviceA.queue", "serviceA.main");
+        source.put("messaging.services.serviceA.schema-version", "1.0");
+        source.put("messaging.services.serviceA.source-service", "serviceA");
+        source.putAll(overrides);
+        return new Binder(new MapConfigurationPropertySource(source))
+                .bind("messaging", MessagingProperties.class)
+                .get();
+    }
+
+    public static OrderCreatedEvent order(int itemCount) {
+        OrderCreatedEvent order = new OrderCreatedEvent();
+        order.setOrderId("ORD-" + UUID.randomUUID());
+        order.setCustomerId("C-" + UUID.randomUUID().toString().substring(0, 8));
+        order.setCurrency("KRW");
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        int total = 0;
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem();
+            item.setSku("SKU-" + (1000 + i));
+            item.setQty(1 + i % 3);
+            item.setPrice(1000 + i * 10);
+            total += item.getQty() * item.getPrice();
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotalAmount(total);
+        return order;
+    }
+
+    /**
+     * {@code PublishRequest.payload}처럼 JSON 에서 그대로 들어온 Map 형태의 주문 페이로드.
+     */
+    public static Map<String, Object> orderMap(int itemCount) {
+        OrderCreatedEvent order = order(itemCount);
+        List<Map<String, Object>> items = new ArrayList<>(itemCount);
+        for (OrderItem item : order.getItems()) {
+            items.add(Map.of("sku", item.getSku(), "qty", item.getQty(), "price", item.getPrice()));
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getOrderId());
+        payload.put("customerId", order.getCustomerId());
+        payload.put("totalAmount", order.getTotalAmount());
+        payload.put("currency", order.getCurrency());
+        payload.put("items", items);
+        return payload;
+    }
+
+    public static <T> EventEnvelope<T> envelope(String eventType, T payload) {
+        Instant now = Instant.now();
+        EventEnvelope<T> envelope = new EventEnvelope<>();
+        envelope.setEventType(eventType);
+        envelope.setOccurredAt(now);
+        envelope.setPublishedAt(now);
+        envelope.setPayload(payload);
+        EventMetadata metadata = new EventMetadata();
+        metadata.setMessageId(UUID.randomUUID().toString());
+        metadata.setTraceId(UUID.randomUUID().toString());
+        metadata.setSourceService("serviceA");
+        metadata.setSchemaVersion("1.0");
+        metadata.setPriority("normal");
+        metadata.setSensitivity("internal");
+        envelope.setMetadata(metadata);
+        return envelope;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.mqpoc.bench.support;
+
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 네트워크 없이 publish 경로를 측정하기 위한 in-process 스텁 커넥션.
+ * <ul>
+ *     <li>{@code basicPublish}는 바디를 버리고, 등록된 {@link ConfirmListener}에 즉시 ACK 을 보낸다.</li>
+ *     <li>그 외 채널/커넥션 메서드는 반환 타입의 기본값을 돌려주는 no-op 이다.</li>
+ * </ul>
+ * Spring 의 {@code CachingConnectionFactory}를 이 팩토리 위에 올리면 채널 캐시/confirm 처리 코드는 실제와 동일하게 동작한다.
+ */
+public class StubRabbitConnectionFactory extends ConnectionFactory {
+
+    private final AtomicInteger channelNumbers = new AtomicInteger();
+
+    public StubRabbitConnectionFactory() {
+        setAutomaticRecoveryEnabled(false);
+    }
+
+    @Override
+    public Connection newConnection(ExecutorService executor, AddressResolver addressResolver, String clientProvidedName) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "createChannel" -> newChannel((Connection) proxy);
+                    case "isOpen" -> true;
+                    case "getAddress" -> InetAddress.getLoopbackAddress();
+                    case "getPort" -> 5672;
+                    case "getServerProperties", "getClientProperties" -> Map.of();
+                    case "getClientProvidedName" -> clientProvidedName;
+                    case "toString" -> "StubConnection";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    private Channel newChannel(Connection connection) {
+        int channelNumber = channelNumbers.incrementAndGet();
+        List<ConfirmListener> confirmListeners = new CopyOnWriteArrayList<>();
+        long[] nextSeqNo = {1};
+        return (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getChannelNumber" -> channelNumber;
+                    case "getConnection" -> connection;
+                    case "isOpen" -> true;
+                    case "getNextPublishSeqNo" -> nextSeqNo[0];
+                    case "addConfirmListener" -> {
+                        confirmListeners.add((ConfirmListener) args[0]);
+                        yield null;
+                    }
+                    case "basicPublish" -> {
+                        long seqNo = nextSeqNo[0]++;
+                        for (ConfirmListener listener : confirmListeners) {
+                            listener.handleAck(seqNo, false);
+                        }
+                        yield null;
+                    }
+                    case "toString" -> "StubChannel#" + channelNumber;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return (char) 0;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.mqpoc.loadtest;
+
+import java.time.Duration;
+
+/**
+ * open-loop 부하 프로파일. 초당 요청 수가 {@code startRps}에서 {@code endRps}까지 선형으로 변한다. (같으면 고정 RPS)
+ *
+ * @param startRps 시작 시점 초당 요청 수
+ * @param endRps   종료 시점 초당 요청 수
+ * @param duration 부하 유지 시간
+ */
+public record LoadProfile(
+        double startRps,
+        double endRps,
+        Duration duration
+) {
+
+    public LoadProfile {
+        if (startRps <= 0 || endRps <= 0) {
+            throw new IllegalArgumentException("rps must be positive");
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+    }
+
+    public static LoadProfile fixed(double rps, Duration duration) {
+        return new LoadProfile(rps, rps, duration);
+    }
+
+    public static LoadProfile ramp(double fromRps, double toRps, Duration duration) {
+        return new LoadProfile(fromRps, toRps, duration);
+    }
+
+    /**
+     * 프로파일 전체 구간의 요청 수. rate(t)를 0~duration 까지 적분한 값이다.
+     */
+    public long totalOperations() {
+        return (long) ((startRps + endRps) / 2 * seconds());
+    }
+
+    /**
+     * n 번째 요청(0부터)이 시작되어야 하는 시점(시작 기준 나노초). 응답 시간과 무관하게 이 일정대로 보낸다.
+     */
+    public long intendedOffsetNanos(long n) {
+        double seconds;
+        if (startRps == endRps) {
+            seconds = n / startRps;
+        } else {
+            // N(t) = a·t + (b - a)·t² / 2T 를 t 에 대해 푼다.
+            double slope = (endRps - startRps) / seconds();
+            seconds = (-startRps + Math.sqrt(startRps * startRps + 2 * slope * n)) / slope;
+        }
+        return (long) (seconds * 1_000_000_000L);
+    }
+
+    private double seconds() {
+        return duration.toNanos() / 1_000_000_000d;
+    }
+
+    @Override
+    public String toString() {
+        return startRps == endRps
+                ? "fixed " + (long) startRps + " rps for " + duration
+                : "ramp " + (long) startRps + " -> " + (long) endRps + " rps over " + duration;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.mqpoc.loadtest;
+
+import com.example.mqpoc.MqPoCApplication;
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.loadtest.broker.BrokerQueue;
+import com.example.mqpoc.loadtest.broker.InMemoryBroker;
+import com.example.mqpoc.messaging.publisher.EventPublisher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.function.LongFunction;
+
+/**
+ * in-process 브로커 위에서 애플리케이션 전체(퍼블리셔, 리스너, REST 컨트롤러)를 띄우고 open-loop 부하를 건다.
+ * <p>
+ * 옵션은 Spring 프로퍼티로 받는다. (예: {@code ./gradlew loadTest -PloadTestArgs="--load.mode=http --load.rps=2000"})
+ * <ul>
+ *     <li>{@code load.mode}: publisher({@link EventPublisher#publishAsync} 직접 호출, 기본) | http({@code ?awaitConfirm=true} POST)</li>
+ *     <li>{@code load.service}/{@code load.event}: 대상 서비스 키와 이벤트 이름 (기본 serviceA / order.created)</li>
+ *     <li>{@code load.rps}, {@code load.ramp-to}: 고정 RPS, 또는 rps → ramp-to 선형 증가</li>
+ *     <li>{@code load.duration}, {@code load.warmup}, {@code load.drain}: 측정 구간, 사전 워밍업(집계 제외), 종료 후 응답 대기</li>
+ * </ul>
+ * 그 밖의 애플리케이션 설정(예: {@code --messaging.execution.mode=virtual})도 같은 방식으로 바꿔 비교할 수 있다.
+ */
+public class LoadTestApplication {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MqPoCApplication.class, LoadTestConfig.class)
+                .profiles("both")
+                // 건별 추적 로그가 측정 대상 경로를 지배하지 않도록 경고 이상만 남긴다.
+                .run(withDefaults(args, "--server.port=0", "--logging.level.messaging.trace=WARN"))) {
+            new LoadTestApplication().run(context);
+        }
+    }
+
+    private void run(ConfigurableApplicationContext context) throws InterruptedException {
+        Environment env = context.getEnvironment();
+        String mode = env.getProperty("load.mode", "publisher");
+        String service = env.getProperty("load.service", "serviceA");
+        String event = env.getProperty("load.event", "serviceA".equals(service) ? "order.created" : "user.created");
+        double rps = env.getProperty("load.rps", Double.class, 1000d);
+        double rampTo = env.getProperty("load.ramp-to", Double.class, rps);
+        Duration duration = env.getProperty("load.duration", Duration.class, Duration.ofSeconds(30));
+        Duration warmup = env.getProperty("load.warmup", Duration.class, Duration.ofSeconds(5));
+        Duration drain = env.getProperty("load.drain", Duration.class, Duration.ofSeconds(10));
+
+        LongFunction<CompletableFuture<?>> operation = switch (mode) {
+            case "publisher" -> publisherOperation(context.getBean(EventPublisher.class), service, event);
+            case "http" -> httpOperation(context, service, event);
+            default -> throw new IllegalArgumentException("unknown load.mode: " + mode);
+        };
+
+        InMemoryBroker broker = context.getBean(InMemoryBroker.class);
+        if (!warmup.isZero()) {
+            System.out.printf("warmup: %s%n", LoadProfile.fixed(rps, warmup));
+            new OpenLoopGenerator().run(LoadProfile.fixed(rps, warmup), operation, drain);
+            broker.awaitConsumed(drain);
+        }
+        long publishedBefore = broker.publishedCount();
+        long ackedBefore = broker.ackedCount();
+        long deadBefore = broker.deadLetteredCount();
+        broker.publishToAckHistogram(); // 워밍업 구간 기록을 비운다.
+
+        LoadProfile profile = LoadProfile.ramp(rps, rampTo, duration);
+        System.out.printf("run: mode=%s service=%s event=%s %s%n", mode, service, event, profile);
+        OpenLoopGenerator.Result result = new OpenLoopGenerator().run(profile, operation, drain);
+        broker.awaitConsumed(drain);
+
+        MessagingProperties properties = context.getBean(MessagingProperties.class);
+        BrokerQueue dlq = broker.queue(properties.shared().dlq());
+        report(mode, result, broker.publishToAckHistogram(),
+                broker.publishedCount() - publishedBefore,
+                broker.ackedCount() - ackedBefore,
+                broker.deadLetteredCount() - deadBefore,
+                dlq != null ? dlq.depth() : 0,
+                broker.queueDepths());
+    }
+
+    /**
+     * application.yml 보다 우선하도록 커맨드라인 인자로 넣되, 사용자가 같은 키를 넘겼으면 그 값을 쓴다.
+     */
+    private static String[] withDefaults(String[] args, String... defaults) {
+        List<String> merged = new ArrayList<>(List.of(args));
+        for (String option : defaults) {
+            String key = option.substring(0, option.indexOf('=') + 1);
+            if (merged.stream().noneMatch(arg -> arg.startsWith(key))) {
+                merged.add(option);
+            }
+        }
+        return merged.toArray(String[]::new);
+    }
+
+    private LongFunction<CompletableFuture<?>> publisherOperation(EventPublisher publisher, String service, String event) {
+        return n -> publisher.publishAsync(service, event, samplePayload(n), null);
+    }
+
+    private LongFunction<CompletableFuture<?>> httpOperation(ConfigurableApplicationContext context, String service,
+                                                             String event) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String path = "serviceA".equals(service) ? "/api/service-a/events" : "/api/service-b/events";
+        URI uri = URI.create("http://localhost:" + port + path + "?awaitConfirm=true");
+        ObjectMapper mapper = context.getBean(ObjectMapper.class);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        return n -> {
+            String body;
+            try {
+                body = mapper.writeValueAsString(Map.of("eventType", event, "payload", samplePayload(n)));
+            } catch (JsonProcessingException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new CompletionException(new IllegalStateException("HTTP " + response.statusCode()));
+                        }
+                        return response;
+                    });
+        };
+    }
+
+    private static Map<String, Object> samplePayload(long n) {
+        return Map.of(
+                "orderId", "ORD-" + n,
+                "customerId", "C-" + (n % 1000),
+                "totalAmount", 12000,
+                "currency", "KRW",
+                "items", List.of(Map.of("sku", "SKU-" + (n % 100), "qty", 1, "price", 12000))
+        );
+    }
+
+    private static void report(String mode, OpenLoopGenerator.Result result, Histogram publishToAck,
+                               long published, long acked, long deadLettered, int dlqDepth,
+                               Map<String, Integer> queueDepths) {
+        System.out.println();
+        System.out.println("=== load test result ===");
+        System.out.printf("requests    : scheduled=%d succeeded=%d failed=%d unfinished=%d maxInFlight=%d%n",
+                result.scheduled(), result.succeeded(), result.failed(), result.unfinished(), result.maxInFlight());
+        System.out.printf("throughput  : %.1f req/s (send phase %s, total %s)%n",
+                result.achievedRps(), result.sendTime(), result.totalTime());
+        printHistogram("publisher".equals(mode)
+                ? "confirm latency (intended start -> broker confirm)"
+                : "request latency (intended start -> HTTP 200 after confirm)", result.latency());
+        printHistogram("end-to-end (broker publish -> consumer ack)", publishToAck);
+        System.out.printf("broker      : published=%d acked=%d deadLettered=%d dlqDepth=%d%n",
+                published, acked, deadLettered, dlqDepth);
+        System.out.printf("queue depth : %s%n", queueDepths);
+    }
+
+    private static void printHistogram(String title, Histogram histogram) {
+        System.out.printf("%s, n=%d%n", title, histogram.getTotalCount());
+        StringBuilder line = new StringBuilder("  ");
+        for (double percentile : PERCENTILES) {
+            line.append(String.format("p%s=%.3fms  ", percentile == (long) percentile ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile), histogram.getValueAtPercentile(percentile) / 1_000_000d));
+        }
+        line.append(String.format("max=%.3fms", histogram.getMaxValue() / 1_000_000d));
+        System.out.println(line);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.mqpoc.loadtest;
+
+import com.example.mqpoc.loadtest.broker.InMemoryBroker;
+import com.example.mqpoc.loadtest.broker.InMemoryRabbitConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 애플리케이션의 RabbitMQ 커넥션을 in-process 브로커로 바꿔 끼운다.
+ * ConnectionFactory 빈을 직접 등록하므로 Spring Boot 의 RabbitMQ 자동 구성 커넥션은 만들어지지 않는다.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LoadTestConfig {
+
+    @Bean
+    public InMemoryBroker inMemoryBroker() {
+        return new InMemoryBroker();
+    }
+
+    @Bean
+    public CachingConnectionFactory rabbitConnectionFactory(InMemoryBroker broker) {
+        CachingConnectionFactory factory = new CachingConnectionFactory(new InMemoryRabbitConnectionFactory(broker));
+        // application.yml 의 publisher-confirm-type/publisher-returns 와 동일하게 맞춘다.
+        factory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+        factory.setPublisherReturns(true);
+        factory.setChannelCacheSize(64);
+        return factory;
+    }
+}
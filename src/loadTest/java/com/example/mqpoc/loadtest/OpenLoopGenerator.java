@@ -0,0 +1,105 @@
+package com.example.mqpoc.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * open-loop 부하 발생기.
+ * <ul>
+ *     <li>요청은 {@link LoadProfile}이 정한 시각에 보내며, 이전 요청의 응답을 기다리지 않는다.</li>
+ *     <li>지연은 실제 전송 시각이 아니라 <b>예정 시각</b>부터 잰다. 발생기가 밀려 늦게 보낸 시간도 지연에 포함되어
+ *     coordinated omission 으로 꼬리 지연이 과소평가되지 않는다.</li>
+ *     <li>동기 구간(채널 체크아웃, HTTP 전송 등)이 스케줄을 막지 않도록 각 요청은 가상 스레드에서 시작한다.</li>
+ * </ul>
+ */
+public class OpenLoopGenerator {
+
+    private final Recorder latency = new Recorder(3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong maxInFlight = new AtomicLong();
+
+    /**
+     * @param profile   부하 프로파일
+     * @param operation 요청 번호를 받아 완료 future 를 돌려주는 작업 (예외/실패 future 는 실패로 집계)
+     * @param drainTime 마지막 요청 이후 남은 응답을 기다리는 최대 시간
+     */
+    public Result run(LoadProfile profile, LongFunction<CompletableFuture<?>> operation, Duration drainTime)
+            throws InterruptedException {
+        long total = profile.totalOperations();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long n = 0; n < total; n++) {
+                long intended = start + profile.intendedOffsetNanos(n);
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long requestNo = n;
+                // 시작 전에 집계해야 drain 대기가 아직 실행되지 않은 요청을 놓치지 않는다.
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                executor.execute(() -> submit(operation, requestNo, intended));
+            }
+            long sendEnd = System.nanoTime();
+            long deadline = sendEnd + drainTime.toNanos();
+            while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            long end = System.nanoTime();
+            Histogram histogram = latency.getIntervalHistogram();
+            return new Result(total, succeeded.sum(), failed.sum(), inFlight.get(), maxInFlight.get(),
+                    Duration.ofNanos(sendEnd - start), Duration.ofNanos(end - start), histogram);
+        }
+    }
+
+    private void submit(LongFunction<CompletableFuture<?>> operation, long requestNo, long intended) {
+        CompletableFuture<?> future;
+        try {
+            future = operation.apply(requestNo);
+        } catch (RuntimeException ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        future.whenComplete((ignored, ex) -> {
+            latency.recordValue(Math.max(0, System.nanoTime() - intended));
+            (ex == null ? succeeded : failed).increment();
+            inFlight.decrementAndGet();
+        });
+    }
+
+    /**
+     * @param scheduled   프로파일이 예정한 요청 수
+     * @param succeeded   성공 완료 수
+     * @param failed      실패 완료 수
+     * @param unfinished  drain 시간 안에 끝나지 않은 요청 수
+     * @param maxInFlight 동시에 진행 중이던 최대 요청 수
+     * @param sendTime    마지막 요청을 보낼 때까지 걸린 시간
+     * @param totalTime   마지막 응답(또는 drain 만료)까지 걸린 시간
+     * @param latency     예정 시각 → 완료 지연 분포 (나노초)
+     */
+    public record Result(
+            long scheduled,
+            long succeeded,
+            long failed,
+            long unfinished,
+            long maxInFlight,
+            Duration sendTime,
+            Duration totalTime,
+            Histogram latency
+    ) {
+
+        public double achievedRps() {
+            return succeeded / (totalTime.toNanos() / 1_000_000_000d);
+        }
+    }
+}
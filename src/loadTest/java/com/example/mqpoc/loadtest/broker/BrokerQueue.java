@@ -0,0 +1,106 @@
+package com.example.mqpoc.loadtest.broker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메모리 큐. 컨슈머 구독 간 라운드로빈으로 전달하며, 구독별 prefetch(미확인 메시지 수) 한도를 지킨다.
+ */
+public final class BrokerQueue {
+
+    private final InMemoryBroker broker;
+    private final String name;
+    private final Map<String, Object> arguments;
+    private final ArrayDeque<QueuedMessage> ready = new ArrayDeque<>();
+    private final List<InMemoryChannel.Subscription> subscriptions = new ArrayList<>();
+    private int nextSubscription;
+    private int unacked;
+
+    BrokerQueue(InMemoryBroker broker, String name, Map<String, Object> arguments) {
+        this.broker = broker;
+        this.name = name;
+        this.arguments = arguments != null ? Map.copyOf(arguments) : Map.of();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    Map<String, Object> arguments() {
+        return arguments;
+    }
+
+    InMemoryBroker broker() {
+        return broker;
+    }
+
+    synchronized void enqueue(QueuedMessage message) {
+        ready.addLast(message);
+        dispatch();
+    }
+
+    synchronized void requeue(List<QueuedMessage> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            ready.addFirst(messages.get(i).redelivery());
+        }
+        dispatch();
+    }
+
+    synchronized QueuedMessage poll() {
+        return ready.pollFirst();
+    }
+
+    synchronized void subscribe(InMemoryChannel.Subscription subscription) {
+        subscriptions.add(subscription);
+        dispatch();
+    }
+
+    synchronized void unsubscribe(InMemoryChannel.Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * 크레딧이 남은 구독자에게 가능한 만큼 전달한다. 컨슈머 콜백은 Spring 내부 큐에 넣기만 하므로 락 안에서 호출해도 된다.
+     */
+    synchronized void dispatch() {
+        while (!ready.isEmpty() && !subscriptions.isEmpty()) {
+            InMemoryChannel.Subscription target = null;
+            int size = subscriptions.size();
+            for (int i = 0; i < size; i++) {
+                InMemoryChannel.Subscription candidate = subscriptions.get((nextSubscription + i) % size);
+                if (candidate.hasCredit()) {
+                    target = candidate;
+                    nextSubscription = (nextSubscription + i + 1) % size;
+                    break;
+                }
+            }
+            if (target == null) {
+                return;
+            }
+            if (target.deliver(this, ready.pollFirst())) {
+                unacked++;
+            }
+        }
+    }
+
+    synchronized void settled(int count) {
+        unacked -= count;
+    }
+
+    /**
+     * 대기 메시지와 미확인 메시지가 모두 없으면 true. 컨슈머가 없는 큐(DLQ 등)는 항상 true.
+     */
+    synchronized boolean isDrained() {
+        return subscriptions.isEmpty() || (ready.isEmpty() && unacked == 0);
+    }
+
+    public synchronized int depth() {
+        return ready.size();
+    }
+
+    synchronized int consumerCount() {
+        return subscriptions.size();
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.mqpoc.loadtest.broker;
+
+import com.rabbitmq.client.AMQP;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 부하 테스트용 in-process AMQP 브로커 대역(stand-in).
+ * <ul>
+ *     <li>direct/topic/fanout exchange, 기본 exchange(""), queue 바인딩, exchange 간 바인딩을 지원한다.</li>
+ *     <li>큐 인자 중 {@code x-dead-letter-exchange}/{@code x-dead-letter-routing-key}를 해석해 reject/nack(requeue=false)
+ *     메시지를 dead-letter 하며, 이때 {@code x-death} 헤더를 붙인다.</li>
+ *     <li>영속성, TTL, 우선순위, 클러스터링은 흉내 내지 않는다. 측정 대상은 클라이언트/애플리케이션 쪽 비용이다.</li>
+ *     <li>발행 → 컨슈머 ACK 까지의 지연을 HdrHistogram {@link Recorder}에 기록한다.</li>
+ * </ul>
+ */
+public class InMemoryBroker {
+
+    private static final String DEFAULT_EXCHANGE = "";
+
+    private final Map<String, BrokerExchange> exchanges = new ConcurrentHashMap<>();
+    private final Map<String, BrokerQueue> queues = new ConcurrentHashMap<>();
+    private final Recorder publishToAck = new Recorder(3);
+    private final LongAdder published = new LongAdder();
+    private final LongAdder unroutable = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public void declareExchange(String name, String type) {
+        exchanges.computeIfAbsent(name, key -> new BrokerExchange(key, type));
+    }
+
+    public BrokerQueue declareQueue(String name, Map<String, Object> arguments) {
+        return queues.computeIfAbsent(name, key -> new BrokerQueue(this, key, arguments));
+    }
+
+    public BrokerQueue queue(String name) {
+        return queues.get(name);
+    }
+
+    public void bindQueue(String queue, String exchange, String routingKey) {
+        requireExchange(exchange).bindings.add(new Binding(queue, null, routingKey));
+    }
+
+    public void bindExchange(String destination, String source, String routingKey) {
+        requireExchange(source).bindings.add(new Binding(null, destination, routingKey));
+    }
+
+    /**
+     * @return 메시지를 받은 큐 수 (0이면 unroutable)
+     */
+    int publish(String exchange, String routingKey, AMQP.BasicProperties properties, byte[] body) {
+        published.increment();
+        long publishNanos = System.nanoTime();
+        Set<BrokerQueue> targets = new LinkedHashSet<>();
+        collectTargets(exchange, routingKey, targets, 0);
+        for (BrokerQueue queue : targets) {
+            queue.enqueue(new QueuedMessage(exchange, routingKey, properties, body, publishNanos));
+        }
+        if (targets.isEmpty()) {
+            unroutable.increment();
+        }
+        return targets.size();
+    }
+
+    void acked(QueuedMessage message) {
+        acked.increment();
+        publishToAck.recordValue(Math.max(0, System.nanoTime() - message.publishNanos()));
+    }
+
+    void deadLetter(BrokerQueue source, QueuedMessage message, String reason) {
+        Object dlx = source.arguments().get("x-dead-letter-exchange");
+        if (dlx == null) {
+            return;
+        }
+        deadLettered.increment();
+        Object dlk = source.arguments().get("x-dead-letter-routing-key");
+        String routingKey = dlk != null ? dlk.toString() : message.routingKey();
+
+        Map<String, Object> headers = message.properties().getHeaders() != null
+                ? new HashMap<>(message.properties().getHeaders()) : new HashMap<>();
+        Map<String, Object> death = new HashMap<>();
+        death.put("queue", source.name());
+        death.put("reason", reason);
+        death.put("exchange", message.exchange());
+        death.put("routing-keys", List.of(message.routingKey()));
+        death.put("count", 1L);
+        death.put("time", Date.from(Instant.now()));
+        List<Object> deaths = new ArrayList<>();
+        deaths.add(death);
+        if (headers.get("x-death") instanceof List<?> previous) {
+            deaths.addAll(previous);
+        }
+        headers.put("x-death", deaths);
+        publish(dlx.toString(), routingKey, message.properties().builder().headers(headers).build(), message.body());
+    }
+
+    private void collectTargets(String exchange, String routingKey, Set<BrokerQueue> targets, int depth) {
+        if (DEFAULT_EXCHANGE.equals(exchange)) {
+            BrokerQueue queue = queues.get(routingKey);
+            if (queue != null) {
+                targets.add(queue);
+            }
+            return;
+        }
+        BrokerExchange target = exchanges.get(exchange);
+        if (target == null || depth > 8) {
+            return;
+        }
+        for (Binding binding : target.bindings) {
+            if (!target.matches(binding.routingKey(), routingKey)) {
+                continue;
+            }
+            if (binding.queue() != null) {
+                BrokerQueue queue = queues.get(binding.queue());
+                if (queue != null) {
+                    targets.add(queue);
+                }
+            } else {
+                collectTargets(binding.exchange(), routingKey, targets, depth + 1);
+            }
+        }
+    }
+
+    private BrokerExchange requireExchange(String name) {
+        BrokerExchange exchange = exchanges.get(name);
+        if (exchange == null) {
+            throw new IllegalStateException("NOT_FOUND - no exchange '" + name + "'");
+        }
+        return exchange;
+    }
+
+    /**
+     * 컨슈머가 붙은 모든 큐가 비고 미확인 메시지가 없을 때까지(최대 timeout) 기다린다.
+     *
+     * @return 제한 시간 안에 모두 처리되었으면 true
+     */
+    public boolean awaitConsumed(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!queues.values().stream().allMatch(BrokerQueue::isDrained)) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    public Histogram publishToAckHistogram() {
+        return publishToAck.getIntervalHistogram();
+    }
+
+    public long publishedCount() {
+        return published.sum();
+    }
+
+    public long unroutableCount() {
+        return unroutable.sum();
+    }
+
+    public long ackedCount() {
+        return acked.sum();
+    }
+
+    public long deadLetteredCount() {
+        return deadLettered.sum();
+    }
+
+    public Map<String, Integer> queueDepths() {
+        Map<String, Integer> depths = new TreeMap<>();
+        queues.forEach((name, queue) -> depths.put(name, queue.depth()));
+        return depths;
+    }
+
+    private record Binding(String queue, String exchange, String routingKey) {
+    }
+
+    private static final class BrokerExchange {
+
+        private final String type;
+        private final List<Binding> bindings = new CopyOnWriteArrayList<>();
+        private final Map<String, String[]> bindingWords = new ConcurrentHashMap<>();
+
+        private BrokerExchange(String name, String type) {
+            this.type = type;
+        }
+
+        boolean matches(String bindingKey, String routingKey) {
+            return switch (type) {
+                case "fanout" -> true;
+                case "topic" -> topicMatches(bindingWords.computeIfAbsent(bindingKey, key -> key.split("\\.")), 0,
+                        routingKey.split("\\."), 0);
+                default -> bindingKey.equals(routingKey);
+            };
+        }
+
+        /**
+         * AMQP topic 규칙: {@code *}는 단어 하나, {@code #}는 0개 이상의 단어와 매칭된다.
+         */
+        private static boolean topicMatches(String[] pattern, int p, String[] words, int w) {
+            if (p == pattern.length) {
+                return w == words.length;
+            }
+            String token = pattern[p];
+            if (token.equals("#")) {
+                for (int i = w; i <= words.length; i++) {
+                    if (topicMatches(pattern, p + 1, words, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (w == words.length) {
+                return false;
+            }
+            return (token.equals("*") || token.equals(words[w])) && topicMatches(pattern, p + 1, words, w + 1);
+        }
+    }
+}
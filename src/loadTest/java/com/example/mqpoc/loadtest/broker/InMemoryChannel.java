@@ -0,0 +1,366 @@
+package com.example.mqpoc.loadtest.broker;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ReturnListener;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import com.rabbitmq.client.impl.AMQImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Channel} 프록시의 구현. Spring AMQP 가 실제로 호출하는 메서드만 해석하고, 나머지는 반환 타입 기본값을 돌려준다.
+ * <ul>
+ *     <li>publisher confirm/return 은 커넥션 전용 단일 스레드에서 비동기로 통지한다. (실제 클라이언트의 I/O 스레드 역할)</li>
+ *     <li>ACK/NACK 은 채널의 미확인 테이블에서 먼저 꺼낸 뒤 큐에 반영해, 큐 락 → 채널 순서만 존재하도록 한다.</li>
+ * </ul>
+ */
+final class InMemoryChannel implements InvocationHandler {
+
+    private final InMemoryBroker broker;
+    private final Connection connection;
+    private final int channelNumber;
+    private final Executor callbacks;
+    private final List<ConfirmListener> confirmListeners = new CopyOnWriteArrayList<>();
+    private final List<ReturnListener> returnListeners = new CopyOnWriteArrayList<>();
+    private final List<ShutdownListener> shutdownListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, Delivery> unacked = new ConcurrentSkipListMap<>();
+    private final AtomicLong deliveryTags = new AtomicLong();
+    private final AtomicLong publishSeqNo = new AtomicLong(1);
+    private volatile boolean confirmMode;
+    private volatile boolean open = true;
+    private volatile int prefetch;
+
+    InMemoryChannel(InMemoryBroker broker, Connection connection, int channelNumber, Executor callbacks) {
+        this.broker = broker;
+        this.connection = connection;
+        this.channelNumber = channelNumber;
+        this.callbacks = callbacks;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        return switch (method.getName()) {
+            case "getChannelNumber" -> channelNumber;
+            case "getConnection" -> connection;
+            case "isOpen" -> open;
+            case "exchangeDeclare" -> {
+                String type = args[1] instanceof BuiltinExchangeType builtin ? builtin.getType() : (String) args[1];
+                broker.declareExchange((String) args[0], type);
+                yield new AMQImpl.Exchange.DeclareOk();
+            }
+            case "exchangeDeclarePassive" -> new AMQImpl.Exchange.DeclareOk();
+            case "exchangeBind" -> {
+                broker.bindExchange((String) args[0], (String) args[1], (String) args[2]);
+                yield new AMQImpl.Exchange.BindOk();
+            }
+            case "queueDeclare" -> queueDeclare(args);
+            case "queueDeclarePassive" -> {
+                BrokerQueue queue = broker.queue((String) args[0]);
+                if (queue == null) {
+                    throw new IOException("NOT_FOUND - no queue '" + args[0] + "'");
+                }
+                yield new AMQImpl.Queue.DeclareOk(queue.name(), queue.depth(), queue.consumerCount());
+            }
+            case "queueBind" -> {
+                broker.bindQueue((String) args[0], (String) args[1], (String) args[2]);
+                yield new AMQImpl.Queue.BindOk();
+            }
+            case "basicQos" -> {
+                // basicQos(count) / basicQos(count, global) / basicQos(size, count, global)
+                prefetch = args.length == 3 ? (int) args[1] : (int) args[0];
+                yield new AMQImpl.Basic.QosOk();
+            }
+            case "confirmSelect" -> {
+                confirmMode = true;
+                yield new AMQImpl.Confirm.SelectOk();
+            }
+            case "getNextPublishSeqNo" -> confirmMode ? publishSeqNo.get() : 0L;
+            case "addConfirmListener" -> {
+                if (args[0] instanceof ConfirmListener listener) {
+                    confirmListeners.add(listener);
+                }
+                yield args[0] instanceof ConfirmListener ? null : ProxyDefaults.of(method.getReturnType());
+            }
+            case "addReturnListener" -> {
+                if (args[0] instanceof ReturnListener listener) {
+                    returnListeners.add(listener);
+                }
+                yield args[0] instanceof ReturnListener ? null : ProxyDefaults.of(method.getReturnType());
+            }
+            case "addShutdownListener" -> {
+                shutdownListeners.add((ShutdownListener) args[0]);
+                yield null;
+            }
+            case "removeShutdownListener" -> {
+                shutdownListeners.remove((ShutdownListener) args[0]);
+                yield null;
+            }
+            case "basicPublish" -> {
+                basicPublish(args);
+                yield null;
+            }
+            case "basicConsume" -> basicConsume(args);
+            case "basicCancel" -> {
+                cancel((String) args[0]);
+                yield null;
+            }
+            case "basicGet" -> basicGet((String) args[0], (boolean) args[1]);
+            case "basicAck" -> {
+                settle((long) args[0], (boolean) args[1], Outcome.ACK);
+                yield null;
+            }
+            case "basicNack" -> {
+                settle((long) args[0], (boolean) args[1], (boolean) args[2] ? Outcome.REQUEUE : Outcome.REJECT);
+                yield null;
+            }
+            case "basicReject" -> {
+                settle((long) args[0], false, (boolean) args[1] ? Outcome.REQUEUE : Outcome.REJECT);
+                yield null;
+            }
+            case "basicRecover" -> {
+                settle(Long.MAX_VALUE, true, Outcome.REQUEUE);
+                yield new AMQImpl.Basic.RecoverOk();
+            }
+            case "close", "abort" -> {
+                close(proxy);
+                yield null;
+            }
+            case "toString" -> "InMemoryChannel#" + channelNumber;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> ProxyDefaults.of(method.getReturnType());
+        };
+    }
+
+    private AMQP.Queue.DeclareOk queueDeclare(Object[] args) {
+        String name = args.length == 0 ? "amq.gen-" + UUID.randomUUID() : (String) args[0];
+        @SuppressWarnings("unchecked")
+        Map<String, Object> arguments = args.length >= 5 ? (Map<String, Object>) args[4] : null;
+        BrokerQueue queue = broker.declareQueue(name, arguments);
+        return new AMQImpl.Queue.DeclareOk(queue.name(), queue.depth(), queue.consumerCount());
+    }
+
+    /**
+     * basicPublish(exchange, routingKey, props, body) / (…, mandatory, props, body) / (…, mandatory, immediate, props, body)
+     */
+    private void basicPublish(Object[] args) {
+        String exchange = (String) args[0];
+        String routingKey = (String) args[1];
+        boolean mandatory = args.length > 4 && (boolean) args[2];
+        AMQP.BasicProperties properties = (AMQP.BasicProperties) args[args.length - 2];
+        byte[] body = (byte[]) args[args.length - 1];
+        if (properties == null) {
+            properties = new AMQP.BasicProperties();
+        }
+        long seqNo = confirmMode ? publishSeqNo.getAndIncrement() : -1;
+        int routed = broker.publish(exchange, routingKey, properties, body);
+        if (seqNo < 0 && (routed > 0 || !mandatory)) {
+            return;
+        }
+        AMQP.BasicProperties returnedProperties = properties;
+        callbacks.execute(() -> {
+            try {
+                if (routed == 0 && mandatory) {
+                    for (ReturnListener listener : returnListeners) {
+                        listener.handleReturn(312, "NO_ROUTE", exchange, routingKey, returnedProperties, body);
+                    }
+                }
+                if (seqNo >= 0) {
+                    for (ConfirmListener listener : confirmListeners) {
+                        listener.handleAck(seqNo, false);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * basicConsume 오버로드 중 첫 인자는 큐 이름, 두 번째는 autoAck, 마지막은 {@link Consumer}다.
+     */
+    private String basicConsume(Object[] args) {
+        String queueName = (String) args[0];
+        boolean autoAck = args[1] instanceof Boolean flag && flag;
+        Consumer consumer = (Consumer) args[args.length - 1];
+        String consumerTag = args.length > 3 && args[2] instanceof String tag && !tag.isEmpty()
+                ? tag : "amq.ctag-" + UUID.randomUUID();
+        BrokerQueue queue = broker.queue(queueName);
+        if (queue == null) {
+            throw new UncheckedIOException(new IOException("NOT_FOUND - no queue '" + queueName + "'"));
+        }
+        Subscription subscription = new Subscription(this, queue, consumerTag, consumer, autoAck, prefetch);
+        subscriptions.put(consumerTag, subscription);
+        consumer.handleConsumeOk(consumerTag);
+        queue.subscribe(subscription);
+        return consumerTag;
+    }
+
+    private GetResponse basicGet(String queueName, boolean autoAck) {
+        BrokerQueue queue = broker.queue(queueName);
+        if (queue == null) {
+            throw new UncheckedIOException(new IOException("NOT_FOUND - no queue '" + queueName + "'"));
+        }
+        QueuedMessage message = queue.poll();
+        if (message == null) {
+            return null;
+        }
+        long tag = deliveryTags.incrementAndGet();
+        if (autoAck) {
+            broker.acked(message);
+        } else {
+            unacked.put(tag, new Delivery(null, queue, message));
+        }
+        return new GetResponse(envelope(tag, message), message.properties(), message.body(), queue.depth());
+    }
+
+    private void cancel(String consumerTag) {
+        Subscription subscription = subscriptions.remove(consumerTag);
+        if (subscription != null) {
+            subscription.queue.unsubscribe(subscription);
+            subscription.consumer.handleCancelOk(consumerTag);
+        }
+    }
+
+    private void settle(long deliveryTag, boolean multiple, Outcome outcome) {
+        List<Delivery> settled = new ArrayList<>();
+        if (multiple) {
+            var head = unacked.headMap(deliveryTag, true);
+            settled.addAll(head.values());
+            head.clear();
+        } else {
+            Delivery delivery = unacked.remove(deliveryTag);
+            if (delivery != null) {
+                settled.add(delivery);
+            }
+        }
+        Map<BrokerQueue, List<QueuedMessage>> requeued = new LinkedHashMap<>();
+        Map<BrokerQueue, Integer> touched = new LinkedHashMap<>();
+        for (Delivery delivery : settled) {
+            if (delivery.subscription != null) {
+                delivery.subscription.unacked.decrementAndGet();
+                touched.merge(delivery.queue, 1, Integer::sum);
+            } else {
+                touched.putIfAbsent(delivery.queue, 0);
+            }
+            switch (outcome) {
+                case ACK -> broker.acked(delivery.message);
+                case REJECT -> broker.deadLetter(delivery.queue, delivery.message, "rejected");
+                case REQUEUE -> requeued.computeIfAbsent(delivery.queue, key -> new ArrayList<>()).add(delivery.message);
+            }
+        }
+        requeued.forEach(BrokerQueue::requeue);
+        // 크레딧이 돌아왔으니 대기 중인 메시지를 다시 전달한다.
+        touched.forEach((queue, count) -> {
+            queue.settled(count);
+            queue.dispatch();
+        });
+    }
+
+    private void close(Object proxy) {
+        boolean wasOpen = open;
+        open = false;
+        for (String consumerTag : List.copyOf(subscriptions.keySet())) {
+            Subscription subscription = subscriptions.remove(consumerTag);
+            if (subscription != null) {
+                subscription.queue.unsubscribe(subscription);
+            }
+        }
+        settle(Long.MAX_VALUE, true, Outcome.REQUEUE);
+        if (wasOpen) {
+            ShutdownSignalException signal = new ShutdownSignalException(false, true, null, proxy);
+            shutdownListeners.forEach(listener -> listener.shutdownCompleted(signal));
+        }
+    }
+
+    long register(Subscription subscription, BrokerQueue queue, QueuedMessage message) {
+        long tag = deliveryTags.incrementAndGet();
+        unacked.put(tag, new Delivery(subscription, queue, message));
+        return tag;
+    }
+
+    private static Envelope envelope(long tag, QueuedMessage message) {
+        return new Envelope(tag, message.redelivered(), message.exchange(), message.routingKey());
+    }
+
+    private enum Outcome {
+        ACK,
+        REJECT,
+        REQUEUE
+    }
+
+    private record Delivery(Subscription subscription, BrokerQueue queue, QueuedMessage message) {
+    }
+
+    /**
+     * basicConsume 한 건. prefetch 가 0이면 무제한으로 전달한다.
+     */
+    static final class Subscription {
+
+        private final InMemoryChannel channel;
+        private final BrokerQueue queue;
+        private final String consumerTag;
+        private final Consumer consumer;
+        private final boolean autoAck;
+        private final int prefetch;
+        private final AtomicInteger unacked = new AtomicInteger();
+
+        private Subscription(InMemoryChannel channel, BrokerQueue queue, String consumerTag, Consumer consumer,
+                             boolean autoAck, int prefetch) {
+            this.channel = channel;
+            this.queue = queue;
+            this.consumerTag = consumerTag;
+            this.consumer = consumer;
+            this.autoAck = autoAck;
+            this.prefetch = prefetch;
+        }
+
+        boolean hasCredit() {
+            return autoAck || prefetch == 0 || unacked.get() < prefetch;
+        }
+
+        /**
+         * @return 미확인 상태로 남았으면 true (autoAck 면 false)
+         */
+        boolean deliver(BrokerQueue source, QueuedMessage message) {
+            long tag;
+            if (autoAck) {
+                tag = channel.deliveryTags.incrementAndGet();
+                source.broker().acked(message);
+            } else {
+                unacked.incrementAndGet();
+                tag = channel.register(this, source, message);
+            }
+            try {
+                consumer.handleDelivery(consumerTag, envelope(tag, message), message.properties(), message.body());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return !autoAck;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.mqpoc.loadtest.broker;
+
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link InMemoryBroker}에 붙는 RabbitMQ 클라이언트 {@link ConnectionFactory}.
+ * Spring 의 {@code CachingConnectionFactory}를 이 팩토리 위에 올리면 RabbitTemplate/리스너 컨테이너/RabbitAdmin 이
+ * 실제 브로커 없이 그대로 동작한다.
+ */
+public class InMemoryRabbitConnectionFactory extends ConnectionFactory {
+
+    private final InMemoryBroker broker;
+    private final AtomicInteger connectionIds = new AtomicInteger();
+
+    public InMemoryRabbitConnectionFactory(InMemoryBroker broker) {
+        this.broker = broker;
+        setAutomaticRecoveryEnabled(false);
+    }
+
+    @Override
+    public Connection newConnection(ExecutorService executor, AddressResolver addressResolver, String clientProvidedName) {
+        int connectionId = connectionIds.incrementAndGet();
+        AtomicInteger channelNumbers = new AtomicInteger();
+        boolean[] open = {true};
+        ExecutorService callbacks = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-amqp-" + connectionId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "createChannel" -> {
+                        int channelNumber = args != null && args.length == 1 ? (int) args[0] : channelNumbers.incrementAndGet();
+                        InMemoryChannel channel = new InMemoryChannel(broker, (Connection) proxy, channelNumber, callbacks);
+                        yield Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Channel.class}, channel);
+                    }
+                    case "openChannel" -> Optional.empty();
+                    case "isOpen" -> open[0];
+                    case "close", "abort" -> {
+                        open[0] = false;
+                        callbacks.shutdown();
+                        yield null;
+                    }
+                    case "getAddress" -> InetAddress.getLoopbackAddress();
+                    case "getPort" -> 5672;
+                    case "getChannelMax" -> 2047;
+                    case "getServerProperties", "getClientProperties" -> Map.of();
+                    case "getClientProvidedName" -> clientProvidedName;
+                    case "getId" -> "in-memory-" + connectionId;
+                    case "toString" -> "InMemoryConnection#" + connectionId;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> ProxyDefaults.of(method.getReturnType());
+                });
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.mqpoc.loadtest.broker;
+
+final class ProxyDefaults {
+
+    private ProxyDefaults() {
+    }
+
+    static Object of(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return (char) 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.mqpoc.loadtest.broker;
+
+import com.rabbitmq.client.AMQP;
+
+/**
+ * 큐에 적재된 메시지. {@code publishNanos}는 발행 → ACK 지연 계산에 쓴다.
+ */
+record QueuedMessage(
+        String exchange,
+        String routingKey,
+        AMQP.BasicProperties properties,
+        byte[] body,
+        long publishNanos,
+        boolean redelivered
+) {
+
+    QueuedMessage(String exchange, String routingKey, AMQP.BasicProperties properties, byte[] body, long publishNanos) {
+        this(exchange, routingKey, properties, body, publishNanos, false);
+    }
+
+    QueuedMessage redelivery() {
+        return new QueuedMessage(exchange, routingKey, properties, body, publishNanos, true);
+    }
+}
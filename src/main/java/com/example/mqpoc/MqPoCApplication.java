@@ -1,5 +1,6 @@
 package com.example.mqpoc;
 
+import com.example.mqpoc.messaging.replay.DlqReplayCommand;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,6 +8,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class MqPoCApplication {
 
     public static void main(String[] args) {
+        if (DlqReplayCommand.isRequested(args)) {
+            System.exit(DlqReplayCommand.run(MqPoCApplication.class, args));
+        }
         SpringApplication.run(MqPoCApplication.class, args);
     }
 
@@ -0,0 +1,22 @@
+package com.example.mqpoc.config;
+
+import com.example.mqpoc.messaging.dedup.DedupStore;
+import com.example.mqpoc.messaging.dedup.TimeBucketedDedupStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 컨슈머 중복 제거 저장소. 기본은 프로세스 메모리에만 두는 {@link TimeBucketedDedupStore}이며,
+ * {@code messaging.dedup.store=custom}이면 등록하지 않으므로 애플리케이션이 {@link DedupStore} 빈(영속 저장소 등)을 제공해야 한다.
+ */
+@Configuration
+public class DedupConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "messaging.dedup", name = "store", havingValue = "memory", matchIfMissing = true)
+    public TimeBucketedDedupStore dedupStore(MessagingProperties properties) {
+        MessagingProperties.Dedup dedup = properties.dedup();
+        return new TimeBucketedDedupStore(dedup.ttl(), dedup.maxEntries(), dedup.buckets());
+    }
+}
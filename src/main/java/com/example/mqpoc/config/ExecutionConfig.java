@@ -0,0 +1,24 @@
+package com.example.mqpoc.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * {@code messaging.execution.mode=virtual}일 때 HTTP 요청 처리를 가상 스레드로 전환한다.
+ * 리스너 컨슈머 쪽은 {@link RabbitConfig#rabbitListenerContainerFactory}에서 같은 설정을 본다.
+ * <p>리스너의 {@code basicAck}/{@code basicNack}은 채널 락을 잡고 프레임만 쓰고 돌아오는 호출이며, JDK 24+ (JEP 491)에서는
+ * 모니터 대기 중에도 가상 스레드가 캐리어에서 내려가므로 별도 락 교체 없이 컨슈머 스레드에서 그대로 호출한다.
+ * 고정(pinning)이 의심되면 JFR {@code jdk.VirtualThreadPinned} 이벤트로 확인한다.</p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "messaging.execution", name = "mode", havingValue = "virtual")
+public class ExecutionConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadTaskExecutor("http-"));
+    }
+}
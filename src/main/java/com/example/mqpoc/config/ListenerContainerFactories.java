@@ -0,0 +1,40 @@
+package com.example.mqpoc.config;
+
+import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 서비스 키(messaging.services.*)별 전용 리스너 컨테이너 팩토리와 소비 큐 모음.
+ * <p>{@code @RabbitListener}의 {@code queues}/{@code containerFactory}에 SpEL 로 지정한다.
+ * 샤딩된 서비스는 샤드 큐 목록과 샤드마다 컨슈머 하나를 두는 팩토리가 돌아온다.</p>
+ * <pre>{@code
+ * @RabbitListener(queues = "#{@listenerContainerFactories.queues('serviceA')}",
+ *         containerFactory = "#{@listenerContainerFactories.forService('serviceA')}")
+ * }</pre>
+ */
+public class ListenerContainerFactories {
+
+    private final Map<String, RabbitListenerContainerFactory<?>> factories;
+    private final Map<String, List<String>> queues;
+
+    public ListenerContainerFactories(Map<String, RabbitListenerContainerFactory<?>> factories,
+                                      Map<String, List<String>> queues) {
+        this.factories = Map.copyOf(factories);
+        this.queues = Map.copyOf(queues);
+    }
+
+    public RabbitListenerContainerFactory<?> forService(String serviceKey) {
+        RabbitListenerContainerFactory<?> factory = factories.get(serviceKey);
+        Assert.notNull(factory, "Unknown service key: " + serviceKey);
+        return factory;
+    }
+
+    public String[] queues(String serviceKey) {
+        List<String> names = queues.get(serviceKey);
+        Assert.notNull(names, "Unknown service key: " + serviceKey);
+        return names.toArray(String[]::new);
+    }
+}
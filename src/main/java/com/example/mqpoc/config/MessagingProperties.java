@@ -1,12 +1,29 @@
 package com.example.mqpoc.config;
 
+import com.example.mqpoc.messaging.model.EventPriority;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @ConfigurationProperties(prefix = "messaging")
 public record MessagingProperties(
         Shared shared,
+        @DefaultValue Publisher publisher,
+        @DefaultValue Execution execution,
+        @DefaultValue Trace trace,
+        @DefaultValue Metrics metrics,
+        @DefaultValue Compression compression,
+        @DefaultValue Dedup dedup,
+        @DefaultValue Replay replay,
+        @DefaultValue Outbox outbox,
+        @DefaultValue Connections connections,
         Map<String, Service> services
 ) {
 
@@ -16,12 +33,525 @@ public record MessagingProperties(
     ) {
     }
 
+    /**
+     * 퍼블리셔 공통 설정.
+     *
+     * @param maxInFlight        배치 발행 시 한 채널에서 confirm 을 기다릴 수 있는 최대 메시지 수
+     * @param maxPendingConfirms 비동기 발행 전체에서 동시에 추적하는 미확정 confirm 최대 수
+     * @param confirmTimeout     confirm 대기 제한 시간 (초과 시 발행 future 가 실패)
+     */
+    public record Publisher(
+            @DefaultValue("256") int maxInFlight,
+            @DefaultValue("10000") int maxPendingConfirms,
+            @DefaultValue("5s") Duration confirmTimeout
+    ) {
+    }
+
+    /**
+     * 커넥션 역할별 채널 풀. {@code spring.rabbitmq.cache.channel.*}보다 우선한다.
+     *
+     * @param separatePublisher 발행을 리스너와 다른 TCP 커넥션으로 보낼지 여부. 브로커가 발행 커넥션에 거는 흐름 제어(TCP 역압)가
+     *                          같은 커넥션의 소비/ACK 까지 멈추지 않게 한다. false 면 한 커넥션을 같이 쓰고 consumer 설정을 따른다.
+     * @param publisher         발행({@code RabbitTemplate}) 커넥션의 채널 풀
+     * @param consumer          리스너 컨테이너/RabbitAdmin 커넥션의 채널 풀
+     */
+    public record Connections(
+            @DefaultValue("true") boolean separatePublisher,
+            @DefaultValue Pool publisher,
+            @DefaultValue Pool consumer
+    ) {
+
+        /**
+         * @param channelCacheSize       유휴 채널 보관 수. 동시에 쓰는 채널이 이보다 많으면 반환 시 닫히므로(채널 churn)
+         *                               동시 발행 스레드 수 이상으로 둔다.
+         * @param channelCheckoutTimeout 0 보다 크면 channelCacheSize 가 채널 수 상한이 되고, 빈 채널이 없으면 이 시간까지 기다린 뒤
+         *                               실패한다 (0 = 상한 없음)
+         */
+        public record Pool(
+                @DefaultValue("25") int channelCacheSize,
+                @DefaultValue("0ms") Duration channelCheckoutTimeout
+        ) {
+        }
+    }
+
+    /**
+     * 리스너/HTTP 처리 스레드 모델.
+     *
+     * @param mode platform(기본, 고정 크기 스레드 풀) | virtual(요청/리스너 컨슈머마다 가상 스레드)
+     */
+    public record Execution(
+            @DefaultValue("platform") Mode mode
+    ) {
+
+        public enum Mode {
+            PLATFORM,
+            VIRTUAL
+        }
+
+        public boolean isVirtual() {
+            return mode == Mode.VIRTUAL;
+        }
+    }
+
+    /**
+     * 발행/소비 추적 로그 설정. (messaging.trace.* 로거 레벨로도 켜고 끌 수 있다)
+     *
+     * @param enabled    추적 기록 여부
+     * @param sampleRate 정상 이벤트 샘플링 비율 (0~1, NACK/return/오류는 항상 기록)
+     * @param bufferSize 드레인 전까지 보관하는 링 버퍼 크기 (2의 거듭제곱으로 올림)
+     */
+    public record Trace(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("1.0") double sampleRate,
+            @DefaultValue("8192") int bufferSize
+    ) {
+    }
+
+    /**
+     * Micrometer 지표 설정.
+     *
+     * @param maxEventTypes eventType 태그에 그대로 쓰는 이벤트명 수. eventType 은 HTTP 요청에서 그대로 오므로, 처음 본 이름 이만큼만
+     *                      태그로 쓰고 이후 새 이름은 {@code other}로 묶어 미터 수를 제한한다.
+     */
+    public record Metrics(
+            @DefaultValue("100") int maxEventTypes
+    ) {
+    }
+
+    /**
+     * 컨슈머 중복 제거(멱등) 설정. 키는 {@code EventMetadata.messageId}(없으면 AMQP message-id)이고 리스너 서비스 키별로 따로 센다.
+     *
+     * @param enabled    중복 제거 사용 여부
+     * @param ttl        처리한 messageId 를 기억하는 최소 시간 (퍼블리셔 재시도/재전달 간격보다 길게)
+     * @param maxEntries 메모리에 보관하는 최대 messageId 수 (테이블은 미리 할당, 기본값에서 약 5MB). 가득 차면 ttl 전이라도
+     *                   오래된 구간부터 버린다.
+     * @param buckets    ttl 을 나누는 시간 구간 수 (클수록 만료가 촘촘하지만 조회할 테이블이 늘어난다)
+     * @param store      memory 면 내장 {@code TimeBucketedDedupStore}, custom 이면 애플리케이션이 등록한 {@code DedupStore} 빈
+     */
+    public record Dedup(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10m") Duration ttl,
+            @DefaultValue("200000") int maxEntries,
+            @DefaultValue("4") int buckets,
+            @DefaultValue("memory") Store store
+    ) {
+
+        public enum Store {
+            MEMORY, CUSTOM
+        }
+    }
+
+    /**
+     * DLQ 재처리 기본값. 작업별 조건은 {@code /actuator/dlqreplay} 또는 {@code --dlq-replay} CLI 로 준다.
+     *
+     * @param batchSize        한 번에 재발행하고 confirm 을 기다리는 메시지 수
+     * @param rate             초당 최대 재발행 건수 (0 = 제한 없음, 작업별로 덮어쓸 수 있음)
+     * @param idleTimeout      이 시간 동안 DLQ 에서 메시지가 오지 않으면 작업 종료
+     * @param progressInterval 진행 상황 로그 주기
+     */
+    public record Replay(
+            @DefaultValue("500") int batchSize,
+            @DefaultValue("0") int rate,
+            @DefaultValue("2s") Duration idleTimeout,
+            @DefaultValue("5s") Duration progressInterval
+    ) {
+    }
+
+    /**
+     * 로컬 아웃박스. 켜면 {@code EventPublisher#publish}는 브로커 대신 로컬 append-only 로그에 기록(fsync)한 뒤 반환하고,
+     * 릴레이 스레드가 로그를 순서대로 브로커에 발행한다. confirm 을 돌려주는 발행(publishAsync/publishBatch)은 그대로 브로커로 간다.
+     *
+     * @param enabled       아웃박스 사용 여부
+     * @param directory     세그먼트와 커밋 오프셋 파일을 두는 디렉터리
+     * @param segmentSize   세그먼트 파일(mmap) 크기. 레코드 하나는 이보다 작아야 한다.
+     * @param maxSize       아직 릴레이되지 않은 로그 허용량. 넘으면 발행이 REJECTED(503)로 실패한다.
+     * @param flushInterval fsync 전에 기록을 더 모으는 시간. 0 이면 직전 fsync 가 끝나자마자 그동안 쌓인 기록을 한 번에 fsync 하며,
+     *                      동시 요청이 많을 때는 이것만으로 충분히 묶인다. 값을 주면 건당 지연이 그만큼 늘어난다.
+     * @param batchSize     릴레이가 한 번에 발행하고 confirm 을 기다리는 레코드 수
+     * @param retryBackoff  발행 실패 후 같은 위치부터 다시 시도하기까지 대기 시간
+     */
+    public record Outbox(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("data/outbox") Path directory,
+            @DefaultValue("64MB") DataSize segmentSize,
+            @DefaultValue("1GB") DataSize maxSize,
+            @DefaultValue("0ms") Duration flushInterval,
+            @DefaultValue("256") int batchSize,
+            @DefaultValue("1s") Duration retryBackoff
+    ) {
+    }
+
     public record Service(
             String prefix,
             String exchange,
             String queue,
+            @DefaultValue("classic") QueueType queueType,
+            @DefaultValue QueueArguments queueArguments,
             String schemaVersion,
-            String sourceService
+            String sourceService,
+            @DefaultValue Consumer consumer,
+            @DefaultValue Encoding encoding,
+            @DefaultValue Retry retry,
+            @DefaultValue Admission admission,
+            @DefaultValue Sharding sharding,
+            @DefaultValue Filter filter,
+            @DefaultValue Priority priority
     ) {
+
+        /**
+         * @return 재시도 단계별 대기 시간. stream 큐는 메시지를 지우지 않고 모든 컨슈머가 다시 읽으므로 재시도 단계를 두지 않는다.
+         */
+        public List<Duration> retryDelays() {
+            return queueType == QueueType.STREAM ? List.of() : retry.delays();
+        }
+
+        /**
+         * @param attempt 1부터 시작하는 재시도 단계
+         * @return 해당 단계의 대기 큐 이름 ({@code <queue>.retry.<attempt>})
+         */
+        public String retryQueue(int attempt) {
+            return retryQueue(queue, attempt);
+        }
+
+        /**
+         * @param sourceQueue 메시지를 받은 큐 (서비스 큐 또는 샤드 큐)
+         * @param attempt     1부터 시작하는 재시도 단계
+         * @return 만료되면 {@code sourceQueue}로 돌아가는 대기 큐 이름 ({@code <sourceQueue>.retry.<attempt>})
+         */
+        public String retryQueue(String sourceQueue, int attempt) {
+            return sourceQueue + ".retry." + attempt;
+        }
+
+        /**
+         * @param shard 0부터 시작하는 샤드 번호
+         * @return 샤드 큐 이름 ({@code <queue>.<shard>})
+         */
+        public String shardQueue(int shard) {
+            return queue + "." + shard;
+        }
+
+        /**
+         * @return 이 서비스 리스너가 소비하는 큐 목록. 샤딩하지 않으면 {@code queue} 하나
+         */
+        public List<String> queues() {
+            if (!sharding.enabled()) {
+                return List.of(queue);
+            }
+            List<String> queues = new ArrayList<>(sharding.shards());
+            for (int shard = 0; shard < sharding.shards(); shard++) {
+                queues.add(shardQueue(shard));
+            }
+            return queues;
+        }
+    }
+
+    /**
+     * 서비스 큐 종류. 이미 있는 큐의 종류는 바꿀 수 없으므로(선언 시 PRECONDITION_FAILED) 바꿀 때는 새 큐 이름을 쓴다.
+     * <ul>
+     *     <li>classic: 단일 노드 큐. 기존 동작.</li>
+     *     <li>quorum: Raft 로 복제되는 큐. 노드 장애에도 메시지를 잃지 않으며, {@code delivery-limit}을 넘게 재전달된
+     *     메시지는 DLX 로 간다.</li>
+     *     <li>stream: 소비해도 지워지지 않는 append-only 로그. 컨슈머마다 {@code consumer.stream-offset}부터 읽으므로
+     *     같은 스트림을 여러 서비스 키(분석/재처리용)가 복사 없이 읽을 수 있다. 보관 기간/크기로만 지워지고, DLX 와 재시도
+     *     단계는 적용되지 않는다. 컨슈머마다 스트림 전체를 받으므로 리스너 컨슈머는 하나로 고정한다.</li>
+     * </ul>
+     */
+    public enum QueueType {
+        CLASSIC,
+        QUORUM,
+        STREAM
+    }
+
+    /**
+     * 큐 종류별 선언 인자. 비워 두면 브로커 기본값을 쓰고, 큐 종류가 지원하지 않는 값은 넣지 않는다.
+     *
+     * @param deliveryLimit  quorum: 이 횟수를 넘게 재전달되면 DLX 로 보낸다 (x-delivery-limit)
+     * @param maxLength      classic/quorum: 큐에 둘 최대 메시지 수 (x-max-length)
+     * @param maxLengthBytes 전체 바디 크기 상한. stream 에서는 보관 용량 (x-max-length-bytes)
+     * @param maxAge         stream: 보관 기간 (x-max-age, 예: 7d)
+     * @param segmentSize    stream: 세그먼트 파일 크기. 보관 정책은 세그먼트 단위로 지운다 (x-stream-max-segment-size-bytes)
+     */
+    public record QueueArguments(
+            Integer deliveryLimit,
+            Long maxLength,
+            DataSize maxLengthBytes,
+            Duration maxAge,
+            DataSize segmentSize
+    ) {
+    }
+
+    /**
+     * 서비스 우선순위. 백로그가 쌓였을 때 결제/사기 탐지 같은 긴급 이벤트가 대량 트래픽을 앞지르게 한다.
+     * <ul>
+     *     <li>호출자가 발행 시 우선순위를 넘기지 않으면 {@code events}의 이벤트명별 값, 그것도 없으면 normal 이다.</li>
+     *     <li>{@code maxPriority > 0}이면 classic 서비스 큐에 {@code x-max-priority}를 선언한다. quorum 큐는 RabbitMQ 4.0 부터
+     *     인자 없이 normal/high 두 단계를 구분하고 (기준 브로커 3.13 에서는 무시), stream 은 우선순위가 없다.</li>
+     *     <li>이미 있는 큐의 인자는 바꿀 수 없다. 켜거나 값을 바꾸면 선언이 PRECONDITION_FAILED 로 실패하므로, 큐를 비우고 지운 뒤
+     *     다시 띄운다 (docker-compose 는 브로커 상태를 rabbitmq-data 볼륨에 남긴다).</li>
+     *     <li>브로커는 큐에 남은 메시지만 다시 정렬한다. prefetch 만큼은 이미 컨슈머에 넘어가 있으므로 prefetch 를 낮게 둔다.</li>
+     * </ul>
+     *
+     * @param maxPriority classic 큐의 x-max-priority (0 = 선언하지 않음, 1~255, 권장 10 이하)
+     * @param events      이벤트명별 기본 우선순위 (예: {@code [payment.captured]: urgent})
+     */
+    public record Priority(
+            @DefaultValue("0") int maxPriority,
+            Map<String, EventPriority> events
+    ) {
+
+        public Priority {
+            events = events != null ? Map.copyOf(events) : Map.of();
+        }
+
+        /**
+         * @param eventName 발행 이벤트명
+         * @param requested 호출자가 넘긴 우선순위 (null 이면 설정값)
+         */
+        public EventPriority resolve(String eventName, EventPriority requested) {
+            return requested != null ? requested : events.getOrDefault(eventName, EventPriority.NORMAL);
+        }
+    }
+
+    /**
+     * 리스너 수신 필터. 바디를 읽기 전에 AMQP 프로퍼티/헤더만으로 메시지를 버리거나 DLX 로 보낸다.
+     * 이 서비스 키로 들어오는 모든 리스너에 적용되며, 규칙은 위에서부터 처음 일치하는 것 하나만 쓴다.
+     * <pre>
+     * filter:
+     *   rules:
+     *     - types: [audit.*, heartbeat]   # AMQP type (이벤트명)
+     *       action: drop
+     *     - schema-versions: ["0.*"]      # schema-version 헤더
+     *       action: dead-letter
+     * </pre>
+     *
+     * @param rules         수신 규칙 목록
+     * @param defaultAction 어느 규칙에도 맞지 않을 때의 처리
+     */
+    public record Filter(
+            List<Rule> rules,
+            @DefaultValue("accept") Action defaultAction
+    ) {
+
+        public Filter {
+            rules = rules != null ? List.copyOf(rules) : List.of();
+        }
+
+        public enum Action {
+            /** 핸들러로 넘긴다. */
+            ACCEPT,
+            /** 핸들러 없이 ACK 한다. */
+            DROP,
+            /** 재큐잉 없이 NACK 해서 DLX 로 보낸다. */
+            DEAD_LETTER
+        }
+
+        /**
+         * 조건을 여러 개 주면 모두 맞아야 한다. 값은 {@code *} 와일드카드를 쓸 수 있고, 비워 둔 조건은 항상 맞는다.
+         *
+         * @param types          AMQP type (발행 이벤트명)
+         * @param schemaVersions schema-version 헤더
+         * @param routingKeys    발행 라우팅 키
+         * @param action         맞았을 때의 처리
+         */
+        public record Rule(
+                List<String> types,
+                List<String> schemaVersions,
+                List<String> routingKeys,
+                @DefaultValue("accept") Action action
+        ) {
+
+            public Rule {
+                types = types != null ? List.copyOf(types) : List.of();
+                schemaVersions = schemaVersions != null ? List.copyOf(schemaVersions) : List.of();
+                routingKeys = routingKeys != null ? List.copyOf(routingKeys) : List.of();
+            }
+        }
+    }
+
+    /**
+     * 서비스 큐 샤딩. 큐 하나는 브로커 코어 하나에서 돌기 때문에, 샤드 수만큼 큐를 나눠 처리량을 브로커 코어/노드로 넓힌다.
+     * <ul>
+     *     <li>{@code queue} 대신 {@code <queue>.0} ~ {@code <queue>.<shards-1>}를 선언하고, 재시도 대기 큐도 샤드마다 둔다.</li>
+     *     <li>퍼블리셔는 payload 의 {@code key} 필드 값을 샤드 키로 삼아 {@code x-shard-key} 헤더에 싣는다. 같은 키는 항상 같은 샤드로 간다.</li>
+     *     <li>리스너는 샤드마다 컨슈머 하나만 두므로 키별 순서가 유지된다. 병렬도는 {@code consumer.concurrent-consumers}가 아니라
+     *     샤드 수다. 재시도 대기 큐를 거친 메시지는 순서에서 빠진다.</li>
+     * </ul>
+     *
+     * @param shards   샤드 큐 수 (0, 1 = 샤딩하지 않음)
+     * @param key      샤드 키로 쓸 payload 필드. 점으로 중첩 경로를 쓸 수 있다 (예: orderId, customer.id).
+     *                 값이 없는 이벤트는 messageId 로 흩어진다.
+     * @param strategy routing-key: 퍼블리셔가 jump consistent hash 로 샤드를 골라 라우팅 키 끝에 붙인다
+     *                 ({@code <prefix>.<eventName>.<shard>}, 바인딩 {@code <prefix>.#.<shard>}).
+     *                 consistent-hash: 브로커의 x-consistent-hash exchange(rabbitmq_consistent_hash_exchange 플러그인)가
+     *                 {@code x-shard-key} 헤더로 샤드를 고른다. 라우팅 키는 바뀌지 않는다.
+     */
+    public record Sharding(
+            @DefaultValue("0") int shards,
+            String key,
+            @DefaultValue("routing-key") Strategy strategy
+    ) {
+
+        public enum Strategy {
+            ROUTING_KEY,
+            CONSISTENT_HASH
+        }
+
+        public boolean enabled() {
+            return shards > 1;
+        }
+    }
+
+    /**
+     * 핸들러 실패 시 재시도 단계. 단계마다 {@code <queue>.retry.<n>} 대기 큐(메시지 TTL = 지연)가 선언되고,
+     * 만료된 메시지는 기본 exchange 를 거쳐 원래 큐로 돌아온다. 대기는 브로커가 하므로 컨슈머 스레드는 멈추지 않는다.
+     *
+     * @param delays 단계별 대기 시간 (예: 1s, 10s, 1m). 비어 있으면 재시도 없이 바로 DLQ 로 보낸다.
+     */
+    public record Retry(
+            List<Duration> delays
+    ) {
+
+        public Retry {
+            delays = delays != null ? List.copyOf(delays) : List.of();
+        }
+    }
+
+    /**
+     * 서비스별 브로커 발행 수락 제어. 한도를 넘거나 브로커가 connection.blocked 상태이면 전송하지 않고 거절하며,
+     * HTTP 발행은 각각 429/503 과 Retry-After 로 응답한다. 아웃박스 모드의 publish 는 로그에 쌓이므로 적용되지 않는다.
+     *
+     * @param maxInFlight confirm 을 기다리는 이 서비스의 발행 건 상한 (0 = 제한 없음)
+     * @param retryAfter  거절 응답의 Retry-After
+     */
+    public record Admission(
+            @DefaultValue("2000") int maxInFlight,
+            @DefaultValue("1s") Duration retryAfter
+    ) {
+    }
+
+    /**
+     * 서비스별 발행 바디 인코딩. 수신 측은 메시지의 content-type/content-encoding 을 보고 디코딩하므로
+     * 퍼블리셔가 형식을 바꿔도 기존 컨슈머는 그대로 동작한다.
+     *
+     * @param format               envelope 직렬화 형식 json | cbor | smile
+     * @param compression          바디 압축 방식 none | gzip | lz4 | zstd
+     * @param compressionThreshold 이 크기 이상인 바디만 압축 (작은 메시지는 압축 이득보다 CPU 비용이 크다)
+     */
+    public record Encoding(
+            @DefaultValue("json") Format format,
+            @DefaultValue("none") Algorithm compression,
+            @DefaultValue("1KB") DataSize compressionThreshold
+    ) {
+
+        public enum Format {
+            JSON("application/json"),
+            CBOR("application/cbor"),
+            SMILE("application/x-jackson-smile");
+
+            private final String contentType;
+
+            Format(String contentType) {
+                this.contentType = contentType;
+            }
+
+            public String contentType() {
+                return contentType;
+            }
+
+            /**
+             * @return content-type(파라미터 무시)에 해당하는 형식, 모르는 형식이면 null
+             */
+            public static Format fromContentType(String contentType) {
+                if (contentType == null) {
+                    return null;
+                }
+                int semicolon = contentType.indexOf(';');
+                String mimeType = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim();
+                for (Format format : values()) {
+                    if (format.contentType.equalsIgnoreCase(mimeType)) {
+                        return format;
+                    }
+                }
+                return null;
+            }
+        }
+
+        public enum Algorithm {
+            NONE,
+            GZIP,
+            LZ4,
+            ZSTD
+        }
+    }
+
+    /**
+     * 압축 공통 설정. 서비스별 사용 여부/방식은 {@code services.*.encoding}에서 고른다.
+     *
+     * @param zstdLevel           zstd 압축 레벨 (1~22)
+     * @param zstdDictionaries    이벤트 타입(예: {@code [order.created]})별 학습된 zstd 사전. 컨슈머도 같은 사전을 등록해야 하며,
+     *                            사전 ID 로 프레임과 매칭한다.
+     * @param maxDecompressedSize 압축 해제 결과 허용 크기 (gzip/deflate/zip/lz4/zstd, 압축 폭탄 방지)
+     */
+    public record Compression(
+            @DefaultValue("3") int zstdLevel,
+            Map<String, Resource> zstdDictionaries,
+            @DefaultValue("16MB") DataSize maxDecompressedSize
+    ) {
+
+        public Compression {
+            zstdDictionaries = zstdDictionaries != null ? zstdDictionaries : Map.of();
+        }
+    }
+
+    /**
+     * 서비스 큐별 컨슈머 설정. 서비스마다 전용 리스너 컨테이너 팩토리가 이 값으로 만들어진다.
+     *
+     * @param concurrentConsumers    시작 컨슈머 수
+     * @param maxConcurrentConsumers 부하에 따라 늘릴 수 있는 최대 컨슈머 수
+     * @param prefetch               컨슈머당 미확인(unacked) 메시지 상한
+     * @param batchSize              한 번에 모아서 처리/ACK 하는 메시지 수
+     * @param batchTimeout           batchSize 를 채우지 못했을 때 기다리는 최대 시간
+     * @param streamOffset           stream 큐에서 읽기 시작할 위치. first | last | next | 오프셋 숫자 | ISO-8601 시각
+     *                               (예: 2026-01-01T00:00:00Z) | 현재부터 거슬러 갈 기간 (예: 1h, 7D). 비어 있으면 next.
+     *                               읽은 위치는 저장하지 않으므로 컨슈머가 다시 시작할 때마다 이 위치부터 읽는다.
+     *                               다른 큐 종류에서는 무시한다.
+     * @param lanes                  컨슈머 안에서 키별 순서를 지키며 병렬 처리하는 레인 설정
+     */
+    public record Consumer(
+            @DefaultValue("1") int concurrentConsumers,
+            @DefaultValue("1") int maxConcurrentConsumers,
+            @DefaultValue("1") int prefetch,
+            @DefaultValue("1") int batchSize,
+            @DefaultValue("100ms") Duration batchTimeout,
+            @DefaultValue("next") String streamOffset,
+            @DefaultValue Lanes lanes
+    ) {
+    }
+
+    /**
+     * 키 분할 레인. 컨슈머 스레드는 메시지를 키 해시로 고른 단일 스레드 레인에 넘기기만 하고, 레인이 처리와 ACK 을 맡는다.
+     * <ul>
+     *     <li>같은 키는 항상 같은 레인에서 순서대로 처리되고, 다른 키끼리는 레인 수만큼 병렬로 처리된다.</li>
+     *     <li>ACK 은 채널별로 모아, 더 작은 delivery tag 가 모두 끝났을 때 {@code basicAck(tag, multiple=true)}로 보낸다.</li>
+     *     <li>레인에 들어갈 수 있는 메시지 수는 prefetch 가 정하므로, 레인을 늘리면 prefetch 도 그만큼 늘려야 효과가 있다.</li>
+     * </ul>
+     *
+     * @param count     레인 수 (2 이상이면 사용)
+     * @param keyHeader 키를 읽을 헤더. 퍼블리셔는 레인이 켜진 서비스에 {@code key}(없으면 {@code sharding.key}) 값을 싣는다.
+     *                  샤드 키 헤더({@code x-shard-key})와 같게 두려면 {@code key}도 {@code sharding.key}와 같아야 한다.
+     * @param key       payload 의 키 경로 (예: orderId). 퍼블리셔만 읽는다. 컨슈머는 바디를 디코딩하지 않고 헤더만 보므로,
+     *                  헤더 없이 온 메시지는 messageId 로 레인을 골라 순서를 보장하지 않는다.
+     */
+    public record Lanes(
+            @DefaultValue("0") int count,
+            @DefaultValue(Lanes.DEFAULT_KEY_HEADER) String keyHeader,
+            String key
+    ) {
+
+        public static final String DEFAULT_KEY_HEADER = "x-lane-key";
+
+        public boolean enabled() {
+            return count > 1;
+        }
     }
 }
@@ -0,0 +1,31 @@
+package com.example.mqpoc.config;
+
+import com.example.mqpoc.messaging.outbox.OutboxLog;
+import com.example.mqpoc.messaging.outbox.OutboxRelay;
+import com.example.mqpoc.messaging.publisher.EventPublisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * 로컬 아웃박스 로그와 릴레이. {@code messaging.outbox.enabled=true}일 때만 등록되며,
+ * 로그 빈이 있으면 {@link EventPublisher#publish}가 브로커 대신 로그에 기록한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "messaging.outbox", name = "enabled", havingValue = "true")
+public class OutboxConfig {
+
+    @Bean(destroyMethod = "close")
+    public OutboxLog outboxLog(MessagingProperties properties) throws IOException {
+        MessagingProperties.Outbox outbox = properties.outbox();
+        return OutboxLog.open(outbox.directory(), outbox.segmentSize().toBytes(), outbox.maxSize().toBytes(),
+                outbox.flushInterval());
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(OutboxLog outboxLog, EventPublisher publisher, MessagingProperties properties) {
+        return new OutboxRelay(outboxLog, publisher, properties.outbox());
+    }
+}
@@ -1,23 +1,39 @@
 package com.example.mqpoc.config;
 
+import com.example.mqpoc.messaging.codec.EnvelopeMessageConverter;
+import com.example.mqpoc.messaging.codec.MessageCompressor;
+import com.example.mqpoc.messaging.lane.KeyedLanes;
+import com.example.mqpoc.messaging.metrics.MessagingMetrics;
+import com.example.mqpoc.messaging.publisher.PublishCorrelation;
+import com.example.mqpoc.messaging.shard.ShardRouter;
+import com.example.mqpoc.messaging.shard.ShardedListenerContainerFactory;
+import com.example.mqpoc.messaging.trace.EventTracer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
-import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -30,45 +46,152 @@ public class RabbitConfig {
     @Value("${spring.application.name:mq-poc}")
     private String appName;
 
+    /**
+     * Applies messaging.connections.* to Boot's connection factory once it is built, before anything opens a channel.
+     */
     @Bean
-    public MessageConverter messageConverter(ObjectMapper objectMapper) {
-        return new Jackson2JsonMessageConverter(objectMapper);
+    public static BeanPostProcessor channelPoolConfigurer(ObjectProvider<MessagingProperties> properties) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CachingConnectionFactory connectionFactory) {
+                    configureChannelPools(connectionFactory, properties.getObject().connections());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Channel cache size and checkout timeout per connection role.
+     */
+    public static void configureChannelPools(CachingConnectionFactory connectionFactory,
+                                             MessagingProperties.Connections connections) {
+        // Settings on the main factory propagate to its publisher factory, so apply the main one first.
+        applyPool(connectionFactory, connections.consumer());
+        if (connections.separatePublisher()
+                && connectionFactory.getPublisherConnectionFactory() instanceof CachingConnectionFactory publisherFactory) {
+            applyPool(publisherFactory, connections.publisher());
+        }
+    }
+
+    private static void applyPool(CachingConnectionFactory factory, MessagingProperties.Connections.Pool pool) {
+        factory.setChannelCacheSize(pool.channelCacheSize());
+        factory.setChannelCheckoutTimeout(pool.channelCheckoutTimeout().toMillis());
+    }
+
+    /**
+     * EventEnvelope is encoded/decoded by the streaming envelope codec; anything else falls back to Jackson.
+     */
+    @Bean
+    public EnvelopeMessageConverter messageConverter(ObjectMapper objectMapper) {
+        return new EnvelopeMessageConverter(objectMapper, new Jackson2JsonMessageConverter(objectMapper));
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(CachingConnectionFactory connectionFactory, MessageConverter messageConverter) {
+    public RabbitTemplate rabbitTemplate(
+            CachingConnectionFactory connectionFactory,
+            MessageConverter messageConverter,
+            EventTracer tracer,
+            MessagingMetrics metrics,
+            MessagingProperties properties
+    ) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(messageConverter);
         rabbitTemplate.setMandatory(true);
-        rabbitTemplate.setConfirmCallback(this::logConfirm);
-        rabbitTemplate.setReturnsCallback(returned -> {
-            // Keep logging lightweight; PoC focus is visibility.
-            System.out.printf("Return callback: exchange=%s routingKey=%s replyCode=%s replyText=%s messageId=%s%n",
-                    returned.getExchange(),
-                    returned.getRoutingKey(),
-                    returned.getReplyCode(),
-                    returned.getReplyText(),
-                    returned.getMessage().getMessageProperties().getMessageId());
+        // Publish over the dedicated publisher connection so broker flow control on it cannot stall consumer acks.
+        rabbitTemplate.setUsePublisherConnection(properties.connections().separatePublisher());
+        rabbitTemplate.setConfirmCallback((correlationData, ack, cause) -> {
+            tracer.confirm(correlationData != null ? correlationData.getId() : "n/a", ack, cause);
+            if (correlationData instanceof PublishCorrelation publish) {
+                metrics.recordConfirm(publish.getServiceKey(), publish.getEventType(), publish.getStartNanos(),
+                        ack, publish.getReturned() != null);
+            }
         });
+        rabbitTemplate.setReturnsCallback(returned -> tracer.returned(
+                returned.getExchange(),
+                returned.getRoutingKey(),
+                returned.getMessage().getMessageProperties().getMessageId(),
+                returned.getReplyCode(),
+                returned.getReplyText()));
         return rabbitTemplate;
     }
 
-    private void logConfirm(CorrelationData correlationData, boolean ack, String cause) {
-        String messageId = correlationData != null ? correlationData.getId() : "n/a";
-        System.out.printf("Confirm callback: ack=%s messageId=%s cause=%s%n", ack, messageId, cause);
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            CachingConnectionFactory connectionFactory,
+            MessageConverter messageConverter,
+            MessageCompressor compressor,
+            MessagingProperties properties
+    ) {
+        return createListenerContainerFactory(connectionFactory, messageConverter, compressor, properties.execution(),
+                new MessagingProperties.Consumer(1, 1, 1, 1, Duration.ofMillis(100), "next",
+                        new MessagingProperties.Lanes(0, MessagingProperties.Lanes.DEFAULT_KEY_HEADER, null)));
     }
 
+    /**
+     * Dedicated listener container factory per messaging.services.* entry, built from its consumer settings.
+     * Listeners pick theirs with {@code containerFactory = "#{@listenerContainerFactories.forService('serviceA')}"}
+     * and their queues with {@code queues = "#{@listenerContainerFactories.queues('serviceA')}"}.
+     */
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+    public ListenerContainerFactories listenerContainerFactories(
             CachingConnectionFactory connectionFactory,
-            MessageConverter messageConverter
+            MessageConverter messageConverter,
+            MessageCompressor compressor,
+            MessagingProperties properties
+    ) {
+        Map<String, RabbitListenerContainerFactory<?>> factories = new HashMap<>();
+        Map<String, List<String>> queues = new HashMap<>();
+        properties.services().forEach((serviceKey, service) -> {
+            MessagingProperties.Consumer consumer = service.consumer();
+            SimpleRabbitListenerContainerFactory factory =
+                    createListenerContainerFactory(connectionFactory, messageConverter, compressor, properties.execution(),
+                            consumer);
+            // Listeners receive List<Message<EventEnvelope<T>>> of up to batch-size deliveries (batch-size 1 = per message).
+            factory.setBatchListener(true);
+            factory.setConsumerBatchEnabled(true);
+            factory.setBatchSize(consumer.batchSize());
+            factory.setBatchReceiveTimeout(consumer.batchTimeout().toMillis());
+            if (service.queueType() == MessagingProperties.QueueType.STREAM) {
+                // Every stream consumer reads the whole stream, so more consumers would only duplicate the work.
+                factory.setConcurrentConsumers(1);
+                factory.setMaxConcurrentConsumers(1);
+                // Each stream consumer starts reading at the configured offset; prefetch doubles as the stream credit.
+                Map<String, Object> consumerArgs = Map.of("x-stream-offset", streamOffset(consumer.streamOffset()));
+                factory.setContainerCustomizer(container -> container.setConsumerArguments(consumerArgs));
+            }
+            // Sharded services get one single-consumer container per shard queue to keep per-key order.
+            factories.put(serviceKey, service.sharding().enabled() ? new ShardedListenerContainerFactory(factory) : factory);
+            queues.put(serviceKey, service.queues());
+        });
+        return new ListenerContainerFactories(factories, queues);
+    }
+
+    private SimpleRabbitListenerContainerFactory createListenerContainerFactory(
+            CachingConnectionFactory connectionFactory,
+            MessageConverter messageConverter,
+            MessageCompressor compressor,
+            MessagingProperties.Execution execution,
+            MessagingProperties.Consumer consumer
     ) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(messageConverter);
         factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
         factory.setDefaultRequeueRejected(false);
-        factory.setPrefetchCount(1);
+        factory.setPrefetchCount(consumer.prefetch());
+        factory.setConcurrentConsumers(consumer.concurrentConsumers());
+        factory.setMaxConcurrentConsumers(Math.max(consumer.concurrentConsumers(), consumer.maxConcurrentConsumers()));
+        // Keyed lanes start before the containers and are drained (LaneDrainer) while the consumer channels are still open.
+        factory.setPhase(KeyedLanes.LISTENER_PHASE);
+        // Bodies compressed by the publisher (content-encoding gzip/lz4/zstd...) are inflated before conversion.
+        factory.setAfterReceivePostProcessors(compressor.decompressor());
+        if (execution.isVirtual()) {
+            // Each consumer loop runs on its own virtual thread; blocking handlers no longer hold a platform thread.
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-listener-"));
+        }
         return factory;
     }
 
@@ -93,17 +216,116 @@ public class RabbitConfig {
 
         for (MessagingProperties.Service service : properties.services().values()) {
             TopicExchange exchange = ExchangeBuilder.topicExchange(service.exchange()).durable(true).build();
-            Map<String, Object> args = new HashMap<>();
-            args.put("x-dead-letter-exchange", properties.shared().dlx());
-            args.put("x-dead-letter-routing-key", deadKey.apply(service.prefix()));
-            Queue queue = QueueBuilder.durable(service.queue()).withArguments(args).build();
-            Binding binding = BindingBuilder.bind(queue).to(exchange).with(service.prefix() + ".#");
+            Map<String, Object> args = queueArguments(service, properties.shared().dlx(), deadKey.apply(service.prefix()));
             Binding dlqBinding = BindingBuilder.bind(dlq).to(dlx).with(deadKey.apply(service.prefix()));
             declarables.add(exchange);
-            declarables.add(queue);
-            declarables.add(binding);
             declarables.add(dlqBinding);
+
+            MessagingProperties.Sharding sharding = service.sharding();
+            Exchange shardExchange = null;
+            if (sharding.enabled() && sharding.strategy() == MessagingProperties.Sharding.Strategy.CONSISTENT_HASH) {
+                // Per-queue hash exchange (rabbitmq_consistent_hash_exchange plugin) keyed by the shard key header.
+                shardExchange = new CustomExchange(service.queue() + ".shards", "x-consistent-hash", true, false,
+                        Map.of("hash-header", ShardRouter.SHARD_KEY_HEADER));
+                declarables.add(shardExchange);
+                declarables.add(BindingBuilder.bind(shardExchange).to(exchange).with(service.prefix() + ".#"));
+            }
+
+            List<String> queues = service.queues();
+            for (int shard = 0; shard < queues.size(); shard++) {
+                String queueName = queues.get(shard);
+                Queue queue = QueueBuilder.durable(queueName).withArguments(args).build();
+                declarables.add(queue);
+                if (!sharding.enabled()) {
+                    declarables.add(BindingBuilder.bind(queue).to(exchange).with(service.prefix() + ".#"));
+                } else if (shardExchange != null) {
+                    // Equal weights: each shard queue owns the same share of the hash ring.
+                    declarables.add(BindingBuilder.bind(queue).to(shardExchange).with("1").noargs());
+                } else {
+                    // The publisher appends the shard number as the last routing key word.
+                    declarables.add(BindingBuilder.bind(queue).to(exchange).with(service.prefix() + ".#." + shard));
+                }
+
+                // Retry tiers: wait queues whose TTL expiry dead-letters back to the source queue through the default exchange.
+                List<Duration> delays = service.retryDelays();
+                for (int attempt = 1; attempt <= delays.size(); attempt++) {
+                    declarables.add(QueueBuilder.durable(service.retryQueue(queueName, attempt))
+                            .ttl(Math.toIntExact(delays.get(attempt - 1).toMillis()))
+                            .deadLetterExchange("")
+                            .deadLetterRoutingKey(queueName)
+                            .build());
+                }
+            }
         }
         return new Declarables(declarables);
     }
+
+    /**
+     * Arguments for a service queue of the configured type. Values the queue type does not support are left out.
+     */
+    private static Map<String, Object> queueArguments(MessagingProperties.Service service, String dlx, String deadKey) {
+        MessagingProperties.QueueArguments queueArgs = service.queueArguments();
+        Map<String, Object> args = new HashMap<>();
+        switch (service.queueType()) {
+            case CLASSIC -> {
+                if (service.priority().maxPriority() > 0) {
+                    // Classic queues only order by priority when declared with a maximum.
+                    args.put("x-max-priority", service.priority().maxPriority());
+                }
+            }
+            case QUORUM -> {
+                args.put("x-queue-type", "quorum");
+                if (queueArgs.deliveryLimit() != null) {
+                    args.put("x-delivery-limit", queueArgs.deliveryLimit());
+                }
+            }
+            case STREAM -> {
+                // Streams keep messages until retention removes them: no dead-lettering, no message count limit.
+                args.put("x-queue-type", "stream");
+                if (queueArgs.maxAge() != null) {
+                    args.put("x-max-age", queueArgs.maxAge().toSeconds() + "s");
+                }
+                if (queueArgs.segmentSize() != null) {
+                    args.put("x-stream-max-segment-size-bytes", queueArgs.segmentSize().toBytes());
+                }
+                if (queueArgs.maxLengthBytes() != null) {
+                    args.put("x-max-length-bytes", queueArgs.maxLengthBytes().toBytes());
+                }
+                return args;
+            }
+        }
+        args.put("x-dead-letter-exchange", dlx);
+        args.put("x-dead-letter-routing-key", deadKey);
+        if (queueArgs.maxLength() != null) {
+            args.put("x-max-length", queueArgs.maxLength());
+        }
+        if (queueArgs.maxLengthBytes() != null) {
+            args.put("x-max-length-bytes", queueArgs.maxLengthBytes().toBytes());
+        }
+        return args;
+    }
+
+    /**
+     * x-stream-offset accepts first/last/next, an offset, a timestamp or an interval string such as 1h or 7D.
+     * The position is not stored: every consumer (re)start reads from this value again, so pair it with dedup
+     * or pick a value that tolerates re-reading. A blank value falls back to next.
+     */
+    static Object streamOffset(String offset) {
+        if (!StringUtils.hasText(offset)) {
+            return "next";
+        }
+        String value = offset.trim();
+        if (value.chars().allMatch(Character::isDigit)) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("stream-offset is out of range: " + value, ex);
+            }
+        }
+        try {
+            return Date.from(Instant.parse(value));
+        } catch (DateTimeParseException ex) {
+            return value;
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package com.example.mqpoc.messaging.codec;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+/**
+ * Spring AMQP 압축 post processor 와 같은 content-encoding 규칙({@code <압축>:<원래 인코딩>}, 예: {@code zstd:UTF-8}).
+ * {@code DelegatingDecompressingPostProcessor}는 ':' 앞부분으로 압축 해제기를 고른다. Spring AMQP 4 의 gzip/deflate/zip 압축기는
+ * {@code gzip, UTF-8}처럼 ','로 구분하므로 해제할 때는 둘 다 받는다.
+ */
+final class ContentEncodings {
+
+    private static final char DELIMITER = ':';
+    private static final char ALTERNATE_DELIMITER = ',';
+
+    private ContentEncodings() {
+    }
+
+    static Message encoded(Message message, String compression, byte[] body) {
+        MessageProperties properties = message.getMessageProperties();
+        String original = properties.getContentEncoding();
+        properties.setContentEncoding(original == null ? compression : compression + DELIMITER + original);
+        properties.setContentLength(body.length);
+        return new Message(body, properties);
+    }
+
+    static Message decoded(Message message, byte[] body) {
+        MessageProperties properties = message.getMessageProperties();
+        String encoding = properties.getContentEncoding();
+        int delimiter = encoding == null ? -1 : encoding.indexOf(DELIMITER);
+        if (delimiter < 0 && encoding != null) {
+            delimiter = encoding.indexOf(ALTERNATE_DELIMITER);
+        }
+        properties.setContentEncoding(delimiter < 0 ? null : encoding.substring(delimiter + 1).trim());
+        properties.setContentLength(body.length);
+        return new Message(body, properties);
+    }
+
+    static void checkSize(String compression, long size, long maxSize) {
+        if (size < 0 || size > maxSize) {
+            throw new AmqpException("Refusing to decompress " + compression + " body of " + size
+                    + " bytes (max " + maxSize + ")");
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.mqpoc.messaging.codec;
+
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.messaging.model.EventMetadata;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.DecimalUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link EventEnvelope} 전용 코덱. 와이어 포맷은 같은 {@code ObjectMapper}로 직렬화한 envelope 과 호환된다.
+ * 형식(JSON/CBOR/Smile)은 ObjectMapper 의 {@link JsonFactory}가 정한다.
+ * <ul>
+ *     <li>쓰기: 고정 필드(eventType, 시각, metadata)는 스트리밍 {@link JsonGenerator}로 직접 쓰고, payload 만
+ *     payload 클래스별로 캐시한 {@link ObjectWriter}에 맡긴다. 출력 버퍼는 풀에서 꺼내 재사용한다.</li>
+ *     <li>읽기: 고정 필드만 파싱하고 payload 는 바이트 구간만 기억해 두었다가, {@link EventEnvelope#getPayload()}가
+ *     처음 호출될 때 payload 타입별로 캐시한 {@link ObjectReader}로 디코딩한다.</li>
+ *     <li>Smile 은 앞서 나온 필드명을 역참조하므로 payload 구간만 떼어 읽을 수 없어 즉시 디코딩한다.</li>
+ *     <li>시각 필드는 ObjectMapper 의 {@code WRITE_DATES_AS_TIMESTAMPS} 설정을 따라 초.나노 숫자 또는 ISO 문자열로 쓴다.</li>
+ * </ul>
+ */
+public class EnvelopeCodec {
+
+    private static final int POOL_SIZE = 64;
+    /** 이보다 커진 버퍼는 풀에 돌려놓지 않는다. (큰 메시지 하나로 풀 메모리가 고정되는 것을 막는다) */
+    private static final int MAX_POOLED_BYTES = 64 * 1024;
+    /** {@link Instant#MAX}의 초 값(31556889864403199)의 자릿수 */
+    private static final int MAX_INSTANT_DIGITS = 17;
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final boolean datesAsTimestamps;
+    private final boolean lazyPayload;
+    private final boolean textFormat;
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final BlockingQueue<ByteArrayBuilder> buffers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public EnvelopeCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+        this.datesAsTimestamps = objectMapper.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.lazyPayload = !"Smile".equals(jsonFactory.getFormatName());
+        this.textFormat = !jsonFactory.canHandleBinaryNatively();
+    }
+
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    public byte[] encode(EventEnvelope<?> envelope) throws IOException {
+        ByteArrayBuilder buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new ByteArrayBuilder(512);
+        }
+        try {
+            try (JsonGenerator generator = jsonFactory.createGenerator(buffer, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                writeString(generator, "eventType", envelope.getEventType());
+                writeInstant(generator, "occurredAt", envelope.getOccurredAt());
+                writeInstant(generator, "publishedAt", envelope.getPublishedAt());
+                if (envelope.getMetadata() != null) {
+                    generator.writeFieldName("metadata");
+                    writeMetadata(generator, envelope.getMetadata());
+                }
+                generator.writeFieldName("payload");
+                Object payload = envelope.getPayload();
+                if (payload == null) {
+                    generator.writeNull();
+                } else {
+                    writerFor(payload.getClass()).writeValue(generator, payload);
+                }
+                generator.writeEndObject();
+            }
+            return buffer.toByteArray();
+        } finally {
+            if (buffer.size() <= MAX_POOLED_BYTES) {
+                buffer.reset();
+                buffers.offer(buffer);
+            } else {
+                buffer.release();
+            }
+        }
+    }
+
+    /**
+     * @param body        envelope 바디
+     * @param payloadType payload 대상 타입 ({@code EventEnvelope<T>}의 T)
+     * @return 고정 필드만 채워진 envelope. payload 는 처음 접근할 때 디코딩된다.
+     */
+    public <T> EventEnvelope<T> decode(byte[] body, JavaType payloadType) throws IOException {
+        LazyEventEnvelope<T> envelope = new LazyEventEnvelope<>(readerFor(payloadType), body);
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Envelope must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "eventType" -> envelope.setEventType(parser.getValueAsString());
+                    case "occurredAt" -> envelope.setOccurredAt(readInstant(parser, value));
+                    case "publishedAt" -> envelope.setPublishedAt(readInstant(parser, value));
+                    case "metadata" -> envelope.setMetadata(value == JsonToken.VALUE_NULL ? null : readMetadata(parser));
+                    case "payload" -> {
+                        if (value.isScalarValue() || !lazyPayload) {
+                            // 문자열/숫자 payload 는 구간을 기억하는 것보다 바로 읽는 편이 싸다. (Smile 은 항상 즉시)
+                            envelope.setPayload(readerFor(payloadType).readValue(parser));
+                        } else {
+                            int start = (int) parser.currentTokenLocation().getByteOffset();
+                            parser.skipChildren();
+                            int end = (int) parser.currentLocation().getByteOffset();
+                            envelope.payloadRange(start, end - start);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return envelope;
+    }
+
+    /**
+     * payload 타입의 {@link ObjectReader}를 미리 만들어 둔다. 첫 메시지에서 reader 를 만드는 비용을 시작 시점으로 옮긴다.
+     */
+    public void prepare(JavaType payloadType) {
+        readerFor(payloadType);
+    }
+
+    /**
+     * 이미 트리로 읽은 payload 를 payload 타입으로 바인딩한다. (upcast 된 payload 용, 형식과 무관)
+     */
+    public <T> T bind(JsonNode payload, JavaType payloadType) throws IOException {
+        return readerFor(payloadType).readValue(payload);
+    }
+
+    public JavaType payloadTypeOf(JavaType envelopeType) {
+        JavaType payloadType = envelopeType.containedType(0);
+        return payloadType != null ? payloadType : objectMapper.getTypeFactory().constructType(Object.class);
+    }
+
+    private ObjectWriter writerFor(Class<?> payloadClass) {
+        return writers.computeIfAbsent(payloadClass, type -> objectMapper.writerFor(type)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+
+    private ObjectReader readerFor(JavaType payloadType) {
+        return readers.computeIfAbsent(payloadType, objectMapper::readerFor);
+    }
+
+    private void writeMetadata(JsonGenerator generator, EventMetadata metadata) throws IOException {
+        generator.writeStartObject();
+        writeString(generator, "sourceService", metadata.getSourceService());
+        writeString(generator, "traceId", metadata.getTraceId());
+        writeString(generator, "messageId", metadata.getMessageId());
+        writeString(generator, "schemaVersion", metadata.getSchemaVersion());
+        writeString(generator, "priority", metadata.getPriority());
+        writeString(generator, "sensitivity", metadata.getSensitivity());
+        generator.writeEndObject();
+    }
+
+    private static EventMetadata readMetadata(JsonParser parser) throws IOException {
+        EventMetadata metadata = new EventMetadata();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "sourceService" -> metadata.setSourceService(parser.getValueAsString());
+                case "traceId" -> metadata.setTraceId(parser.getValueAsString());
+                case "messageId" -> metadata.setMessageId(parser.getValueAsString());
+                case "schemaVersion" -> metadata.setSchemaVersion(parser.getValueAsString());
+                case "priority" -> metadata.setPriority(parser.getValueAsString());
+                case "sensitivity" -> metadata.setSensitivity(parser.getValueAsString());
+                default -> parser.skipChildren();
+            }
+        }
+        return metadata;
+    }
+
+    private static void writeString(JsonGenerator generator, String field, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, value);
+        }
+    }
+
+    private void writeInstant(JsonGenerator generator, String field, Instant value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        generator.writeFieldName(field);
+        if (datesAsTimestamps && textFormat) {
+            generator.writeNumber(DecimalUtils.toDecimal(value.getEpochSecond(), value.getNano()));
+        } else if (datesAsTimestamps) {
+            // 바이너리 형식은 숫자 텍스트를 그대로 쓸 수 없어 decimal 값으로 쓴다.
+            generator.writeNumber(DecimalUtils.toBigDecimal(value.getEpochSecond(), value.getNano()));
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * jsr310 {@code InstantDeserializer} 기본 규칙과 같다: 소수는 초.나노, 정수는 초, 문자열은 ISO-8601 (숫자 문자열은 초.나노).
+     */
+    private static Instant readInstant(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NUMBER_FLOAT -> instantOf(parser.getDecimalValue());
+            case VALUE_NUMBER_INT -> Instant.ofEpochSecond(parser.getLongValue());
+            case VALUE_STRING -> {
+                String text = parser.getText();
+                yield !text.isEmpty() && (Character.isDigit(text.charAt(0)) && text.indexOf('T') < 0)
+                        ? instantOf(new BigDecimal(text))
+                        : Instant.parse(text);
+            }
+            case VALUE_NULL -> null;
+            default -> throw new IOException("Unexpected token for instant: " + token);
+        };
+    }
+
+    /**
+     * 초.나노 decimal 을 Instant 로 바꾼다. 음수도 초와 나노의 부호가 같아 {@link Instant#ofEpochSecond(long, long)}가 맞춰 준다.
+     */
+    private static Instant instantOf(BigDecimal value) throws IOException {
+        // 1e999999999 같은 값은 정수부를 펼치는 데만 오래 걸리므로 Instant 범위를 넘는 지수는 먼저 막는다.
+        if (value.precision() - value.scale() > MAX_INSTANT_DIGITS) {
+            throw new IOException("Instant out of range: " + value);
+        }
+        long seconds = value.longValue();
+        int nanos = value.subtract(BigDecimal.valueOf(seconds)).movePointRight(9).intValue();
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.mqpoc.messaging.codec;
+
+import com.example.mqpoc.config.MessagingProperties.Encoding.Format;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * content-type 으로 형식을 고르는 컨버터. {@link EventEnvelope}은 형식별 {@link EnvelopeCodec}으로, 그 밖의 객체는
+ * 위임 컨버터(JSON)로 변환한다.
+ * <ul>
+ *     <li>발행: 호출자가 {@link MessageProperties#setContentType(String)}으로 미리 정한 형식(json/cbor/smile)으로
+ *     envelope 을 쓴다. 지정이 없거나 모르는 형식이면 JSON. envelope 에는 {@code __TypeId__} 헤더를 붙이지 않는다.</li>
+ *     <li>수신: 메시지의 content-type 으로 코덱을 고르고, 리스너가 추론한 파라미터 타입
+ *     ({@link MessageProperties#getInferredArgumentType()})이 {@code EventEnvelope<T>}이면 envelope 코덱으로 읽는다.
+ *     압축은 이 컨버터 앞단의 after-receive post processor 가 이미 풀어 둔 상태다.</li>
+ * </ul>
+ */
+public class EnvelopeMessageConverter implements MessageConverter {
+
+    private final Map<Format, EnvelopeCodec> codecs = new EnumMap<>(Format.class);
+    private final ObjectMapper objectMapper;
+    private final MessageConverter delegate;
+    /** 리스너 파라미터 타입 → payload 타입 (envelope 이 아니면 empty) */
+    private final Map<Type, Optional<JavaType>> payloadTypes = new ConcurrentHashMap<>();
+
+    public EnvelopeMessageConverter(ObjectMapper objectMapper, MessageConverter delegate) {
+        this.objectMapper = objectMapper;
+        this.delegate = delegate;
+        codecs.put(Format.JSON, new EnvelopeCodec(objectMapper));
+        // 모듈/기능 설정은 그대로 두고 바이너리 팩토리만 바꾼다.
+        codecs.put(Format.CBOR, new EnvelopeCodec(objectMapper.copyWith(new CBORFactory())));
+        codecs.put(Format.SMILE, new EnvelopeCodec(objectMapper.copyWith(new SmileFactory())));
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (!(object instanceof EventEnvelope<?> envelope)) {
+            return delegate.toMessage(object, messageProperties);
+        }
+        Format format = Format.fromContentType(messageProperties.getContentType());
+        if (format == null) {
+            format = Format.JSON;
+        }
+        byte[] body;
+        try {
+            body = codecs.get(format).encode(envelope);
+        } catch (IOException ex) {
+            throw new MessageConversionException("Failed to encode event envelope as " + format, ex);
+        }
+        messageProperties.setContentType(format.contentType());
+        messageProperties.setContentEncoding(format == Format.JSON ? "UTF-8" : null);
+        messageProperties.setContentLength(body.length);
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        Type inferred = properties.getInferredArgumentType();
+        Format format = Format.fromContentType(properties.getContentType());
+        if (inferred == null || format == null) {
+            return delegate.fromMessage(message);
+        }
+        Optional<JavaType> payloadType = payloadTypes.computeIfAbsent(inferred, type -> {
+            JavaType targetType = objectMapper.constructType(type);
+            return targetType.getRawClass() == EventEnvelope.class
+                    ? Optional.of(codecs.get(Format.JSON).payloadTypeOf(targetType)) : Optional.empty();
+        });
+        EnvelopeCodec codec = codecs.get(format);
+        try {
+            if (payloadType.isPresent()) {
+                return codec.decode(message.getBody(), payloadType.get());
+            }
+            if (format == Format.JSON) {
+                return delegate.fromMessage(message);
+            }
+            return codec.objectMapper().readValue(message.getBody(), objectMapper.constructType(inferred));
+        } catch (IOException ex) {
+            throw new MessageConversionException("Failed to decode " + format + " message", ex);
+        }
+    }
+
+    /**
+     * 리스너 파라미터 타입 추론 없이 envelope 을 디코딩한다. 헤더만 보고 처리 여부를 정한 뒤 필요한 메시지만 읽을 때 쓴다.
+     *
+     * @param message     압축이 풀린 수신 메시지
+     * @param payloadType payload 타입
+     * @throws MessageConversionException content-type 이 envelope 형식이 아니거나 디코딩에 실패한 경우
+     */
+    public <T> EventEnvelope<T> decode(Message message, JavaType payloadType) {
+        Format format = Format.fromContentType(message.getMessageProperties().getContentType());
+        if (format == null) {
+            throw new MessageConversionException("Unsupported envelope content-type: "
+                    + message.getMessageProperties().getContentType());
+        }
+        try {
+            return codecs.get(format).decode(message.getBody(), payloadType);
+        } catch (IOException ex) {
+            throw new MessageConversionException("Failed to decode " + format + " message", ex);
+        }
+    }
+
+    /**
+     * JSON 트리로 된 payload 를 {@code payloadType}으로 바인딩한다. 트리는 형식과 무관하므로 JSON 코덱의 reader 를 쓴다.
+     *
+     * @throws MessageConversionException 바인딩 실패 시
+     */
+    public <T> T bind(JsonNode payload, JavaType payloadType) {
+        try {
+            return codecs.get(Format.JSON).bind(payload, payloadType);
+        } catch (IOException ex) {
+            throw new MessageConversionException("Failed to bind payload as " + payloadType, ex);
+        }
+    }
+
+    /**
+     * 형식별 코덱의 payload reader 도 함께 만들어 두므로, 이후 {@link #decode}는 캐시 조회만 한다.
+     *
+     * @return {@code payloadClass}에 대한 Jackson 타입 (디코딩 호출마다 다시 만들지 않도록 호출 측에서 보관한다)
+     */
+    public JavaType payloadType(Class<?> payloadClass) {
+        JavaType payloadType = objectMapper.constructType(payloadClass);
+        codecs.values().forEach(codec -> codec.prepare(payloadType));
+        return payloadType;
+    }
+}
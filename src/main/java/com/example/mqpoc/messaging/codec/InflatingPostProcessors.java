@@ -0,0 +1,66 @@
+package com.example.mqpoc.messaging.codec;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * gzip/deflate/zip 해제. 바디 형식은 Spring AMQP 의 {@code GZipPostProcessor}/{@code DeflaterPostProcessor}/{@code ZipPostProcessor}와
+ * 같지만, Spring 기본 해제기와 달리 풀린 크기를 제한한다. 스트림 형식이라 원본 길이를 미리 알 수 없으므로 한도보다 1바이트 더
+ * 읽어 보고 넘으면 거절한다.
+ */
+final class InflatingPostProcessors {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+    static final String ZIP = "zip";
+
+    private InflatingPostProcessors() {
+    }
+
+    static MessagePostProcessor gzip(long maxDecompressedSize) {
+        return decompressor(GZIP, GZIPInputStream::new, maxDecompressedSize);
+    }
+
+    static MessagePostProcessor deflate(long maxDecompressedSize) {
+        return decompressor(DEFLATE, InflaterInputStream::new, maxDecompressedSize);
+    }
+
+    /**
+     * Spring AMQP 압축기처럼 첫 엔트리만 읽는다.
+     */
+    static MessagePostProcessor zip(long maxDecompressedSize) {
+        return decompressor(ZIP, in -> {
+            ZipInputStream zip = new ZipInputStream(in);
+            if (zip.getNextEntry() == null) {
+                throw new IOException("zip body has no entry");
+            }
+            return zip;
+        }, maxDecompressedSize);
+    }
+
+    private static MessagePostProcessor decompressor(String encoding, Inflating inflating, long maxDecompressedSize) {
+        int limit = (int) Math.min(Integer.MAX_VALUE - 8, maxDecompressedSize + 1);
+        return message -> {
+            byte[] restored;
+            try (InputStream in = inflating.open(new ByteArrayInputStream(message.getBody()))) {
+                restored = in.readNBytes(limit);
+            } catch (IOException e) {
+                throw new AmqpException("Corrupt " + encoding + " body", e);
+            }
+            ContentEncodings.checkSize(encoding, restored.length, maxDecompressedSize);
+            return ContentEncodings.decoded(message, restored);
+        };
+    }
+
+    @FunctionalInterface
+    private interface Inflating {
+        InputStream open(InputStream compressed) throws IOException;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.mqpoc.messaging.codec;
+
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.IOException;
+
+/**
+ * payload 를 처음 접근할 때 디코딩하는 {@link EventEnvelope}. {@link EnvelopeCodec#decode}만 생성한다.
+ * 한 리스너 스레드에서 쓰이는 것을 전제로 하며 별도 동기화는 하지 않는다.
+ */
+final class LazyEventEnvelope<T> extends EventEnvelope<T> {
+
+    private final ObjectReader payloadReader;
+    private byte[] body;
+    private int payloadOffset;
+    private int payloadLength;
+
+    LazyEventEnvelope(ObjectReader payloadReader, byte[] body) {
+        this.payloadReader = payloadReader;
+        this.body = body;
+    }
+
+    void payloadRange(int offset, int length) {
+        this.payloadOffset = offset;
+        this.payloadLength = length;
+    }
+
+    @Override
+    public T getPayload() {
+        if (body != null) {
+            byte[] source = body;
+            body = null;
+            if (payloadLength > 0) {
+                try {
+                    super.setPayload(payloadReader.readValue(source, payloadOffset, payloadLength));
+                } catch (IOException ex) {
+                    throw new MessageConversionException("Failed to decode envelope payload", ex);
+                }
+            }
+        }
+        return super.getPayload();
+    }
+
+    @Override
+    public void setPayload(T payload) {
+        body = null;
+        super.setPayload(payload);
+    }
+}
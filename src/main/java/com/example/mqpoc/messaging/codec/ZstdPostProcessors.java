@@ -0,0 +1,61 @@
+package com.example.mqpoc.messaging.codec;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdException;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+
+import java.util.Map;
+
+/**
+ * zstd 단일 프레임 압축. 이벤트 타입({@code MessageProperties#getType()})에 사전이 있으면 사전으로 압축한다.
+ * 프레임 헤더에 원본 크기와 사전 ID 가 들어가므로 수신 측은 별도 헤더 없이 사전 ID 로 사전을 찾는다.
+ */
+final class ZstdPostProcessors {
+
+    static final String ENCODING = "zstd";
+
+    private ZstdPostProcessors() {
+    }
+
+    /**
+     * @param dictionariesByType 이벤트 타입 → 압축 사전 (없는 타입은 사전 없이 압축)
+     */
+    static MessagePostProcessor compressor(int level, Map<String, ZstdDictCompress> dictionariesByType) {
+        return message -> {
+            String type = message.getMessageProperties().getType();
+            ZstdDictCompress dictionary = type == null ? null : dictionariesByType.get(type);
+            byte[] compressed = dictionary != null
+                    ? Zstd.compress(message.getBody(), dictionary)
+                    : Zstd.compress(message.getBody(), level);
+            return ContentEncodings.encoded(message, ENCODING, compressed);
+        };
+    }
+
+    /**
+     * @param dictionariesById 사전 ID → 해제 사전
+     */
+    static MessagePostProcessor decompressor(Map<Long, ZstdDictDecompress> dictionariesById, long maxDecompressedSize) {
+        return message -> {
+            byte[] body = message.getBody();
+            long originalSize = Zstd.getFrameContentSize(body);
+            ContentEncodings.checkSize(ENCODING, originalSize, maxDecompressedSize);
+            long dictionaryId = Zstd.getDictIdFromFrame(body);
+            try {
+                if (dictionaryId == 0) {
+                    return ContentEncodings.decoded(message, Zstd.decompress(body, (int) originalSize));
+                }
+                ZstdDictDecompress dictionary = dictionariesById.get(dictionaryId);
+                if (dictionary == null) {
+                    throw new AmqpException("Unknown zstd dictionary id " + dictionaryId
+                            + " (type=" + message.getMessageProperties().getType() + ")");
+                }
+                return ContentEncodings.decoded(message, Zstd.decompress(body, dictionary, (int) originalSize));
+            } catch (ZstdException e) {
+                throw new AmqpException("Corrupt zstd body", e);
+            }
+        };
+    }
+}
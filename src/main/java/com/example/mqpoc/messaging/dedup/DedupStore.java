@@ -0,0 +1,43 @@
+package com.example.mqpoc.messaging.dedup;
+
+/**
+ * 컨슈머 멱등 처리를 위한 messageId 저장소. 처리 중({@link Claim#IN_PROGRESS})과 처리 완료({@link Claim#COMPLETED})를 구분한다.
+ * <ul>
+ *     <li>핸들러 전에 {@link #claim}으로 선점하고, 성공하면 {@link #complete}, 실패하면 {@link #remove}로 끝낸다.
+ *     완료로 기록되는 것은 성공한 메시지뿐이므로, 실패한 첫 시도와 겹쳐 들어온 재전달이 중복으로 ACK 되어 사라지지 않는다.</li>
+ *     <li>기본 구현은 프로세스 메모리에만 보관하는 {@link TimeBucketedDedupStore}이다.</li>
+ *     <li>재시작/인스턴스 간에도 중복을 막아야 하면 {@code messaging.dedup.store=custom}으로 두고 이 인터페이스를 구현한 빈
+ *     (Redis {@code SET NX EX}, 유니크 키 테이블 등)을 등록한다.</li>
+ * </ul>
+ * 소비 핫패스에서 메시지마다 호출되므로 구현은 O(1)이어야 한다.
+ */
+public interface DedupStore {
+
+    enum Claim {
+        /** 처음 본 messageId. 호출자가 처리한 뒤 {@link #complete} 또는 {@link #remove}를 호출해야 한다. */
+        ACQUIRED,
+        /** 다른 컨슈머가 같은 messageId 를 처리 중. 결과를 아직 모르므로 버리지 말고 나중에 다시 받아야 한다. */
+        IN_PROGRESS,
+        /** 이미 처리를 마친 중복 */
+        COMPLETED
+    }
+
+    /**
+     * messageId 를 처리 중으로 선점한다.
+     *
+     * @param scope     중복 판단 범위 (리스너의 messaging.services.* 키). 같은 메시지가 여러 큐로 팬아웃되어도 큐별로 한 번씩 처리된다.
+     * @param messageId 멱등 키 ({@code EventMetadata.messageId})
+     * @return 선점했으면 {@link Claim#ACQUIRED}, 아니면 기존 상태
+     */
+    Claim claim(String scope, String messageId);
+
+    /**
+     * 선점한 messageId 를 처리 완료로 기록한다. 이후 같은 messageId 는 {@link Claim#COMPLETED}이다.
+     */
+    void complete(String scope, String messageId);
+
+    /**
+     * 핸들러가 실패한 메시지의 선점/기록을 지운다. 재시도/DLQ 재처리로 다시 들어왔을 때 중복으로 버려지지 않게 한다.
+     */
+    void remove(String scope, String messageId);
+}
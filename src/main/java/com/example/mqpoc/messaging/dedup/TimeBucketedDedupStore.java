@@ -0,0 +1,357 @@
+package com.example.mqpoc.messaging.dedup;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간 구간(bucket)별 open addressing 해시 셋으로 messageId 를 기억하는 메모리 한정 중복 제거 저장소.
+ * <ul>
+ *     <li>messageId(UUID)는 {@code String} 대신 128비트 long 쌍으로 저장한다. UUID 형식이 아니면 128비트 해시로 바꾼다.
+ *     항목당 16바이트이며 객체/포인터가 없어 GC 부담이 없다.</li>
+ *     <li>{@code ttl}을 {@code buckets}개 구간으로 나누고 구간마다 테이블 하나에 기록한다. 구간이 바뀌면 가장 오래된 테이블을
+ *     비워 재사용하므로 만료는 항목별 타이머 없이 통째로 일어나고, 모든 항목은 최소 ttl 동안 남는다.</li>
+ *     <li>테이블은 생성 시 {@code maxEntries} 기준으로 미리 할당한다. 현재 구간 테이블이 가득 차면 ttl 전이라도 구간을
+ *     앞당겨 바꾸며(early rotation), 이때 가장 오래된 구간의 기록이 일찍 사라진다.</li>
+ *     <li>조회는 테이블 수({@code buckets + 1})만큼의 해시 탐색이므로 O(1)이다. 컨슈머 스레드 간 공유되므로 짧은 락으로 보호한다.</li>
+ *     <li>처리 중인 messageId 는 구간 테이블이 아닌 별도 셋에 두고, {@link #complete} 때 현재 구간 테이블로 옮긴다.
+ *     셋의 크기는 동시에 처리 중인 메시지 수(프리페치 × 컨슈머)를 넘지 않는다.</li>
+ * </ul>
+ */
+public class TimeBucketedDedupStore implements DedupStore, MeterBinder {
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private final Bucket[] buckets;
+    private final Set<Key> inProgress = new HashSet<>();
+    private final long sliceNanos;
+    private final LongSupplier nanoClock;
+    private int current;
+    private long currentStartedNanos;
+    private long earlyRotations;
+
+    /**
+     * @param ttl        기록을 유지하는 최소 시간
+     * @param maxEntries 전체 테이블에 보관하는 최대 항목 수
+     * @param buckets    ttl 을 나누는 구간 수
+     */
+    public TimeBucketedDedupStore(Duration ttl, int maxEntries, int buckets) {
+        this(ttl, maxEntries, buckets, System::nanoTime);
+    }
+
+    TimeBucketedDedupStore(Duration ttl, int maxEntries, int buckets, LongSupplier nanoClock) {
+        if (buckets < 1 || maxEntries < 1 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl, maxEntries and buckets must be positive");
+        }
+        // 현재 구간 + 만료 전 구간 buckets 개. 한 구간은 ttl/buckets 동안 쓰이고 그 뒤 buckets 번 회전해야 비워진다.
+        this.buckets = new Bucket[buckets + 1];
+        int capacity = Math.max(1, maxEntries / this.buckets.length);
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new Bucket(capacity);
+        }
+        this.sliceNanos = Math.max(1, ttl.toNanos() / buckets);
+        this.nanoClock = nanoClock;
+        this.currentStartedNanos = nanoClock.getAsLong();
+    }
+
+    @Override
+    public Claim claim(String scope, String messageId) {
+        Key key = Key.of(scope, messageId);
+        synchronized (this) {
+            if (inProgress.contains(key)) {
+                return Claim.IN_PROGRESS;
+            }
+            rotateIfDue();
+            if (contains(key.msb(), key.lsb())) {
+                return Claim.COMPLETED;
+            }
+            inProgress.add(key);
+            return Claim.ACQUIRED;
+        }
+    }
+
+    @Override
+    public void complete(String scope, String messageId) {
+        Key key = Key.of(scope, messageId);
+        synchronized (this) {
+            inProgress.remove(key);
+            rotateIfDue();
+            if (contains(key.msb(), key.lsb())) {
+                return;
+            }
+            if (buckets[current].isFull()) {
+                advance(1);
+                currentStartedNanos = nanoClock.getAsLong();
+                earlyRotations++;
+            }
+            buckets[current].add(key.msb(), key.lsb());
+        }
+    }
+
+    private boolean contains(long msb, long lsb) {
+        // 중복은 대개 최근에 본 messageId 이므로 최신 구간부터 확인한다.
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[Math.floorMod(current - i, buckets.length)].contains(msb, lsb)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void remove(String scope, String messageId) {
+        Key key = Key.of(scope, messageId);
+        synchronized (this) {
+            inProgress.remove(key);
+            for (Bucket bucket : buckets) {
+                bucket.remove(key.msb(), key.lsb());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (Bucket bucket : buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return 선점된 뒤 아직 완료/삭제되지 않은 messageId 수
+     */
+    public synchronized int inProgress() {
+        return inProgress.size();
+    }
+
+    public int capacity() {
+        return buckets[0].capacity * buckets.length;
+    }
+
+    /**
+     * @return 미리 할당한 해시 테이블 크기 (바이트). 항목 수와 무관하게 고정이다.
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Bucket bucket : buckets) {
+            bytes += (long) bucket.keys.length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    public synchronized long earlyRotations() {
+        return earlyRotations;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("messaging.dedup.entries", this, TimeBucketedDedupStore::size)
+                .description("Completed messageIds currently remembered by the dedup store")
+                .register(registry);
+        Gauge.builder("messaging.dedup.in.progress", this, TimeBucketedDedupStore::inProgress)
+                .description("messageIds claimed by a consumer that has not finished handling them")
+                .register(registry);
+        Gauge.builder("messaging.dedup.capacity", this, TimeBucketedDedupStore::capacity)
+                .description("Maximum messageIds the dedup store can hold")
+                .register(registry);
+        Gauge.builder("messaging.dedup.memory", this, TimeBucketedDedupStore::memoryBytes)
+                .description("Memory preallocated for the dedup hash tables")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("messaging.dedup.early.rotations", this, TimeBucketedDedupStore::earlyRotations)
+                .description("Bucket rotations forced by a full table before the time slice ended")
+                .register(registry);
+    }
+
+    private void rotateIfDue() {
+        long elapsed = nanoClock.getAsLong() - currentStartedNanos;
+        if (elapsed < sliceNanos) {
+            return;
+        }
+        long steps = elapsed / sliceNanos;
+        advance((int) Math.min(steps, buckets.length));
+        currentStartedNanos += steps * sliceNanos;
+    }
+
+    private void advance(int steps) {
+        for (int i = 0; i < steps; i++) {
+            current = (current + 1) % buckets.length;
+            buckets[current].clear();
+        }
+    }
+
+    /**
+     * 범위와 messageId 를 합친 128비트 키. 파싱은 락 밖에서 한다.
+     */
+    private record Key(long msb, long lsb) {
+
+        // 16진수가 아닌 문자를 만났다는 표식. 실제 UUID 값과 겹치면 해시 경로로 갈 뿐, 같은 문자열은 항상 같은 키가 된다.
+        private static final long INVALID_HEX = 0x8000_0000_0000_0001L;
+
+        static Key of(String scope, String messageId) {
+            long scopeBits = mix(scope.hashCode());
+            if (isUuidShaped(messageId)) {
+                long msb = parseHex(messageId, 0, 18);
+                long lsb = parseHex(messageId, 19, 36);
+                if (msb != INVALID_HEX && lsb != INVALID_HEX) {
+                    return new Key(msb ^ scopeBits, lsb);
+                }
+            }
+            return new Key(hash(messageId, 0xcbf29ce484222325L) ^ scopeBits, hash(messageId, 0x84222325cbf29ce4L));
+        }
+
+        private static boolean isUuidShaped(String value) {
+            return value.length() == 36 && value.charAt(8) == '-' && value.charAt(13) == '-'
+                    && value.charAt(18) == '-' && value.charAt(23) == '-';
+        }
+
+        /**
+         * '-'를 건너뛰며 16진수 16자리를 long 으로 읽는다. {@link UUID#fromString}과 달리 객체/예외를 만들지 않는다.
+         *
+         * @return 16진수가 아닌 문자가 있으면 {@link #INVALID_HEX}
+         */
+        private static long parseHex(String value, int from, int to) {
+            long bits = 0;
+            for (int i = from; i < to; i++) {
+                char c = value.charAt(i);
+                if (c == '-') {
+                    continue;
+                }
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    return INVALID_HEX;
+                }
+                bits = (bits << 4) | digit;
+            }
+            return bits;
+        }
+
+        private static long hash(String value, long seed) {
+            long h = seed;
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            return mix(h);
+        }
+    }
+
+    /**
+     * MurmurHash3 fmix64. 시간 기반 UUID 처럼 비트가 고르지 않은 키도 테이블에 고르게 퍼뜨린다.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * (msb, lsb) 쌍을 {@code keys[2i]}, {@code keys[2i+1]}에 두는 linear probing 해시 셋. (0, 0)은 빈 칸 표시라 따로 기록한다.
+     */
+    private static final class Bucket {
+
+        private final long[] keys;
+        private final int mask;
+        private final int capacity;
+        private int size;
+        private boolean containsZero;
+
+        Bucket(int capacity) {
+            int slots = Integer.highestOneBit((int) Math.min(1 << 30, Math.ceil(capacity / MAX_LOAD_FACTOR)) * 2 - 1);
+            this.keys = new long[slots * 2];
+            this.mask = slots - 1;
+            this.capacity = capacity;
+        }
+
+        boolean isFull() {
+            return size >= capacity;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(long msb, long lsb) {
+            if (msb == 0 && lsb == 0) {
+                return containsZero;
+            }
+            for (int slot = home(msb, lsb); ; slot = (slot + 1) & mask) {
+                long storedMsb = keys[slot * 2];
+                long storedLsb = keys[slot * 2 + 1];
+                if (storedMsb == msb && storedLsb == lsb) {
+                    return true;
+                }
+                if (storedMsb == 0 && storedLsb == 0) {
+                    return false;
+                }
+            }
+        }
+
+        void add(long msb, long lsb) {
+            size++;
+            if (msb == 0 && lsb == 0) {
+                containsZero = true;
+                return;
+            }
+            int slot = home(msb, lsb);
+            while (keys[slot * 2] != 0 || keys[slot * 2 + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot * 2] = msb;
+            keys[slot * 2 + 1] = lsb;
+        }
+
+        void remove(long msb, long lsb) {
+            if (msb == 0 && lsb == 0) {
+                if (containsZero) {
+                    containsZero = false;
+                    size--;
+                }
+                return;
+            }
+            int slot = home(msb, lsb);
+            while (keys[slot * 2] != msb || keys[slot * 2 + 1] != lsb) {
+                if (keys[slot * 2] == 0 && keys[slot * 2 + 1] == 0) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            size--;
+            // backward shift: 뒤에 이어진 항목 중 빈 칸을 건너뛰어야 찾을 수 있는 것을 당겨 와 탐색 사슬을 유지한다.
+            int hole = slot;
+            for (int next = (hole + 1) & mask; keys[next * 2] != 0 || keys[next * 2 + 1] != 0; next = (next + 1) & mask) {
+                int home = home(keys[next * 2], keys[next * 2 + 1]);
+                boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+                if (movable) {
+                    keys[hole * 2] = keys[next * 2];
+                    keys[hole * 2 + 1] = keys[next * 2 + 1];
+                    hole = next;
+                }
+            }
+            keys[hole * 2] = 0;
+            keys[hole * 2 + 1] = 0;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(keys, 0L);
+                size = 0;
+                containsZero = false;
+            }
+        }
+
+        private int home(long msb, long lsb) {
+            return (int) mix(msb ^ Long.rotateLeft(lsb, 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.mqpoc.messaging.dispatch;
+
+import com.example.mqpoc.messaging.listener.InboundEvent;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+
+/**
+ * 이벤트 타입 하나를 처리하는 핸들러. {@link EventHandlerRegistry}에 payload 클래스와 함께 등록한다.
+ *
+ * @param <T> payload 타입
+ */
+@FunctionalInterface
+public interface EventHandler<T> {
+
+    /**
+     * @param envelope 등록한 payload 타입으로 디코딩한 envelope
+     * @param event    수신 메시지 (헤더, 라우팅 키, delivery tag)
+     */
+    void handle(EventEnvelope<T> envelope, InboundEvent event) throws Exception;
+}
@@ -0,0 +1,153 @@
+package com.example.mqpoc.messaging.dispatch;
+
+import com.example.mqpoc.messaging.codec.EnvelopeMessageConverter;
+import com.example.mqpoc.messaging.listener.InboundEvent;
+import com.example.mqpoc.messaging.metrics.MessagingMetrics;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.messaging.upcast.UpcasterChain;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 서비스별 이벤트 타입 → (payload 타입, 핸들러) 등록부. 큐 하나에 여러 이벤트 타입이 섞여 들어와도 리스너 하나가
+ * AMQP type(발행 이벤트명)과 schema-version 헤더로 핸들러를 골라 호출한다.
+ * <ul>
+ *     <li>payload {@link JavaType}과 형식별 reader 는 등록할 때 만들어 두므로, 메시지마다 리스너 파라미터 타입을
+ *     추론하거나 {@code __TypeId__} 헤더로 클래스를 찾지 않는다. 조회는 해시 조회 두 번(버전 일치 → 버전 무관)이다.</li>
+ *     <li>schema-version 을 지정해 등록한 핸들러가 같은 타입의 버전 무관 핸들러보다 우선한다.</li>
+ *     <li>{@link UpcasterChain}에 예전 schema-version 의 변환 단계가 있으면 payload 를 JSON 트리로 읽어 변환한 뒤
+ *     결과 버전의 핸들러 타입으로 바인딩한다. 변환 건수는 {@code messaging.consume.upcast}로 센다.</li>
+ *     <li>등록되지 않은 타입과 디코딩/변환 실패는 다시 받아도 같으므로 재시도 없이 DLQ 로 보낸다.</li>
+ * </ul>
+ * 핸들러는 리스너 빈 생성 시점에 등록하고, 컨테이너가 시작된 뒤에는 조회만 한다.
+ * <pre>
+ * registry.register("serviceA", "order.created", OrderCreatedEvent.class, this::onOrderCreated);
+ * ...
+ * processor.processInbound("serviceA", messages, channel, event -&gt; registry.dispatch("serviceA", event));
+ * </pre>
+ */
+@Component
+public class EventHandlerRegistry {
+
+    private final EnvelopeMessageConverter converter;
+    private final UpcasterChain upcasters;
+    private final MessagingMetrics metrics;
+    private final JavaType treeType;
+    /** serviceKey → eventType → 버전별 경로 */
+    private final Map<String, Map<String, Routes>> services = new ConcurrentHashMap<>();
+
+    public EventHandlerRegistry(EnvelopeMessageConverter converter, UpcasterChain upcasters, MessagingMetrics metrics) {
+        this.converter = converter;
+        this.upcasters = upcasters;
+        this.metrics = metrics;
+        this.treeType = converter.payloadType(JsonNode.class);
+    }
+
+    /**
+     * schema-version 과 무관하게 이벤트 타입의 핸들러를 등록한다.
+     */
+    public <T> void register(String serviceKey, String eventType, Class<T> payloadClass, EventHandler<T> handler) {
+        register(serviceKey, eventType, null, payloadClass, handler);
+    }
+
+    /**
+     * @param serviceKey    messaging.services.* 키 (리스너가 {@link #dispatch}에 넘기는 값)
+     * @param eventType     AMQP type (발행 이벤트명)
+     * @param schemaVersion schema-version 헤더 값, null 이면 모든 버전
+     * @param payloadClass  payload 클래스
+     * @param handler       핸들러
+     * @throws IllegalStateException 같은 (서비스, 타입, 버전)이 이미 등록된 경우
+     */
+    public <T> void register(String serviceKey, String eventType, String schemaVersion, Class<T> payloadClass,
+                             EventHandler<T> handler) {
+        Route route = new Route(converter.payloadType(payloadClass), handler);
+        Routes routes = services.computeIfAbsent(serviceKey, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(eventType, key -> new Routes());
+        Route previous = schemaVersion == null
+                ? routes.setAnyVersion(route) : routes.byVersion.putIfAbsent(schemaVersion, route);
+        if (previous != null) {
+            throw new IllegalStateException("Handler already registered: service=" + serviceKey
+                    + " eventType=" + eventType + " schemaVersion=" + schemaVersion);
+        }
+    }
+
+    /**
+     * @return 등록된 핸들러가 있으면 true
+     */
+    public boolean supports(String serviceKey, String eventType, String schemaVersion) {
+        return route(serviceKey, eventType, schemaVersion) != null;
+    }
+
+    /**
+     * 메시지의 타입/버전에 맞는 핸들러로 envelope 을 디코딩해 넘긴다. 예전 버전이면 먼저 upcast 한다.
+     *
+     * @throws UnknownEventTypeException 등록된 핸들러가 없을 때
+     * @throws AmqpRejectAndDontRequeueException 바디를 등록된 payload 타입으로 디코딩/변환하지 못했을 때
+     * @throws Exception 핸들러 예외 (호출자의 재시도 경로로 간다)
+     */
+    @SuppressWarnings("unchecked")
+    public void dispatch(String serviceKey, InboundEvent event) throws Exception {
+        String eventType = event.eventType();
+        UpcasterChain.Path path = upcasters.path(eventType, event.schemaVersion());
+        String schemaVersion = path != null ? path.toVersion() : event.schemaVersion();
+        Route route = route(serviceKey, eventType, schemaVersion);
+        if (route == null) {
+            throw new UnknownEventTypeException(serviceKey, eventType, schemaVersion);
+        }
+        EventEnvelope<Object> envelope;
+        try {
+            envelope = path != null ? upcast(serviceKey, event, path, route) : event.envelope(route.payloadType());
+        } catch (RuntimeException ex) {
+            throw new AmqpRejectAndDontRequeueException("Cannot decode " + eventType + " v" + event.schemaVersion()
+                    + " as " + route.payloadType(), ex);
+        }
+        ((EventHandler<Object>) route.handler()).handle(envelope, event);
+    }
+
+    private EventEnvelope<Object> upcast(String serviceKey, InboundEvent event, UpcasterChain.Path path, Route route) {
+        EventEnvelope<JsonNode> source = event.envelope(treeType);
+        EventEnvelope<Object> envelope = new EventEnvelope<>();
+        envelope.setEventType(source.getEventType());
+        envelope.setOccurredAt(source.getOccurredAt());
+        envelope.setPublishedAt(source.getPublishedAt());
+        envelope.setMetadata(source.getMetadata());
+        envelope.setPayload(converter.bind(path.apply(source.getPayload()), route.payloadType()));
+        if (envelope.getMetadata() != null) {
+            envelope.getMetadata().setSchemaVersion(path.toVersion());
+        }
+        metrics.recordUpcast(serviceKey, event.eventType(), path.fromVersion(), path.toVersion());
+        return envelope;
+    }
+
+    private Route route(String serviceKey, String eventType, String schemaVersion) {
+        Map<String, Routes> types = services.get(serviceKey);
+        Routes routes = types != null && eventType != null ? types.get(eventType) : null;
+        if (routes == null) {
+            return null;
+        }
+        Route route = schemaVersion != null ? routes.byVersion.get(schemaVersion) : null;
+        return route != null ? route : routes.anyVersion;
+    }
+
+    private record Route(JavaType payloadType, EventHandler<?> handler) {
+    }
+
+    private static final class Routes {
+
+        private final Map<String, Route> byVersion = new ConcurrentHashMap<>();
+        private volatile Route anyVersion;
+
+        synchronized Route setAnyVersion(Route route) {
+            Route previous = anyVersion;
+            if (previous == null) {
+                anyVersion = route;
+            }
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.mqpoc.messaging.dispatch;
+
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+
+/**
+ * 서비스에 등록되지 않은 이벤트 타입/schema-version 을 받았을 때의 예외.
+ * 다시 받아도 결과가 같으므로 재시도 단계를 거치지 않고 DLQ 로 보낸다.
+ */
+public class UnknownEventTypeException extends AmqpRejectAndDontRequeueException {
+
+    private final String serviceKey;
+    private final String eventType;
+    private final String schemaVersion;
+
+    public UnknownEventTypeException(String serviceKey, String eventType, String schemaVersion) {
+        super("No handler registered: service=" + serviceKey + " eventType=" + eventType
+                + " schemaVersion=" + schemaVersion);
+        this.serviceKey = serviceKey;
+        this.eventType = eventType;
+        this.schemaVersion = schemaVersion;
+    }
+
+    public String getServiceKey() {
+        return serviceKey;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getSchemaVersion() {
+        return schemaVersion;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.mqpoc.messaging.lane;
+
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * 컨슈머 채널 하나의 ACK 추적. 레인들이 delivery tag 순서와 무관하게 처리를 끝내도, 더 작은 tag 가 모두 끝난 범위만
+ * {@code basicAck(tag, multiple=true)}로 확인한다.
+ * <ul>
+ *     <li>tag 는 컨슈머 스레드가 수신 순서대로 {@link #register(long)} 한다. 끝나지 않은 tag 가 있으면 그보다 큰 tag 는
+ *     처리가 끝났어도 ACK 을 미룬다.</li>
+ *     <li>DLX 로 보낼 tag 는 끝나는 즉시 개별 NACK 한다. NACK 이 그 tag 를 덮는 multiple ACK 보다 항상 먼저 나간다.
+ *     레인이 받지 못한 tag 는 {@link #requeue(long)}로 재큐잉 NACK 해 뒤의 ACK 을 막지 않는다.</li>
+ *     <li>채널 호출은 이 객체의 잠금 안에서만 하므로 여러 레인 스레드가 한 채널을 동시에 쓰지 않는다.</li>
+ * </ul>
+ */
+final class AckTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(AckTracker.class);
+
+    private final Channel channel;
+    /** 등록했지만 아직 끝나지 않은 tag */
+    private final NavigableSet<Long> pending = new TreeSet<>();
+    /** 끝났고 ACK 대기 중인 tag */
+    private final NavigableSet<Long> completed = new TreeSet<>();
+
+    AckTracker(Channel channel) {
+        this.channel = channel;
+    }
+
+    synchronized void register(long deliveryTag) {
+        pending.add(deliveryTag);
+    }
+
+    /**
+     * @param ack true 면 ACK 범위에 넣고, false 면 재큐잉 없이 NACK 한다
+     */
+    synchronized void complete(long deliveryTag, boolean ack) {
+        settle(deliveryTag, ack, false);
+    }
+
+    /**
+     * 처리하지 않은 tag 를 재큐잉 NACK 으로 브로커에 돌려준다. 레인이 작업을 받지 못했을 때(종료 중) 쓰며,
+     * 이 tag 때문에 더 큰 tag 의 ACK 이 막히지 않는다.
+     */
+    synchronized void requeue(long deliveryTag) {
+        settle(deliveryTag, false, true);
+    }
+
+    private void settle(long deliveryTag, boolean ack, boolean requeue) {
+        if (!pending.remove(deliveryTag)) {
+            return;
+        }
+        try {
+            if (ack) {
+                completed.add(deliveryTag);
+            } else {
+                channel.basicNack(deliveryTag, false, requeue);
+            }
+            Long upTo = pending.isEmpty() ? (completed.isEmpty() ? null : completed.last())
+                    : completed.lower(pending.first());
+            if (upTo != null) {
+                channel.basicAck(upTo, true);
+                completed.headSet(upTo, true).clear();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // 채널이 닫혔으면 미확인 메시지는 브로커가 다시 전달한다.
+            log.warn("Cannot settle delivery tag {} on {}: {}", deliveryTag, channel, ex.toString());
+        }
+    }
+
+    synchronized int inFlight() {
+        return pending.size() + completed.size();
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.mqpoc.messaging.lane;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.messaging.shard.ShardRouter;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 서비스별 키 분할 레인({@link MessagingProperties.Lanes}). 리스너 컨테이너 하나 안에서 키별 순서를 지키며 병렬로 처리한다.
+ * <ul>
+ *     <li>레인은 단일 스레드 실행기다. 키를 jump consistent hash 로 레인에 고정하므로 같은 키의 메시지는 수신 순서대로 처리된다.</li>
+ *     <li>컨슈머 스레드는 tag 를 채널의 {@link AckTracker}에 등록하고 레인에 넘긴 뒤 바로 다음 메시지를 받는다.
+ *     처리 결과는 레인에서 트래커로 보고되고, 트래커가 연속으로 끝난 범위를 multiple ACK 한다.</li>
+ *     <li>트래커는 채널마다 하나이며 채널이 닫히면 버린다. 닫힌 채널의 미확인 메시지는 브로커가 다시 전달한다.</li>
+ *     <li>리스너 컨테이너({@link #LISTENER_PHASE})보다 먼저 시작하고, {@link LaneDrainer}를 통해 컨테이너보다 먼저 멈춘다.
+ *     멈추면 새 메시지는 받지 않고 재큐잉 NACK 으로 돌려주며, 레인에 남은 작업과 그 ACK 을 채널이 열려 있는 동안
+ *     최대 {@value #SHUTDOWN_TIMEOUT_SECONDS}초 기다려 끝낸다.</li>
+ * </ul>
+ * 지표: {@code messaging.consume.lanes.in.flight}(service) — 레인에 넘겼지만 아직 ACK 되지 않은 메시지 수,
+ * {@code messaging.consume.lanes.rejected}(service) — 레인이 받지 못해 재큐잉한 메시지 수.
+ */
+@Component
+public class KeyedLanes implements SmartLifecycle, MeterBinder {
+
+    /** 레인을 쓰는 리스너 컨테이너의 phase. */
+    public static final int LISTENER_PHASE = DEFAULT_PHASE - 100;
+    /** 레인의 phase. 컨테이너보다 먼저 시작해 첫 메시지부터 받는다. 종료는 {@link LaneDrainer}가 먼저 한다. */
+    public static final int LANES_PHASE = LISTENER_PHASE - 100;
+
+    private static final Logger log = LoggerFactory.getLogger(KeyedLanes.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final boolean virtual;
+    private final Map<String, Integer> laneCounts = new HashMap<>();
+    private final Map<String, ExecutorService[]> lanes = new ConcurrentHashMap<>();
+    /** serviceKey → 컨슈머 채널 → 트래커 */
+    private final Map<String, Map<Channel, AckTracker>> trackers = new HashMap<>();
+    private final Map<String, LongAdder> rejected = new HashMap<>();
+    private volatile boolean running;
+
+    public KeyedLanes(MessagingProperties properties) {
+        this.virtual = properties.execution().isVirtual();
+        properties.services().forEach((serviceKey, service) -> {
+            MessagingProperties.Lanes settings = service.consumer().lanes();
+            if (!settings.enabled()) {
+                return;
+            }
+            checkKeyHeader(serviceKey, settings, service.sharding());
+            laneCounts.put(serviceKey, settings.count());
+            trackers.put(serviceKey, new ConcurrentHashMap<>());
+            rejected.put(serviceKey, new LongAdder());
+        });
+    }
+
+    /**
+     * 퍼블리셔는 샤드 키를 먼저, 레인 키를 나중에 싣는다. 두 헤더 이름이 같은데 키가 다르면 레인 키가 샤드 키를 덮어
+     * consistent-hash exchange 가 엉뚱한 키로 샤드를 고르므로 시작 시 막는다.
+     */
+    private static void checkKeyHeader(String serviceKey, MessagingProperties.Lanes settings,
+                                       MessagingProperties.Sharding sharding) {
+        String laneKey = settings.key() != null ? settings.key() : sharding.key();
+        if (sharding.enabled() && ShardRouter.SHARD_KEY_HEADER.equals(settings.keyHeader())
+                && !Objects.equals(laneKey, sharding.key())) {
+            throw new IllegalStateException("messaging.services." + serviceKey + ".consumer.lanes.key-header must not be "
+                    + ShardRouter.SHARD_KEY_HEADER + " when lanes.key (" + laneKey + ") differs from sharding.key ("
+                    + sharding.key() + ")");
+        }
+    }
+
+    /**
+     * @return 서비스에 레인이 설정되어 있으면 true
+     */
+    public boolean enabled(String serviceKey) {
+        return laneCounts.containsKey(serviceKey);
+    }
+
+    /**
+     * 메시지 하나를 키의 레인에 넘긴다. 수신 순서대로(delivery tag 오름차순) 컨슈머 스레드에서 호출해야 한다.
+     * 레인이 멈췄거나 멈추는 중이면 작업을 실행하지 않고 재큐잉 NACK 한다.
+     *
+     * @param serviceKey  레인이 설정된 서비스 키
+     * @param channel     메시지를 받은 컨슈머 채널 (ACK/NACK 대상)
+     * @param deliveryTag 메시지의 delivery tag
+     * @param key         레인을 고를 키
+     * @param task        처리 결과(true = ACK, false = DLX 로 NACK)를 돌려주는 작업
+     */
+    public void submit(String serviceKey, Channel channel, long deliveryTag, String key,
+                       Supplier<CompletableFuture<Boolean>> task) {
+        Map<Channel, AckTracker> byChannel = trackers.get(serviceKey);
+        AckTracker tracker = byChannel.computeIfAbsent(channel, consumerChannel -> track(byChannel, consumerChannel));
+        tracker.register(deliveryTag);
+        ExecutorService[] executors = lanes.get(serviceKey);
+        if (!running || executors == null) {
+            reject(serviceKey, tracker, deliveryTag);
+            return;
+        }
+        ExecutorService lane = executors[ShardRouter.shard(key, executors.length)];
+        try {
+            lane.execute(() -> {
+                CompletableFuture<Boolean> result;
+                try {
+                    result = task.get();
+                } catch (RuntimeException ex) {
+                    result = CompletableFuture.completedFuture(false);
+                }
+                result.whenComplete((ack, ex) -> tracker.complete(deliveryTag, ex == null && Boolean.TRUE.equals(ack)));
+            });
+        } catch (RejectedExecutionException ex) {
+            // stop() 과 경합해 실행기가 막 닫힌 경우
+            reject(serviceKey, tracker, deliveryTag);
+        }
+    }
+
+    private void reject(String serviceKey, AckTracker tracker, long deliveryTag) {
+        rejected.get(serviceKey).increment();
+        log.debug("Lanes of {} are stopped, requeueing delivery tag {}", serviceKey, deliveryTag);
+        tracker.requeue(deliveryTag);
+    }
+
+    private static AckTracker track(Map<Channel, AckTracker> byChannel, Channel channel) {
+        channel.addShutdownListener(cause -> byChannel.remove(channel));
+        return new AckTracker(channel);
+    }
+
+    @Override
+    public void start() {
+        laneCounts.forEach((serviceKey, count) -> {
+            ExecutorService[] executors = new ExecutorService[count];
+            for (int i = 0; i < executors.length; i++) {
+                String name = serviceKey + "-lane-" + i;
+                ThreadFactory threadFactory = virtual
+                        ? Thread.ofVirtual().name(name).factory() : Thread.ofPlatform().daemon().name(name).factory();
+                executors[i] = Executors.newSingleThreadExecutor(threadFactory);
+            }
+            lanes.put(serviceKey, executors);
+        });
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        shutdown();
+        awaitDrained();
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        if (!running) {
+            callback.run();
+            return;
+        }
+        // 새 작업은 바로 막고, 남은 작업은 별도 스레드에서 기다려 다른 빈의 종료를 붙잡지 않는다.
+        shutdown();
+        Thread.ofPlatform().daemon().name("lanes-drain").start(() -> {
+            try {
+                awaitDrained();
+            } finally {
+                callback.run();
+            }
+        });
+    }
+
+    private void shutdown() {
+        running = false;
+        lanes.values().forEach(executors -> {
+            for (ExecutorService executor : executors) {
+                executor.shutdown();
+            }
+        });
+    }
+
+    private void awaitDrained() {
+        try {
+            drain(System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        lanes.clear();
+        rejected.forEach((serviceKey, count) -> {
+            if (count.sum() > 0) {
+                log.info("Lanes of {} stopped; {} deliveries requeued so far because no lane was accepting work",
+                        serviceKey, count.sum());
+            }
+        });
+    }
+
+    /**
+     * 레인 작업이 모두 끝나고, 그 결과(재시도 재발행 confirm 포함)가 트래커에서 ACK/NACK 될 때까지 기다린다.
+     */
+    private void drain(long deadline) throws InterruptedException {
+        for (ExecutorService[] executors : lanes.values()) {
+            for (ExecutorService executor : executors) {
+                executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        }
+        while (inFlight() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(DRAIN_POLL_NANOS);
+        }
+        int remaining = inFlight();
+        if (remaining > 0) {
+            log.warn("Lanes stopped with {} unacknowledged deliveries; the broker redelivers them when channels close",
+                    remaining);
+        }
+    }
+
+    private int inFlight() {
+        return trackers.values().stream()
+                .flatMap(byChannel -> byChannel.values().stream())
+                .mapToInt(AckTracker::inFlight)
+                .sum();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return LANES_PHASE;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        trackers.forEach((serviceKey, byChannel) ->
+                Gauge.builder("messaging.consume.lanes.in.flight", byChannel,
+                                map -> map.values().stream().mapToInt(AckTracker::inFlight).sum())
+                        .description("Deliveries handed to a lane and not yet acknowledged")
+                        .tag("service", serviceKey)
+                        .register(registry));
+        rejected.forEach((serviceKey, count) ->
+                FunctionCounter.builder("messaging.consume.lanes.rejected", count, LongAdder::sum)
+                        .description("Deliveries requeued because no lane was accepting work")
+                        .tag("service", serviceKey)
+                        .register(registry));
+    }
+}
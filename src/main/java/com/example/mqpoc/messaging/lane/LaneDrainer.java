@@ -0,0 +1,44 @@
+package com.example.mqpoc.messaging.lane;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link KeyedLanes}의 종료 시점. 레인은 리스너 컨테이너보다 먼저 시작하고 먼저 멈춰야 하는데, phase 하나로는 시작과 종료 순서가
+ * 서로 반대가 되므로 시작은 레인({@link KeyedLanes#LANES_PHASE})이, 종료는 컨테이너보다 높은 phase 의 이 빈이 맡는다.
+ * 레인이 돌고 있는 동안만 running 이며, 멈출 때 레인에 남은 작업과 그 ACK 을 컨테이너가 채널을 닫기 전에 끝낸다.
+ */
+@Component
+public class LaneDrainer implements SmartLifecycle {
+
+    private final KeyedLanes lanes;
+
+    public LaneDrainer(KeyedLanes lanes) {
+        this.lanes = lanes;
+    }
+
+    @Override
+    public void start() {
+        // 레인은 KeyedLanes 가 자기 phase 에서 시작한다.
+    }
+
+    @Override
+    public void stop() {
+        lanes.stop();
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        lanes.stop(callback);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return lanes.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE;
+    }
+}
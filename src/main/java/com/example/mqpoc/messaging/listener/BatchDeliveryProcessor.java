@@ -0,0 +1,335 @@
+package com.example.mqpoc.messaging.listener;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.config.MessagingProperties.Filter;
+import com.example.mqpoc.messaging.codec.EnvelopeMessageConverter;
+import com.example.mqpoc.messaging.dedup.DedupStore;
+import com.example.mqpoc.messaging.lane.KeyedLanes;
+import com.example.mqpoc.messaging.metrics.MessagingMetrics;
+import com.example.mqpoc.messaging.model.EventPriority;
+import com.example.mqpoc.messaging.trace.EventTracer;
+import com.rabbitmq.client.Channel;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 배치 리스너가 받은 메시지 묶음을 한 건씩 처리하고, ACK/NACK 을 묶어서 보낸다.
+ * <ul>
+ *     <li>배치 크기/대기 시간은 서비스별 {@code consumer.batch-size}/{@code consumer.batch-timeout}으로 정해진다.
+ *     batch-size 가 1이면 기존 단건 처리와 같다.</li>
+ *     <li>핸들러 예외는 해당 메시지만 실패로 기록하고 나머지 처리를 계속한다.</li>
+ *     <li>{@code messaging.dedup.enabled}이면 핸들러 호출 전에 messageId 를 {@link DedupStore}에 처리 중으로 선점하고,
+ *     핸들러가 성공해야 처리 완료로 기록한다. 이미 처리한 messageId(퍼블리셔 재시도/재전달로 인한 중복)는 핸들러 없이 ACK 한다.
+ *     다른 컨슈머가 처리 중인 messageId 는 결과를 모르므로 ACK 하지 않고 재시도 대기 큐(없으면 DLX)로 보낸다.
+ *     핸들러가 실패하면 선점을 풀어 재시도/DLQ 재처리 시 다시 처리될 수 있게 한다.</li>
+ *     <li>메시지별 처리 시간과 종단 간 지연을 {@link MessagingMetrics}에 기록한다.</li>
+ *     <li>서비스에 {@code retry.delays}가 있으면 실패한 메시지를 {@link RetryScheduler}로 다음 대기 큐에 다시 발행하고,
+ *     배치 끝에서 재발행 confirm 을 한꺼번에 기다린 뒤 원본을 ACK 한다. 단계를 소진했거나 재발행이 실패한 건만 DLX 로 간다.</li>
+ *     <li>핸들러가 {@link AmqpRejectAndDontRequeueException}(미등록 이벤트 타입, 디코딩 실패 등)을 던지면
+ *     다시 받아도 결과가 같으므로 재시도 단계를 건너뛰고 바로 DLX 로 보낸다.</li>
+ *     <li>서비스에 {@code filter} 규칙이 있으면 dedup 전에 AMQP type/schema-version/라우팅 키만으로 평가해,
+ *     drop 은 ACK 범위에 넣고 dead-letter 는 NACK 한다. ({@link EventFilter})</li>
+ *     <li>{@link #processInbound}는 바디를 디코딩하지 않은 {@link InboundEvent}를 핸들러에 넘긴다. 헤더만 쓰는 리스너는
+ *     역직렬화 비용이 없고, 바디가 필요한 핸들러만 {@link InboundEvent#envelope}으로 읽는다.</li>
+ *     <li>서비스에 {@code consumer.lanes}가 켜져 있으면 배치를 기다리지 않고 메시지마다 키의 레인({@link KeyedLanes})에 넘긴다.
+ *     처리 규칙은 같고, ACK 은 레인 쪽 트래커가 연속으로 끝난 tag 범위에 대해 보낸다.</li>
+ *     <li>실패한 delivery tag 는 개별 {@code basicNack(tag, false, false)}로 DLX 로 보내고, 남은 성공 건은
+ *     가장 큰 성공 tag 에 대해 {@code basicAck(tag, multiple=true)} 한 번으로 확인한다.
+ *     (NACK 을 먼저 보내야 multiple ACK 에 실패 건이 섞이지 않는다.)</li>
+ * </ul>
+ */
+@Component
+public class BatchDeliveryProcessor {
+
+    private static final CompletableFuture<Boolean> ACK = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> NACK = CompletableFuture.completedFuture(false);
+
+    private final EventTracer tracer;
+    private final MessagingMetrics metrics;
+    private final DedupStore dedupStore;
+    private final RetryScheduler retryScheduler;
+    private final EventFilter filter;
+    private final EnvelopeMessageConverter converter;
+    private final KeyedLanes lanes;
+    private final Map<String, MessagingProperties.Lanes> laneSettings = new HashMap<>();
+    private final boolean dedupEnabled;
+
+    public BatchDeliveryProcessor(EventTracer tracer, MessagingMetrics metrics, DedupStore dedupStore,
+                                  RetryScheduler retryScheduler, EventFilter filter,
+                                  EnvelopeMessageConverter converter, KeyedLanes lanes,
+                                  MessagingProperties properties) {
+        this.tracer = tracer;
+        this.metrics = metrics;
+        this.dedupStore = dedupStore;
+        this.retryScheduler = retryScheduler;
+        this.filter = filter;
+        this.converter = converter;
+        this.lanes = lanes;
+        properties.services().forEach((serviceKey, service) -> laneSettings.put(serviceKey, service.consumer().lanes()));
+        this.dedupEnabled = properties.dedup().enabled();
+    }
+
+    /**
+     * 디코딩 전 메시지 한 건을 처리하는 핸들러.
+     */
+    @FunctionalInterface
+    public interface InboundHandler {
+        void handle(InboundEvent event) throws Exception;
+    }
+
+    /**
+     * 바디를 디코딩하지 않고 처리한다. 리스너 파라미터는 {@code List<Message>}로 받는다.
+     *
+     * @param serviceKey messaging.services.* 설정 키 (추적/지표 태그)
+     * @param messages   배치로 수신한 AMQP 메시지 (delivery tag 오름차순)
+     * @param channel    수동 ACK/NACK 전송을 위한 채널
+     * @param handler    메시지별 처리 로직
+     * @throws IOException ACK/NACK 전송 실패 시
+     */
+    public void processInbound(
+            String serviceKey,
+            List<Message> messages,
+            Channel channel,
+            InboundHandler handler
+    ) throws IOException {
+        List<Delivery> deliveries = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            deliveries.add(new RawDelivery(new InboundEvent(message, converter), handler));
+        }
+        process(serviceKey, deliveries, channel);
+    }
+
+    private void process(String serviceKey, List<Delivery> deliveries, Channel channel) throws IOException {
+        if (lanes.enabled(serviceKey)) {
+            MessagingProperties.Lanes settings = laneSettings.get(serviceKey);
+            for (Delivery delivery : deliveries) {
+                lanes.submit(serviceKey, channel, delivery.deliveryTag(), delivery.laneKey(settings),
+                        () -> settle(serviceKey, delivery));
+            }
+            return;
+        }
+        long lastAckTag = -1;
+        List<Settled> settled = new ArrayList<>(deliveries.size());
+        for (Delivery delivery : deliveries) {
+            settled.add(new Settled(delivery.deliveryTag(), settle(serviceKey, delivery)));
+        }
+        // 재발행 confirm 을 기다린 뒤, DLX 로 보낼 건의 NACK 을 multiple ACK 보다 먼저 보낸다.
+        for (Settled result : settled) {
+            if (result.ack().join()) {
+                lastAckTag = Math.max(lastAckTag, result.deliveryTag());
+            } else {
+                channel.basicNack(result.deliveryTag(), false, false);
+            }
+        }
+        if (lastAckTag >= 0) {
+            channel.basicAck(lastAckTag, true);
+        }
+    }
+
+    /**
+     * 메시지 한 건을 필터/중복 제거/핸들러/재시도 순으로 처리한다. 채널에는 아무것도 보내지 않는다.
+     * 핸들러 밖(지표/필터/dedup/재시도 기록)에서 예외가 나도 이 건만 NACK 으로 끝내, 배치의 나머지 tag 가 확인되지 않은 채
+     * 채널에 남지 않게 한다.
+     *
+     * @return true 면 ACK, false 면 재큐잉 없이 NACK 할 건으로 완료되는 future (재시도 재발행이면 confirm 시점에 완료).
+     * 예외로 완료되지 않는다.
+     */
+    private CompletableFuture<Boolean> settle(String serviceKey, Delivery delivery) {
+        CompletableFuture<Boolean> result;
+        try {
+            result = settleChecked(serviceKey, delivery);
+        } catch (RuntimeException ex) {
+            tracer.consumeError(serviceKey, delivery.routingKey(), delivery.messageId(), ex);
+            return NACK;
+        }
+        return result == ACK || result == NACK ? result : result.exceptionally(ex -> false);
+    }
+
+    private CompletableFuture<Boolean> settleChecked(String serviceKey, Delivery delivery) {
+        String queue = delivery.queue();
+        String eventType = delivery.eventType() != null ? delivery.eventType() : "unknown";
+        metrics.recordEndToEnd(serviceKey, queue, eventType, delivery.priority(), delivery.publishedAt());
+        if (filter.enabled(serviceKey)) {
+            Filter.Action action = filter.evaluate(serviceKey, delivery.eventType(), delivery.schemaVersion(),
+                    delivery.routingKey());
+            if (action == Filter.Action.DROP) {
+                metrics.recordFiltered(serviceKey, queue, eventType, "drop");
+                return ACK;
+            }
+            if (action == Filter.Action.DEAD_LETTER) {
+                metrics.recordFiltered(serviceKey, queue, eventType, "dead-letter");
+                return NACK;
+            }
+        }
+        String messageId = delivery.messageId();
+        boolean deduplicated = dedupEnabled && messageId != null;
+        if (deduplicated) {
+            DedupStore.Claim claim = dedupStore.claim(serviceKey, messageId);
+            if (claim == DedupStore.Claim.COMPLETED) {
+                metrics.recordDedup(serviceKey, queue, eventType, "duplicate");
+                return ACK;
+            }
+            if (claim == DedupStore.Claim.IN_PROGRESS) {
+                // 첫 시도가 아직 끝나지 않았다. 실패할 수도 있으므로 ACK 하지 않고 재시도 대기 큐를 거쳐 다시 받는다.
+                metrics.recordDedup(serviceKey, queue, eventType, "in-progress");
+                return retryOrDeadLetter(serviceKey, queue, eventType, delivery);
+            }
+            metrics.recordDedup(serviceKey, queue, eventType, "unique");
+        }
+        long start = System.nanoTime();
+        try {
+            delivery.handle();
+        } catch (Exception ex) {
+            if (deduplicated) {
+                dedupStore.remove(serviceKey, messageId);
+            }
+            metrics.recordConsume(serviceKey, queue, eventType, start, false);
+            tracer.consumeError(serviceKey, delivery.routingKey(), messageId, ex);
+            if (ex instanceof AmqpRejectAndDontRequeueException) {
+                metrics.recordRetry(serviceKey, queue, eventType, "rejected");
+                return NACK;
+            }
+            return retryOrDeadLetter(serviceKey, queue, eventType, delivery);
+        }
+        if (deduplicated) {
+            dedupStore.complete(serviceKey, messageId);
+        }
+        metrics.recordConsume(serviceKey, queue, eventType, start, true);
+        return ACK;
+    }
+
+    private CompletableFuture<Boolean> retryOrDeadLetter(String serviceKey, String queue, String eventType,
+                                                         Delivery delivery) {
+        CompletableFuture<Boolean> retry = scheduleRetry(serviceKey, delivery);
+        if (retry == null) {
+            metrics.recordRetry(serviceKey, queue, eventType, "exhausted");
+            return NACK;
+        }
+        return retry.thenApply(confirmed -> {
+            metrics.recordRetry(serviceKey, queue, eventType, confirmed ? "scheduled" : "publish-failed");
+            return confirmed;
+        });
+    }
+
+    private CompletableFuture<Boolean> scheduleRetry(String serviceKey, Delivery delivery) {
+        try {
+            return delivery.scheduleRetry(retryScheduler, serviceKey);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /**
+     * 처리 루프가 보는 수신 메시지 한 건.
+     */
+    private interface Delivery {
+
+        long deliveryTag();
+
+        String queue();
+
+        String eventType();
+
+        String schemaVersion();
+
+        String routingKey();
+
+        String messageId();
+
+        Instant publishedAt();
+
+        /**
+         * @return AMQP priority 를 {@link EventPriority} 등급 이름으로 바꾼 값 (없으면 normal)
+         */
+        String priority();
+
+        void handle() throws Exception;
+
+        CompletableFuture<Boolean> scheduleRetry(RetryScheduler retryScheduler, String serviceKey);
+
+        /**
+         * @return 레인 키. key-header 헤더, 없으면 messageId (순서 보장 없음)
+         */
+        String laneKey(MessagingProperties.Lanes settings);
+    }
+
+    private final class RawDelivery implements Delivery {
+
+        private final InboundEvent event;
+        private final InboundHandler handler;
+
+        RawDelivery(InboundEvent event, InboundHandler handler) {
+            this.event = event;
+            this.handler = handler;
+        }
+
+        @Override
+        public long deliveryTag() {
+            return event.deliveryTag();
+        }
+
+        @Override
+        public String queue() {
+            return event.queue();
+        }
+
+        @Override
+        public String eventType() {
+            return event.eventType();
+        }
+
+        @Override
+        public String schemaVersion() {
+            return event.schemaVersion();
+        }
+
+        @Override
+        public String routingKey() {
+            return event.routingKey();
+        }
+
+        @Override
+        public String messageId() {
+            return event.messageId();
+        }
+
+        @Override
+        public Instant publishedAt() {
+            return event.publishedAt();
+        }
+
+        @Override
+        public String priority() {
+            return EventPriority.fromAmqp(event.properties().getPriority()).value();
+        }
+
+        @Override
+        public void handle() throws Exception {
+            handler.handle(event);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> scheduleRetry(RetryScheduler retryScheduler, String serviceKey) {
+            return retryScheduler.schedule(serviceKey, event.message());
+        }
+
+        @Override
+        public String laneKey(MessagingProperties.Lanes settings) {
+            // 컨슈머 스레드에서 본문을 디코딩하지 않도록 헤더만 본다.
+            String header = event.header(settings.keyHeader());
+            return header != null ? header : String.valueOf(event.messageId());
+        }
+    }
+
+    private record Settled(long deliveryTag, CompletableFuture<Boolean> ack) {
+    }
+}
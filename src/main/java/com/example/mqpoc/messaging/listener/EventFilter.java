@@ -0,0 +1,71 @@
+package com.example.mqpoc.messaging.listener;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.config.MessagingProperties.Filter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.PatternMatchUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 서비스별 수신 필터({@link Filter})를 AMQP type / schema-version 헤더 / 라우팅 키 문자열로만 평가한다.
+ * 바디를 읽지 않으므로 버릴 메시지는 역직렬화 비용 없이 ACK/NACK 된다.
+ */
+@Component
+public class EventFilter {
+
+    private final Map<String, Filter> filters;
+
+    public EventFilter(MessagingProperties properties) {
+        this.filters = properties.services().entrySet().stream()
+                .filter(entry -> !entry.getValue().filter().rules().isEmpty()
+                        || entry.getValue().filter().defaultAction() != Filter.Action.ACCEPT)
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().filter()));
+    }
+
+    /**
+     * @return 서비스에 필터 규칙이 있으면 true (없으면 호출 측이 평가를 건너뛴다)
+     */
+    public boolean enabled(String serviceKey) {
+        return filters.containsKey(serviceKey);
+    }
+
+    /**
+     * @param serviceKey    messaging.services.* 키
+     * @param eventType     AMQP type
+     * @param schemaVersion schema-version 헤더
+     * @param routingKey    발행 라우팅 키
+     * @return 처음 일치한 규칙의 처리, 없으면 defaultAction
+     */
+    public Filter.Action evaluate(String serviceKey, String eventType, String schemaVersion, String routingKey) {
+        Filter filter = filters.get(serviceKey);
+        if (filter == null) {
+            return Filter.Action.ACCEPT;
+        }
+        for (Filter.Rule rule : filter.rules()) {
+            if (matches(rule.types(), eventType)
+                    && matches(rule.schemaVersions(), schemaVersion)
+                    && matches(rule.routingKeys(), routingKey)) {
+                return rule.action();
+            }
+        }
+        return filter.defaultAction();
+    }
+
+    private static boolean matches(List<String> patterns, String value) {
+        if (patterns.isEmpty()) {
+            return true;
+        }
+        if (value == null) {
+            return false;
+        }
+        for (String pattern : patterns) {
+            if (PatternMatchUtils.simpleMatch(pattern, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
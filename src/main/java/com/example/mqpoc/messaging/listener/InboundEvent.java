@@ -0,0 +1,122 @@
+package com.example.mqpoc.messaging.listener;
+
+import com.example.mqpoc.messaging.codec.EnvelopeMessageConverter;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.fasterxml.jackson.databind.JavaType;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.time.Instant;
+
+/**
+ * 바디를 읽지 않은 수신 메시지. {@code EventPublisher}가 채우는 AMQP 프로퍼티/헤더만으로 이벤트명, messageId, traceId,
+ * schema-version, 라우팅 키를 알 수 있으므로, 대부분의 필터/로그/라우팅 판단은 역직렬화 없이 끝난다.
+ * <p>
+ * 바디가 필요한 핸들러만 {@link #envelope(JavaType)}로 envelope 을 읽는다. 결과는 메시지마다 한 번만 디코딩해 보관한다.
+ * 한 리스너 스레드에서 쓰이는 것을 전제로 하며 별도 동기화는 하지 않는다.
+ */
+public final class InboundEvent {
+
+    private final Message message;
+    private final EnvelopeMessageConverter converter;
+    private EventEnvelope<?> envelope;
+    private JavaType envelopeType;
+
+    InboundEvent(Message message, EnvelopeMessageConverter converter) {
+        this.message = message;
+        this.converter = converter;
+    }
+
+    /**
+     * @return 원본 AMQP 메시지 (압축은 풀린 상태)
+     */
+    public Message message() {
+        return message;
+    }
+
+    public MessageProperties properties() {
+        return message.getMessageProperties();
+    }
+
+    /**
+     * @return AMQP type 프로퍼티 (발행 이벤트명, 예: order.created)
+     */
+    public String eventType() {
+        return properties().getType();
+    }
+
+    public String messageId() {
+        return properties().getMessageId();
+    }
+
+    /**
+     * @return correlationId, 없으면 traceId 헤더
+     */
+    public String traceId() {
+        String correlationId = properties().getCorrelationId();
+        return correlationId != null ? correlationId : header("traceId");
+    }
+
+    /**
+     * @return schema-version 헤더
+     */
+    public String schemaVersion() {
+        return header("schema-version");
+    }
+
+    /**
+     * @return 발행 라우팅 키. 재시도 대기 큐를 거쳐 돌아온 메시지는 {@link RetryScheduler#ORIGINAL_ROUTING_KEY_HEADER} 값
+     */
+    public String routingKey() {
+        String original = header(RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER);
+        return original != null ? original : properties().getReceivedRoutingKey();
+    }
+
+    /**
+     * @return 메시지를 받은 큐
+     */
+    public String queue() {
+        return properties().getConsumerQueue();
+    }
+
+    public long deliveryTag() {
+        return properties().getDeliveryTag();
+    }
+
+    /**
+     * @return AMQP timestamp (발행 시각), 없으면 null
+     */
+    public Instant publishedAt() {
+        return properties().getTimestamp() != null ? properties().getTimestamp().toInstant() : null;
+    }
+
+    /**
+     * @return 헤더 값의 문자열, 없으면 null
+     */
+    public String header(String name) {
+        Object value = properties().getHeaders().get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * @return 바디를 이미 디코딩했는지 여부
+     */
+    public boolean decoded() {
+        return envelope != null;
+    }
+
+    /**
+     * 바디를 envelope 으로 디코딩한다. 같은 타입으로 다시 호출하면 보관한 결과를 돌려준다.
+     *
+     * @param payloadType payload 타입 ({@link EnvelopeMessageConverter#payloadType(Class)}로 미리 만들어 둔다)
+     * @throws org.springframework.amqp.support.converter.MessageConversionException 디코딩 실패 시
+     */
+    @SuppressWarnings("unchecked")
+    public <T> EventEnvelope<T> envelope(JavaType payloadType) {
+        if (envelope == null || !payloadType.equals(envelopeType)) {
+            envelope = converter.decode(message, payloadType);
+            envelopeType = payloadType;
+        }
+        return (EventEnvelope<T>) envelope;
+    }
+}
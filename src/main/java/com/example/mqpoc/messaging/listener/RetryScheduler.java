@@ -0,0 +1,111 @@
+package com.example.mqpoc.messaging.listener;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.messaging.codec.MessageCompressor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 핸들러가 실패한 메시지를 서비스의 다음 재시도 단계 대기 큐로 다시 발행한다.
+ * <ul>
+ *     <li>대기 큐({@code <queue>.retry.<n>})는 {@code RabbitConfig#topology}가 선언하며, TTL 이 지나면 원래 큐로 돌아온다.
+ *     지연은 브로커가 처리하므로 컨슈머 스레드에서 sleep 하지 않는다. 샤딩된 서비스는 메시지를 받은 샤드 큐의 대기 큐를 쓴다.</li>
+ *     <li>{@value #RETRY_COUNT_HEADER} 헤더로 시도 횟수를 센다. 단계를 모두 소진한 메시지는 예약하지 않으며
+ *     호출자가 NACK 해서 DLQ 로 보낸다.</li>
+ *     <li>대기 큐를 거치면 라우팅 키가 큐 이름으로 바뀌므로 처음 받은 exchange/라우팅 키를
+ *     {@value #ORIGINAL_EXCHANGE_HEADER}/{@value #ORIGINAL_ROUTING_KEY_HEADER} 헤더에 보존한다.</li>
+ *     <li>재발행은 publisher confirm 을 받은 뒤에만 성공으로 본다. 호출자는 confirm 이후 원본을 ACK 해야
+ *     재발행 실패 시 메시지를 잃지 않는다.</li>
+ * </ul>
+ */
+@Component
+public class RetryScheduler {
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String ORIGINAL_EXCHANGE_HEADER = "x-original-exchange";
+    public static final String ORIGINAL_ROUTING_KEY_HEADER = "x-original-routing-key";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MessagingProperties properties;
+    private final MessageCompressor compressor;
+    private final long confirmTimeoutMillis;
+
+    public RetryScheduler(RabbitTemplate rabbitTemplate, MessagingProperties properties, MessageCompressor compressor) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+        this.compressor = compressor;
+        this.confirmTimeoutMillis = properties.publisher().confirmTimeout().toMillis();
+    }
+
+    /**
+     * 바디를 디코딩하지 않은 메시지를 그대로 대기 큐로 다시 발행한다.
+     *
+     * @param serviceKey 메시지를 받은 리스너의 messaging.services.* 키
+     * @param received   수신 메시지 (압축은 풀린 상태, 서비스 인코딩으로 다시 압축한다)
+     * @return 대기 큐 발행이 confirm 되면 true, NACK/return/timeout 이면 false 로 완료되는 future.
+     * 재시도 단계가 없거나 모두 소진했으면 null
+     */
+    public CompletableFuture<Boolean> schedule(String serviceKey, Message received) {
+        MessagingProperties.Service service = properties.services().get(serviceKey);
+        MessageProperties receivedProperties = received.getMessageProperties();
+        int attempt = nextAttempt(service, receivedProperties.getHeaders());
+        if (attempt < 0) {
+            return null;
+        }
+
+        MessageProperties messageProperties = MessagePropertiesBuilder.fromClonedProperties(receivedProperties).build();
+        // 수신 시 x-death 에서 채운 값이 retry-count 헤더로 다시 나가지 않게 한다.
+        messageProperties.setRetryCount(0);
+        prepare(messageProperties, attempt, receivedProperties.getReceivedExchange(),
+                receivedProperties.getReceivedRoutingKey());
+        Message message = new Message(received.getBody(), messageProperties);
+        return send(service, receivedProperties.getConsumerQueue(), message, attempt);
+    }
+
+    private static int nextAttempt(MessagingProperties.Service service, Map<String, ?> headers) {
+        List<?> delays = service != null ? service.retryDelays() : List.of();
+        int attempt = retryCount(headers) + 1;
+        return attempt > delays.size() ? -1 : attempt;
+    }
+
+    private static void prepare(MessageProperties messageProperties, int attempt, Object receivedExchange,
+                                Object receivedRoutingKey) {
+        messageProperties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        messageProperties.setHeader(RETRY_COUNT_HEADER, attempt);
+        if (messageProperties.getHeader(ORIGINAL_ROUTING_KEY_HEADER) == null) {
+            messageProperties.setHeader(ORIGINAL_EXCHANGE_HEADER, receivedExchange);
+            messageProperties.setHeader(ORIGINAL_ROUTING_KEY_HEADER, receivedRoutingKey);
+        }
+    }
+
+    private CompletableFuture<Boolean> send(MessagingProperties.Service service, String sourceQueue, Message message,
+                                            int attempt) {
+        Message compressed = compressor.compress(message, service.encoding());
+        CorrelationData correlationData =
+                new CorrelationData(message.getMessageProperties().getMessageId() + ":retry-" + attempt);
+        String retryQueue = service.retryQueue(sourceQueue != null ? sourceQueue : service.queue(), attempt);
+        rabbitTemplate.send("", retryQueue, compressed, correlationData);
+        return correlationData.getFuture()
+                .thenApply(confirm -> confirm.ack() && correlationData.getReturned() == null)
+                .completeOnTimeout(false, confirmTimeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> false);
+    }
+
+    static int retryCount(Map<String, ?> headers) {
+        Object count = headers.get(RETRY_COUNT_HEADER);
+        if (count instanceof Number number) {
+            return number.intValue();
+        }
+        return count != null ? Integer.parseInt(count.toString()) : 0;
+    }
+}
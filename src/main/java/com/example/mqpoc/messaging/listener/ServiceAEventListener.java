@@ -1,64 +1,71 @@
 package com.example.mqpoc.messaging.listener;
 
+import com.example.mqpoc.messaging.dispatch.EventHandlerRegistry;
 import com.example.mqpoc.messaging.model.EventEnvelope;
 import com.example.mqpoc.messaging.model.payload.OrderCreatedEvent;
 import com.example.mqpoc.messaging.model.payload.UserCreatedEvent;
+import com.example.mqpoc.messaging.trace.EventTracer;
 import com.rabbitmq.client.Channel;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.context.annotation.Profile;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @Profile({"service-a", "both", "cross"})
 public class ServiceAEventListener {
 
-    public ServiceAEventListener() {
+    private final BatchDeliveryProcessor processor;
+    private final EventHandlerRegistry registry;
+    private final EventTracer tracer;
+
+    public ServiceAEventListener(BatchDeliveryProcessor processor, EventHandlerRegistry registry, EventTracer tracer) {
+        this.processor = processor;
+        this.registry = registry;
+        this.tracer = tracer;
+        registry.register("serviceA", "order.created", OrderCreatedEvent.class, this::onOrderCreated);
+        registry.register("serviceBToA", "user.created", UserCreatedEvent.class, this::onUserCreated);
     }
 
     /**
-     * Service A 큐에서 수신된 이벤트를 처리한다. 수동 ACK 모드이며, 예외 발생 시 재큐잉 없이 NACK 처리한다.
+     * Service A 큐에서 수신된 이벤트를 배치로 처리한다. 큐에는 {@code serviceA.#}로 바인딩된 모든 이벤트 타입이 들어오므로
+     * {@link EventHandlerRegistry}가 AMQP type/schema-version 으로 핸들러를 고른다. 수동 ACK 모드이며, 성공 건은
+     * multiple ACK 한 번으로 확인하고 예외가 난 건만 재큐잉 없이 NACK 처리한다. (자세한 규칙은 {@link BatchDeliveryProcessor} 참고)
      *
-     * @param envelope 퍼블리셔가 보낸 {@link com.example.mqpoc.messaging.model.EventEnvelope} (payload와 메타데이터 포함)
-     * @param message  원본 AMQP 메시지(헤더/라우팅 키 확인용)
+     * @param messages 퍼블리셔가 보낸 {@link EventEnvelope} 메시지 목록 (디코딩 전)
      * @param channel  수동 ACK/NACK 전송을 위한 채널
      * @throws IOException ACK/NACK 전송 실패 시
      */
-    @RabbitListener(queues = {"${messaging.services.serviceA.queue}"})
-    public void handleOrderCreatedEvent(@Payload EventEnvelope<OrderCreatedEvent> envelope, Message message, Channel channel) throws IOException {
-        long deliveryTag = message.getMessageProperties().getDeliveryTag();
-        try {
-            System.out.printf("ServiceA consume: routingKey=%s eventType=%s messageId=%s traceId=%s%n",
-                    message.getMessageProperties().getReceivedRoutingKey(),
-                    envelope.getEventType(),
-                    envelope.getMetadata() != null ? envelope.getMetadata().getMessageId() : "n/a",
-                    envelope.getMetadata() != null ? envelope.getMetadata().getTraceId() : "n/a");
-            System.out.println(envelope.getPayload().toString());
-            channel.basicAck(deliveryTag, false);
-        } catch (Exception ex) {
-            System.err.printf("ServiceA handler error: %s%n", ex.getMessage());
-            channel.basicNack(deliveryTag, false, false);
-        }
+    @RabbitListener(queues = "#{@listenerContainerFactories.queues('serviceA')}",
+            containerFactory = "#{@listenerContainerFactories.forService('serviceA')}")
+    public void handleServiceAEvents(List<Message> messages, Channel channel) throws IOException {
+        processor.processInbound("serviceA", messages, channel, event -> registry.dispatch("serviceA", event));
     }
 
     @Profile("cross")
-    @RabbitListener(queues = {"${messaging.services.serviceBToA.queue}"})
-    public void handleUserCreatedEvent(@Payload EventEnvelope<UserCreatedEvent> envelope, Message message, Channel channel) throws IOException {
-        long deliveryTag = message.getMessageProperties().getDeliveryTag();
-        try {
-            System.out.printf("ServiceA consume: routingKey=%s eventType=%s messageId=%s traceId=%s%n",
-                    message.getMessageProperties().getReceivedRoutingKey(),
-                    envelope.getEventType(),
-                    envelope.getMetadata() != null ? envelope.getMetadata().getMessageId() : "n/a",
-                    envelope.getMetadata() != null ? envelope.getMetadata().getTraceId() : "n/a");
-            System.out.println(envelope.getPayload().toString());
-            channel.basicAck(deliveryTag, false);
-        } catch (Exception ex) {
-            System.err.printf("ServiceA handler error: %s%n", ex.getMessage());
-            channel.basicNack(deliveryTag, false, false);
-        }
+    @RabbitListener(queues = "#{@listenerContainerFactories.queues('serviceBToA')}",
+            containerFactory = "#{@listenerContainerFactories.forService('serviceBToA')}")
+    public void handleServiceBEvents(List<Message> messages, Channel channel) throws IOException {
+        processor.processInbound("serviceBToA", messages, channel, event -> registry.dispatch("serviceBToA", event));
+    }
+
+    private void onOrderCreated(EventEnvelope<OrderCreatedEvent> envelope, InboundEvent event) {
+        trace("serviceA", envelope, event);
+    }
+
+    private void onUserCreated(EventEnvelope<UserCreatedEvent> envelope, InboundEvent event) {
+        trace("serviceBToA", envelope, event);
+    }
+
+    private void trace(String serviceKey, EventEnvelope<?> envelope, InboundEvent event) {
+        tracer.consume(serviceKey,
+                event.routingKey(),
+                envelope.getEventType(),
+                envelope.getMetadata() != null ? envelope.getMetadata().getMessageId() : "n/a",
+                envelope.getMetadata() != null ? envelope.getMetadata().getTraceId() : "n/a",
+                envelope.getPayload());
     }
 }
@@ -1,35 +1,39 @@
 package com.example.mqpoc.messaging.listener;
 
-import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.messaging.trace.EventTracer;
 import com.rabbitmq.client.Channel;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.context.annotation.Profile;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * serviceB 는 이벤트명/messageId/traceId 만 기록하므로 바디를 디코딩하지 않고 헤더만 읽는다.
+ */
 @Component
 @Profile({"service-b", "both", "cross"})
 public class ServiceBEventListener {
 
-    public ServiceBEventListener() {
+    private final BatchDeliveryProcessor processor;
+    private final EventTracer tracer;
+
+    public ServiceBEventListener(BatchDeliveryProcessor processor, EventTracer tracer) {
+        this.processor = processor;
+        this.tracer = tracer;
     }
 
-    @RabbitListener(queues = "${messaging.services.serviceB.queue}")
-    public void onMessage(@Payload EventEnvelope<?> envelope, Message message, Channel channel) throws IOException {
-        long deliveryTag = message.getMessageProperties().getDeliveryTag();
-        try {
-            System.out.printf("ServiceB consume: routingKey=%s eventType=%s messageId=%s traceId=%s%n",
-                    message.getMessageProperties().getReceivedRoutingKey(),
-                    envelope.getEventType(),
-                    envelope.getMetadata() != null ? envelope.getMetadata().getMessageId() : "n/a",
-                    envelope.getMetadata() != null ? envelope.getMetadata().getTraceId() : "n/a");
-            channel.basicAck(deliveryTag, false);
-        } catch (Exception ex) {
-            System.err.printf("ServiceB handler error: %s%n", ex.getMessage());
-            channel.basicNack(deliveryTag, false, false);
-        }
+    @RabbitListener(queues = "#{@listenerContainerFactories.queues('serviceB')}",
+            containerFactory = "#{@listenerContainerFactories.forService('serviceB')}")
+    public void onMessages(List<Message> messages, Channel channel) throws IOException {
+        processor.processInbound("serviceB", messages, channel, event ->
+                tracer.consume("serviceB",
+                        event.routingKey(),
+                        event.eventType(),
+                        event.messageId() != null ? event.messageId() : "n/a",
+                        event.traceId() != null ? event.traceId() : "n/a",
+                        null));
     }
 }
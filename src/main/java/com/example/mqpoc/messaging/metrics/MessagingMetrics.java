@@ -0,0 +1,171 @@
+package com.example.mqpoc.messaging.metrics;
+
+import com.example.mqpoc.config.MessagingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 발행/소비 경로의 Micrometer 지표. 모든 지표는 {@code service}(messaging.services.* 키)와 {@code eventType} 태그를 가진다.
+ * <ul>
+ *     <li>{@code messaging.publish.confirm}: 전송 → broker confirm 지연 (outcome=ack|nack|returned)</li>
+ *     <li>{@code messaging.publish.nacks}/{@code messaging.publish.returns}: confirm NACK, mandatory return 건수</li>
+ *     <li>{@code messaging.consume.duration}: 핸들러 처리 시간 (queue, outcome=success|error)</li>
+ *     <li>{@code messaging.consume.e2e}: publishedAt(없으면 AMQP timestamp) → 소비 시작까지의 종단 간 지연 (queue, priority)</li>
+ *     <li>{@code messaging.consume.retries}: 핸들러 실패 처리 결과 (queue, outcome=scheduled|exhausted|publish-failed|rejected)</li>
+ *     <li>{@code messaging.consume.dedup}: 중복 제거 판정 건수 (queue, outcome=unique|duplicate|in-progress). 적중률 = duplicate / 전체</li>
+ *     <li>{@code messaging.consume.upcast}: 예전 schema-version 이라 바인딩 전에 payload 를 변환한 건수 (fromVersion, toVersion)</li>
+ *     <li>{@code messaging.consume.filtered}: 수신 필터로 바디를 읽지 않고 처리한 건수 (queue, action=drop|dead-letter)</li>
+ * </ul>
+ * 타이머는 퍼센타일 히스토그램을 게시하므로 {@code /actuator/prometheus}에서 p99 를 계산할 수 있다.
+ * <p>
+ * eventType 은 발행 요청에서 그대로 오므로 처음 본 이름 {@code messaging.metrics.max-event-types}개까지만 태그로 쓰고,
+ * 이후 새 이름은 {@value #OTHER}로 묶는다. 값이 없는 eventType/queue 는 {@value #UNKNOWN}이다.
+ */
+@Component
+public class MessagingMetrics {
+
+    static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+
+    private final Meter.MeterProvider<Timer> confirmTimer;
+    private final Meter.MeterProvider<Counter> nackCounter;
+    private final Meter.MeterProvider<Counter> returnCounter;
+    private final Meter.MeterProvider<Timer> consumeTimer;
+    private final Meter.MeterProvider<Timer> endToEndTimer;
+    private final Meter.MeterProvider<Counter> dedupCounter;
+    private final Meter.MeterProvider<Counter> retryCounter;
+    private final Meter.MeterProvider<Counter> filterCounter;
+    private final Meter.MeterProvider<Counter> upcastCounter;
+    private final Set<String> eventTypes = ConcurrentHashMap.newKeySet();
+    private final int maxEventTypes;
+
+    public MessagingMetrics(MeterRegistry registry, MessagingProperties properties) {
+        this.maxEventTypes = properties.metrics().maxEventTypes();
+        this.confirmTimer = Timer.builder("messaging.publish.confirm")
+                .description("Time from publish to broker confirm")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.nackCounter = Counter.builder("messaging.publish.nacks")
+                .description("Publisher confirms that came back as nack")
+                .withRegistry(registry);
+        this.returnCounter = Counter.builder("messaging.publish.returns")
+                .description("Mandatory publishes returned as unroutable")
+                .withRegistry(registry);
+        this.consumeTimer = Timer.builder("messaging.consume.duration")
+                .description("Listener handler duration per message")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.endToEndTimer = Timer.builder("messaging.consume.e2e")
+                .description("Time from publish to the start of consumption")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.dedupCounter = Counter.builder("messaging.consume.dedup")
+                .description("Deliveries checked against the dedup store")
+                .withRegistry(registry);
+        this.retryCounter = Counter.builder("messaging.consume.retries")
+                .description("Failed deliveries moved to a retry tier or sent to the DLQ")
+                .withRegistry(registry);
+        this.filterCounter = Counter.builder("messaging.consume.filtered")
+                .description("Deliveries settled by the header filter without decoding the body")
+                .withRegistry(registry);
+        this.upcastCounter = Counter.builder("messaging.consume.upcast")
+                .description("Payloads transformed from an older schema version before binding")
+                .withRegistry(registry);
+    }
+
+    /**
+     * @param startNanos 전송 직전 {@link System#nanoTime()}
+     * @param ack        broker ACK 여부
+     * @param returned   ACK 이지만 mandatory return 된 경우
+     */
+    public void recordConfirm(String service, String eventType, long startNanos, boolean ack, boolean returned) {
+        String outcome = !ack ? "nack" : returned ? "returned" : "ack";
+        confirmTimer.withTags("service", service, "eventType", eventTypeTag(eventType), "outcome", outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (!ack) {
+            nackCounter.withTags("service", service, "eventType", eventTypeTag(eventType)).increment();
+        } else if (returned) {
+            returnCounter.withTags("service", service, "eventType", eventTypeTag(eventType)).increment();
+        }
+    }
+
+    public void recordConsume(String service, String queue, String eventType, long startNanos, boolean success) {
+        consumeTimer.withTags("service", service, "queue", queueTag(queue), "eventType", eventTypeTag(eventType),
+                        "outcome", success ? "success" : "error")
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param publishedAt 발행 시각. null 이면 기록하지 않는다. 발행/소비 호스트 간 시계 차이만큼 오차가 있다.
+     */
+    public void recordEndToEnd(String service, String queue, String eventType, String priority, Instant publishedAt) {
+        if (publishedAt == null) {
+            return;
+        }
+        Duration latency = Duration.between(publishedAt, Instant.now());
+        if (!latency.isNegative()) {
+            endToEndTimer.withTags("service", service, "queue", queueTag(queue), "eventType", eventTypeTag(eventType),
+                            "priority", priority)
+                    .record(latency);
+        }
+    }
+
+    /**
+     * @param outcome unique(처음 본 messageId) | duplicate(처리 완료된 중복, ACK) | in-progress(처리 중인 중복, 재시도/DLX)
+     */
+    public void recordDedup(String service, String queue, String eventType, String outcome) {
+        dedupCounter.withTags("service", service, "queue", queueTag(queue), "eventType", eventTypeTag(eventType),
+                "outcome", outcome).increment();
+    }
+
+    /**
+     * @param outcome scheduled(다음 대기 큐로 재발행) | exhausted(단계 소진, DLQ) | publish-failed(재발행 실패, DLQ)
+     *                | rejected(재시도 불가 예외, DLQ)
+     */
+    public void recordRetry(String service, String queue, String eventType, String outcome) {
+        retryCounter.withTags("service", service, "queue", queueTag(queue), "eventType", eventTypeTag(eventType),
+                "outcome", outcome).increment();
+    }
+
+    /**
+     * @param action drop(핸들러 없이 ACK) | dead-letter(DLQ)
+     */
+    public void recordFiltered(String service, String queue, String eventType, String action) {
+        filterCounter.withTags("service", service, "queue", queueTag(queue), "eventType", eventTypeTag(eventType),
+                "action", action).increment();
+    }
+
+    public void recordUpcast(String service, String eventType, String fromVersion, String toVersion) {
+        upcastCounter.withTags("service", service, "eventType", eventTypeTag(eventType), "fromVersion", fromVersion,
+                "toVersion", toVersion).increment();
+    }
+
+    private String eventTypeTag(String eventType) {
+        if (eventType == null) {
+            return UNKNOWN;
+        }
+        if (eventTypes.contains(eventType)) {
+            return eventType;
+        }
+        synchronized (eventTypes) {
+            if (eventTypes.size() < maxEventTypes) {
+                eventTypes.add(eventType);
+                return eventType;
+            }
+        }
+        return OTHER;
+    }
+
+    private static String queueTag(String queue) {
+        return queue != null ? queue : UNKNOWN;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.mqpoc.messaging.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/**
+ * 이벤트 우선순위 등급. {@link EventMetadata#getPriority()}에는 소문자 이름이, AMQP {@code priority} 프로퍼티에는
+ * {@link #amqpPriority()} 값이 실린다.
+ * <ul>
+ *     <li>classic 큐는 {@code x-max-priority}가 있어야 우선순위대로 꺼낸다. 값이 그보다 크면 최댓값으로 취급된다.</li>
+ *     <li>기준 브로커는 docker-compose 의 RabbitMQ 3.13 이다. 3.13 의 quorum 큐는 priority 를 무시하고 FIFO 로 꺼낸다.
+ *     4.0 이상으로 올리면 quorum 큐가 인자 없이 두 단계를 구분하므로 (4 이하 normal, 5 이상 high),
+ *     그때도 뜻이 맞도록 high/urgent 는 5 이상, low/normal 은 4 이하로 둔다.</li>
+ *     <li>low 는 0 이 아닌 1 이다. 헤더 매퍼는 0 을 "priority 없음"으로 보고 옮기지 않으므로, 0 이면 변환 경로에서 normal 로 읽힌다.</li>
+ * </ul>
+ */
+public enum EventPriority {
+
+    LOW(1),
+    NORMAL(4),
+    HIGH(7),
+    URGENT(9);
+
+    private final int amqpPriority;
+
+    EventPriority(int amqpPriority) {
+        this.amqpPriority = amqpPriority;
+    }
+
+    public int amqpPriority() {
+        return amqpPriority;
+    }
+
+    /**
+     * @return 메타데이터/지표 태그에 쓰는 소문자 이름
+     */
+    @JsonValue
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param value 등급 이름 (대소문자 무관), null 이면 null
+     * @throws IllegalArgumentException 모르는 이름
+     */
+    @JsonCreator
+    public static EventPriority of(String value) {
+        return value != null ? valueOf(value.trim().toUpperCase(Locale.ROOT)) : null;
+    }
+
+    /**
+     * @param amqpPriority 수신 메시지의 AMQP priority, null 이면 NORMAL
+     * @return 값 이하인 가장 높은 등급 (LOW 미만인 0 도 LOW)
+     */
+    public static EventPriority fromAmqp(Integer amqpPriority) {
+        if (amqpPriority == null) {
+            return NORMAL;
+        }
+        EventPriority[] levels = values();
+        for (int i = levels.length - 1; i > 0; i--) {
+            if (amqpPriority >= levels[i].amqpPriority) {
+                return levels[i];
+            }
+        }
+        return LOW;
+    }
+}
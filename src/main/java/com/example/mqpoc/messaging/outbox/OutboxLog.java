@@ -0,0 +1,450 @@
+package com.example.mqpoc.messaging.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 아웃박스 레코드를 보관하는 세그먼트 단위 append-only 로그.
+ * <ul>
+ *     <li>세그먼트는 고정 크기 파일({@code <시작 오프셋 20자리>.log})을 mmap 해서 쓴다. 레코드는
+ *     {@code [길이 int][CRC32C int][바이트]}이고, 레코드가 들어가지 않으면 새 세그먼트로 넘어간다.</li>
+ *     <li>오프셋은 세그먼트를 가로질러 이어지는 논리 바이트 위치다. 다음 세그먼트의 시작 오프셋은 앞 세그먼트의 끝과 같다.</li>
+ *     <li>fsync 는 flusher 스레드 하나가 맡는다. fsync 하는 동안 들어온 기록은 다음 fsync 한 번에 함께 확정된다(group commit).
+ *     {@link #append(byte[])}는 자기 레코드가 fsync 될 때까지 기다리므로, 반환되면 프로세스/OS 가 죽어도 레코드는 남는다.</li>
+ *     <li>릴레이가 발행을 확정한 위치는 {@link #commit(long)}으로 {@code committed.offset} 파일에 기록한다. 재시작하면
+ *     그 위치부터 다시 읽고, 커밋 위치보다 앞선 세그먼트는 지운다.</li>
+ *     <li>읽기는 fsync 가 끝난 위치까지만 허용한다. 발행된 레코드가 재시작 후 로그에서 사라지는 일이 없게 하기 위함이다.</li>
+ * </ul>
+ */
+public class OutboxLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxLog.class);
+
+    static final int RECORD_HEADER_SIZE = 8;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String OFFSET_FILE = "committed.offset";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxSize;
+    private final long flushIntervalNanos;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final FileChannel offsetChannel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private volatile Segment active;
+    private long writeOffset;
+    private volatile long durableOffset;
+    private volatile long committedOffset;
+    private volatile IOException flushFailure;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    private OutboxLog(Path directory, int segmentSize, long maxSize, long flushIntervalNanos) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        this.flushIntervalNanos = flushIntervalNanos;
+        Files.createDirectories(directory);
+        this.offsetChannel = FileChannel.open(directory.resolve(OFFSET_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+        this.flusher = Thread.ofPlatform().daemon().name("outbox-flusher").start(this::flushLoop);
+    }
+
+    /**
+     * 디렉터리의 기존 세그먼트를 복구하고 flusher 를 시작한다.
+     *
+     * @param segmentSize   세그먼트 파일 크기
+     * @param maxSize       커밋되지 않은 로그 허용량 (넘으면 {@link #append(byte[])}가 거부)
+     * @param flushInterval fsync 전에 기록을 더 모으는 시간 (0 이면 직전 fsync 가 끝나는 즉시)
+     */
+    public static OutboxLog open(Path directory, long segmentSize, long maxSize, Duration flushInterval)
+            throws IOException {
+        if (segmentSize <= RECORD_HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentSize must be between 9 bytes and 2GB: " + segmentSize);
+        }
+        return new OutboxLog(directory, (int) segmentSize, maxSize, flushInterval.toNanos());
+    }
+
+    /**
+     * 레코드를 기록하고 fsync 될 때까지 기다린다.
+     *
+     * @return 기록되었으면 true, 커밋되지 않은 로그가 {@code maxSize}를 넘어 기록하지 않았으면 false
+     * @throws UncheckedIOException fsync 가 실패한 경우 (이후 기록도 모두 실패)
+     */
+    public boolean append(byte[] record) {
+        int size = RECORD_HEADER_SIZE + record.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("record of " + record.length + " bytes exceeds segment size " + segmentSize);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record);
+        long end;
+        lock.lock();
+        try {
+            ensureWritable();
+            if (writeOffset + size - committedOffset > maxSize) {
+                return false;
+            }
+            if (active.limit + size > active.capacity()) {
+                roll();
+            }
+            active.write(record, (int) crc.getValue());
+            writeOffset += size;
+            end = writeOffset;
+            appended.signal();
+            while (durableOffset < end) {
+                flushed.awaitUninterruptibly();
+                if (flushFailure != null) {
+                    throw new UncheckedIOException("outbox fsync failed", flushFailure);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * {@code from}부터 fsync 된 레코드를 최대 {@code max}개 읽는다. 읽을 레코드가 없으면 최대 {@code timeout} 동안 기다린다.
+     *
+     * @return 읽은 레코드 (없으면 빈 목록)
+     */
+    public List<Entry> read(long from, int max, Duration timeout) throws InterruptedException {
+        if (durableOffset <= from) {
+            long remaining = timeout.toNanos();
+            lock.lock();
+            try {
+                while (durableOffset <= from && remaining > 0 && !closed) {
+                    remaining = flushed.awaitNanos(remaining);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        long limit = durableOffset;
+        List<Entry> entries = new ArrayList<>(Math.min(max, 256));
+        long offset = from;
+        while (offset < limit && entries.size() < max) {
+            Map.Entry<Long, Segment> floor = segments.floorEntry(offset);
+            if (floor == null) {
+                throw new IllegalStateException("offset " + offset + " is below the oldest segment");
+            }
+            if (offset >= floor.getValue().end()) {
+                // 복구 때 잘린 세그먼트의 끝: 다음 세그먼트로 건너뛴다.
+                offset = segments.higherKey(offset);
+                continue;
+            }
+            byte[] data = floor.getValue().read((int) (offset - floor.getKey()));
+            long next = offset + RECORD_HEADER_SIZE + data.length;
+            entries.add(new Entry(offset, next, data));
+            offset = next;
+        }
+        return entries;
+    }
+
+    /**
+     * 릴레이가 {@code offset} 앞의 레코드를 모두 발행했음을 기록하고, 그 앞에서 끝나는 세그먼트를 지운다.
+     */
+    public void commit(long offset) throws IOException {
+        if (offset <= committedOffset) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+        offsetChannel.write(buffer, 0);
+        offsetChannel.force(false);
+        committedOffset = offset;
+
+        for (Map.Entry<Long, Segment> entry : segments.headMap(offset, true).entrySet()) {
+            Segment segment = entry.getValue();
+            if (segment != active && segment.end() <= offset) {
+                segments.remove(entry.getKey());
+                Files.deleteIfExists(segment.path);
+            }
+        }
+    }
+
+    public long committedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * @return 기록되었지만 아직 커밋되지 않은 바이트 수
+     */
+    public long backlogBytes() {
+        return durableOffset - committedOffset;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signalAll();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        offsetChannel.close();
+    }
+
+    private void ensureWritable() {
+        if (closed) {
+            throw new IllegalStateException("outbox log is closed");
+        }
+        if (flushFailure != null) {
+            throw new UncheckedIOException("outbox fsync failed", flushFailure);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            lock.lock();
+            try {
+                while (writeOffset == durableOffset && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (writeOffset == durableOffset) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (flushIntervalNanos > 0 && !closed) {
+                // 이 시간 동안 들어온 기록까지 같은 fsync 로 묶는다.
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+            lock.lock();
+            try {
+                target = writeOffset;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                force(durableOffset, target);
+            } catch (IOException | UncheckedIOException ex) {
+                flushFailure = ex instanceof IOException io ? io : ((UncheckedIOException) ex).getCause();
+                log.error("Outbox fsync failed, rejecting further appends", ex);
+            }
+            lock.lock();
+            try {
+                if (flushFailure == null) {
+                    durableOffset = target;
+                }
+                flushed.signalAll();
+                if (flushFailure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void force(long from, long to) throws IOException {
+        for (Segment segment : segments.subMap(segments.floorKey(from), true, to, false).values()) {
+            int start = (int) Math.max(0, from - segment.base);
+            int end = (int) Math.min(segment.capacity(), to - segment.base);
+            if (end > start) {
+                segment.buffer.force(start, end - start);
+            }
+        }
+    }
+
+    private void roll() {
+        try {
+            active = Segment.create(directory, writeOffset, segmentSize);
+            segments.put(active.base, active);
+            syncDirectory();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("failed to create outbox segment at " + writeOffset, ex);
+        }
+    }
+
+    private void recover() throws IOException {
+        long committed = 0;
+        if (offsetChannel.size() >= Long.BYTES) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            offsetChannel.read(buffer, 0);
+            committed = buffer.getLong(0);
+        }
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            segments.put(segment.base, segment);
+        }
+        if (segments.isEmpty()) {
+            writeOffset = committed;
+            roll();
+        } else {
+            active = segments.lastEntry().getValue();
+            writeOffset = active.end();
+            // 마지막 세그먼트의 끊긴 레코드 조각이 다음 기록 뒤에 남아 레코드처럼 읽히지 않도록 지운다.
+            active.clearFrom(active.limit);
+        }
+        committed = Math.min(Math.max(committed, segments.firstKey()), writeOffset);
+        durableOffset = writeOffset;
+        committedOffset = committed;
+        for (Segment segment : segments.values()) {
+            if (segment != active && segment.end() <= committed) {
+                segments.remove(segment.base);
+                Files.deleteIfExists(segment.path);
+            }
+        }
+        if (writeOffset > committed) {
+            log.info("Outbox recovered {} unrelayed bytes in {} segment(s) under {}", writeOffset - committed,
+                    segments.size(), directory);
+        }
+    }
+
+    private void syncDirectory() {
+        // 새 세그먼트 파일 자체가 사라지지 않도록 디렉터리 엔트리도 fsync 한다. 지원하지 않는 OS 에서는 무시한다.
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * @param offset     레코드 시작 오프셋
+     * @param nextOffset 다음 레코드 시작 오프셋 (이 레코드까지 발행했을 때 커밋할 위치)
+     * @param data       레코드 바이트
+     */
+    public record Entry(long offset, long nextOffset, byte[] data) {
+    }
+
+    private static final class Segment {
+
+        private static final int PAGE_SIZE = 4096;
+
+        private final long base;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int limit;
+
+        private Segment(long base, Path path, MappedByteBuffer buffer, int limit) {
+            this.base = base;
+            this.path = path;
+            this.buffer = buffer;
+            this.limit = limit;
+        }
+
+        static Segment create(Path directory, long base, int size) throws IOException {
+            Path path = directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(base, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), 0);
+            }
+        }
+
+        static Segment open(Path path) throws IOException {
+            String name = path.getFileName().toString();
+            long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                return new Segment(base, path, buffer, scan(buffer, path));
+            }
+        }
+
+        /**
+         * @return 처음부터 이어지는 온전한 레코드의 끝 위치
+         */
+        private static int scan(MappedByteBuffer buffer, Path path) {
+            int position = 0;
+            CRC32C crc = new CRC32C();
+            while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER_SIZE) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.slice(position + RECORD_HEADER_SIZE, length));
+                if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                    log.warn("Outbox segment {} has a torn record at {}, ignoring the rest", path, position);
+                    break;
+                }
+                position += RECORD_HEADER_SIZE + length;
+            }
+            return position;
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        long end() {
+            return base + limit;
+        }
+
+        void write(byte[] record, int crc) {
+            buffer.putInt(limit, record.length);
+            buffer.putInt(limit + Integer.BYTES, crc);
+            buffer.put(limit + RECORD_HEADER_SIZE, record);
+            limit += RECORD_HEADER_SIZE + record.length;
+        }
+
+        byte[] read(int position) {
+            byte[] data = new byte[buffer.getInt(position)];
+            buffer.get(position + RECORD_HEADER_SIZE, data);
+            return data;
+        }
+
+        /**
+         * {@code position}부터 페이지 단위로 0 으로 채우다가, 이미 비어 있는 페이지를 만나면 멈춘다.
+         */
+        void clearFrom(int position) {
+            int start = position;
+            while (start < buffer.capacity()) {
+                int end = Math.min(buffer.capacity(), (start / PAGE_SIZE + 1) * PAGE_SIZE);
+                boolean dirty = false;
+                for (int i = start; i < end; i++) {
+                    if (buffer.get(i) != 0) {
+                        buffer.put(i, (byte) 0);
+                        dirty = true;
+                    }
+                }
+                if (!dirty && start != position) {
+                    return;
+                }
+                start = end;
+            }
+        }
+    }
+}
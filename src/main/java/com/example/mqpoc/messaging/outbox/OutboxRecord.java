@@ -0,0 +1,152 @@
+package com.example.mqpoc.messaging.outbox;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 아웃박스 로그에 기록하는 발행 한 건. 직렬화/압축이 끝난 AMQP 메시지를 그대로 담으므로 릴레이는 다시 변환하지 않는다.
+ * <p>
+ * 헤더 값은 String/Long/Integer/Boolean/Date 만 타입을 보존하고, 그 밖의 값은 문자열로 기록한다.
+ *
+ * @param serviceKey messaging.services.* 설정 키 (릴레이 confirm 지표 태그)
+ * @param exchange   발행 대상 exchange
+ * @param routingKey 발행 라우팅 키
+ * @param message    발행할 메시지
+ */
+public record OutboxRecord(
+        String serviceKey,
+        String exchange,
+        String routingKey,
+        Message message
+) {
+
+    private static final byte VERSION = 1;
+
+    public byte[] encode() {
+        MessageProperties properties = message.getMessageProperties();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.getBody().length + 256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(serviceKey);
+            out.writeUTF(exchange);
+            out.writeUTF(routingKey);
+            writeNullable(out, properties.getMessageId());
+            writeNullable(out, properties.getCorrelationId());
+            writeNullable(out, properties.getType());
+            writeNullable(out, properties.getAppId());
+            writeNullable(out, properties.getContentType());
+            writeNullable(out, properties.getContentEncoding());
+            out.writeLong(properties.getTimestamp() != null ? properties.getTimestamp().getTime() : -1);
+            out.writeBoolean(properties.getDeliveryMode() == MessageDeliveryMode.PERSISTENT);
+            out.writeInt(properties.getPriority() != null ? properties.getPriority() : -1);
+            Map<String, Object> headers = properties.getHeaders();
+            out.writeInt(headers.size());
+            for (Map.Entry<String, Object> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                writeValue(out, header.getValue());
+            }
+            out.writeInt(message.getBody().length);
+            out.write(message.getBody());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static OutboxRecord decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported outbox record version " + version);
+            }
+            String serviceKey = in.readUTF();
+            String exchange = in.readUTF();
+            String routingKey = in.readUTF();
+            MessageProperties properties = new MessageProperties();
+            properties.setMessageId(readNullable(in));
+            properties.setCorrelationId(readNullable(in));
+            properties.setType(readNullable(in));
+            properties.setAppId(readNullable(in));
+            properties.setContentType(readNullable(in));
+            properties.setContentEncoding(readNullable(in));
+            long timestamp = in.readLong();
+            if (timestamp >= 0) {
+                properties.setTimestamp(new Date(timestamp));
+            }
+            properties.setDeliveryMode(in.readBoolean() ? MessageDeliveryMode.PERSISTENT : MessageDeliveryMode.NON_PERSISTENT);
+            int priority = in.readInt();
+            if (priority >= 0) {
+                properties.setPriority(priority);
+            }
+            int headerCount = in.readInt();
+            for (int i = 0; i < headerCount; i++) {
+                properties.setHeader(in.readUTF(), readValue(in));
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new OutboxRecord(serviceKey, exchange, routingKey, new Message(body, properties));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte('N');
+            case Long l -> {
+                out.writeByte('L');
+                out.writeLong(l);
+            }
+            case Integer i -> {
+                out.writeByte('I');
+                out.writeInt(i);
+            }
+            case Boolean b -> {
+                out.writeByte('B');
+                out.writeBoolean(b);
+            }
+            case Date date -> {
+                out.writeByte('D');
+                out.writeLong(date.getTime());
+            }
+            default -> {
+                out.writeByte('S');
+                out.writeUTF(value.toString());
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case 'N' -> null;
+            case 'L' -> in.readLong();
+            case 'I' -> in.readInt();
+            case 'B' -> in.readBoolean();
+            case 'D' -> new Date(in.readLong());
+            case 'S' -> in.readUTF();
+            default -> throw new IOException("Unknown header value type " + type);
+        };
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.mqpoc.messaging.outbox;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.messaging.publisher.EventPublisher;
+import com.example.mqpoc.messaging.publisher.PublishFailedException;
+import com.example.mqpoc.messaging.publisher.PublishResult;
+import com.example.mqpoc.messaging.publisher.Republish;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link OutboxLog}를 커밋 위치부터 순서대로 읽어 브로커에 발행하는 백그라운드 릴레이.
+ * <ul>
+ *     <li>최대 {@code batchSize}개를 {@link EventPublisher#republishBatch(List)}로 파이프라이닝해 보내고 confirm 을 모두 기다린다.
+ *     messageId 는 기록 시점 값을 그대로 쓴다.</li>
+ *     <li>앞에서부터 연속으로 ACK 된 레코드까지만 커밋한다. 중간에 NACK/timeout/커넥션 오류가 나면 {@code retryBackoff} 뒤
+ *     그 위치부터 다시 보내므로, 실패 뒤에서 이미 ACK 된 레코드는 한 번 더 발행된다(at-least-once, 컨슈머 중복 제거로 흡수).</li>
+ *     <li>라우팅되지 않아 반송(return)된 레코드는 재시도해도 결과가 같으므로 로그를 남기고 건너뛴다.</li>
+ * </ul>
+ * 지표: {@code messaging.outbox.backlog}(미발행 바이트), {@code messaging.outbox.segments},
+ * {@code messaging.outbox.relayed}, {@code messaging.outbox.skipped}.
+ */
+public class OutboxRelay implements SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger("messaging.outbox");
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+    private final OutboxLog outboxLog;
+    private final EventPublisher publisher;
+    private final int batchSize;
+    private final long retryBackoffMillis;
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread relay;
+
+    public OutboxRelay(OutboxLog outboxLog, EventPublisher publisher, MessagingProperties.Outbox outbox) {
+        this.outboxLog = outboxLog;
+        this.publisher = publisher;
+        this.batchSize = outbox.batchSize();
+        this.retryBackoffMillis = outbox.retryBackoff().toMillis();
+    }
+
+    private void relayLoop() {
+        long position = outboxLog.committedOffset();
+        while (running) {
+            try {
+                List<OutboxLog.Entry> entries = outboxLog.read(position, batchSize, POLL_TIMEOUT);
+                if (entries.isEmpty()) {
+                    continue;
+                }
+                long next = relay(entries);
+                if (next > position) {
+                    outboxLog.commit(next);
+                    position = next;
+                }
+                if (next < entries.getLast().nextOffset()) {
+                    Thread.sleep(retryBackoffMillis);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Outbox relay failed at offset {}, retrying in {}ms", position, retryBackoffMillis, ex);
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * @return 커밋할 위치 (앞에서부터 연속으로 처리된 마지막 레코드의 다음 오프셋)
+     */
+    private long relay(List<OutboxLog.Entry> entries) {
+        List<Republish> batch = new ArrayList<>(entries.size());
+        for (OutboxLog.Entry entry : entries) {
+            OutboxRecord record = OutboxRecord.decode(entry.data());
+            batch.add(new Republish(record.serviceKey(), record.exchange(), record.routingKey(), record.message()));
+        }
+        List<CompletableFuture<PublishResult>> results;
+        try {
+            results = publisher.republishBatch(batch);
+        } catch (AmqpException ex) {
+            log.warn("Outbox relay could not publish {} record(s) from offset {}: {}", entries.size(),
+                    entries.getFirst().offset(), ex.getMessage());
+            return entries.getFirst().offset();
+        }
+
+        long committable = entries.getFirst().offset();
+        for (int i = 0; i < entries.size(); i++) {
+            Throwable failure = results.get(i).handle((result, ex) -> ex).join();
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            if (cause == null) {
+                relayed.incrementAndGet();
+            } else if (cause instanceof PublishFailedException publishFailed
+                    && publishFailed.getReason() == PublishFailedException.Reason.RETURNED) {
+                skipped.incrementAndGet();
+                log.warn("Outbox record at offset {} was unroutable, skipping: {}", entries.get(i).offset(),
+                        cause.getMessage());
+            } else {
+                log.warn("Outbox relay stopped at offset {}: {}", entries.get(i).offset(), cause.getMessage());
+                return committable;
+            }
+            committable = entries.get(i).nextOffset();
+        }
+        return committable;
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(retryBackoffMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        relay = Thread.ofPlatform().daemon().name("outbox-relay").start(this::relayLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (relay != null) {
+            try {
+                relay.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("messaging.outbox.backlog", outboxLog, OutboxLog::backlogBytes)
+                .description("Outbox bytes written but not yet relayed to the broker")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("messaging.outbox.segments", outboxLog, OutboxLog::segmentCount)
+                .description("Outbox segment files on disk")
+                .register(registry);
+        FunctionCounter.builder("messaging.outbox.relayed", relayed, AtomicLong::get)
+                .description("Outbox records confirmed by the broker")
+                .register(registry);
+        FunctionCounter.builder("messaging.outbox.skipped", skipped, AtomicLong::get)
+                .description("Outbox records returned as unroutable and skipped")
+                .register(registry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.mqpoc.messaging.pool;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 역할별 채널 풀 통계 조회. {@code GET /actuator/channelpools}
+ */
+@Component
+@Endpoint(id = "channelpools")
+public class ChannelPoolEndpoint {
+
+    private final ChannelPools channelPools;
+
+    public ChannelPoolEndpoint(ChannelPools channelPools) {
+        this.channelPools = channelPools;
+    }
+
+    @ReadOperation
+    public Map<String, ChannelPools.Stats> pools() {
+        return channelPools.stats();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.mqpoc.messaging.pool;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownSignalException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ChannelListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 커넥션 역할(publisher/consumer)별 채널 풀 통계.
+ * <ul>
+ *     <li>Boot 가 만든 {@link CachingConnectionFactory}(consumer)와 그 안의 발행 전용 팩토리(publisher)를 관찰만 한다.
+ *     {@code messaging.connections.*} 설정은 {@code RabbitConfig#configureChannelPools}가 적용한다.
+ *     분리하지 않으면 역할은 shared 하나다.</li>
+ *     <li>물리 채널 생성 수는 캐시 미스, 닫힘 수는 캐시가 가득 차 반환된 채널이 닫힌 churn 이다.
+ *     사용 중 채널은 열린 채널 - 유휴 채널이다.</li>
+ * </ul>
+ * 지표: {@code messaging.channel.open}, {@code messaging.channel.in.use}, {@code messaging.channel.created},
+ * {@code messaging.channel.closed}(role). 같은 내용을 {@code /actuator/channelpools}로도 조회할 수 있다.
+ */
+@Component
+public class ChannelPools implements MeterBinder {
+
+    private final Map<String, Pool> pools = new LinkedHashMap<>();
+
+    public ChannelPools(CachingConnectionFactory connectionFactory, MessagingProperties properties) {
+        MessagingProperties.Connections connections = properties.connections();
+        // 메인 팩토리의 리스너는 발행 전용 팩토리 채널에도 불리므로, 분리된 경우 발행 쪽을 따로 세어 뺀다.
+        ChannelCounter allChannels = new ChannelCounter();
+        connectionFactory.addChannelListener(allChannels);
+        if (connections.separatePublisher()
+                && connectionFactory.getPublisherConnectionFactory() instanceof CachingConnectionFactory publisherFactory) {
+            ChannelCounter publisherChannels = new ChannelCounter();
+            publisherFactory.addChannelListener(publisherChannels);
+            pools.put("publisher", new Pool(publisherFactory, connections.publisher(), publisherChannels, null));
+            pools.put("consumer", new Pool(connectionFactory, connections.consumer(), allChannels, publisherChannels));
+        } else {
+            pools.put("shared", new Pool(connectionFactory, connections.consumer(), allChannels, null));
+        }
+    }
+
+    /**
+     * @return 역할별 현재 통계 (publisher/consumer 또는 shared)
+     */
+    public Map<String, Stats> stats() {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        pools.forEach((role, pool) -> stats.put(role, pool.stats()));
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        pools.forEach((role, pool) -> {
+            Gauge.builder("messaging.channel.open", pool, Pool::open)
+                    .description("Physical channels currently open")
+                    .tag("role", role)
+                    .register(registry);
+            Gauge.builder("messaging.channel.in.use", pool, p -> Math.max(0, p.open() - p.idle()))
+                    .description("Channels checked out of the cache")
+                    .tag("role", role)
+                    .register(registry);
+            FunctionCounter.builder("messaging.channel.created", pool, Pool::created)
+                    .description("Physical channels created because the cache had no idle channel")
+                    .tag("role", role)
+                    .register(registry);
+            FunctionCounter.builder("messaging.channel.closed", pool, Pool::closed)
+                    .description("Physical channels closed, mostly returns to a full cache")
+                    .tag("role", role)
+                    .register(registry);
+        });
+    }
+
+    /**
+     * @param channelCacheSize       유휴 채널 보관 수
+     * @param channelCheckoutTimeout 채널 대기 제한(ms, 0 = 상한 없음)
+     * @param openChannels           열린 물리 채널 수
+     * @param idleChannels           캐시에 있는 유휴 채널 수
+     * @param channelsInUse          사용 중 채널 수
+     * @param cacheMisses            물리 채널 생성 수 (유휴 채널이 없어 새로 만든 횟수)
+     * @param channelsClosed         닫힌 물리 채널 수
+     */
+    public record Stats(
+            int channelCacheSize,
+            long channelCheckoutTimeout,
+            long openChannels,
+            long idleChannels,
+            long channelsInUse,
+            long cacheMisses,
+            long channelsClosed
+    ) {
+    }
+
+    private static final class Pool {
+
+        private static final Pattern IDLE_KEY = Pattern.compile("idleChannels(Not)?Tx(:.*)?");
+
+        private final CachingConnectionFactory factory;
+        private final long checkoutTimeoutMillis;
+        private final ChannelCounter channels;
+        /** 메인 팩토리의 리스너는 발행 팩토리 채널도 세므로, 분리된 경우 그만큼 뺀다. */
+        private final ChannelCounter excluded;
+
+        Pool(CachingConnectionFactory factory, MessagingProperties.Connections.Pool settings, ChannelCounter channels,
+             ChannelCounter excluded) {
+            this.factory = factory;
+            this.checkoutTimeoutMillis = settings.channelCheckoutTimeout().toMillis();
+            this.channels = channels;
+            this.excluded = excluded;
+        }
+
+        long created() {
+            return channels.created.sum() - (excluded != null ? excluded.created.sum() : 0);
+        }
+
+        long closed() {
+            return channels.closed.sum() - (excluded != null ? excluded.closed.sum() : 0);
+        }
+
+        long open() {
+            return Math.max(0, created() - closed());
+        }
+
+        long idle() {
+            long idle = 0;
+            Properties cache = factory.getCacheProperties();
+            // CHANNEL 모드는 idleChannelsTx, CONNECTION 모드는 커넥션마다 idleChannelsTx:<name> 형태다. HighWater 는 제외한다.
+            for (String key : cache.stringPropertyNames()) {
+                if (IDLE_KEY.matcher(key).matches()) {
+                    idle += Long.parseLong(cache.getProperty(key));
+                }
+            }
+            return idle;
+        }
+
+        Stats stats() {
+            long open = open();
+            long idle = idle();
+            return new Stats(factory.getChannelCacheSize(), checkoutTimeoutMillis, open, idle,
+                    Math.max(0, open - idle), created(), closed());
+        }
+    }
+
+    private static final class ChannelCounter implements ChannelListener {
+
+        private final LongAdder created = new LongAdder();
+        private final LongAdder closed = new LongAdder();
+
+        @Override
+        public void onCreate(Channel channel, boolean transactional) {
+            created.increment();
+            channel.addShutdownListener(cause -> closed.increment());
+        }
+
+        @Override
+        public void onShutDown(ShutdownSignalException signal) {
+        }
+    }
+}
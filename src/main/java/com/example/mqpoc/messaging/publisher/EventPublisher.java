@@ -1,39 +1,84 @@
 package com.example.mqpoc.messaging.publisher;
 
 import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.messaging.codec.MessageCompressor;
 import com.example.mqpoc.messaging.model.EventEnvelope;
 import com.example.mqpoc.messaging.model.EventMetadata;
+import com.example.mqpoc.messaging.model.EventPriority;
+import com.example.mqpoc.messaging.outbox.OutboxLog;
+import com.example.mqpoc.messaging.outbox.OutboxRecord;
+import com.example.mqpoc.messaging.shard.ShardRouter;
+import com.example.mqpoc.messaging.trace.EventTracer;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.MessageDeliveryMode;
-import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 
 @Component
 public class EventPublisher {
 
     private final RabbitTemplate rabbitTemplate;
     private final MessagingProperties properties;
+    private final PendingConfirms pendingConfirms;
+    private final EventTracer tracer;
+    private final MessageCompressor compressor;
+    private final PublishAdmission admission;
+    private final ShardRouter shardRouter;
+    private final OutboxLog outbox;
 
-    public EventPublisher(RabbitTemplate rabbitTemplate, MessagingProperties properties) {
+    public EventPublisher(
+            RabbitTemplate rabbitTemplate,
+            MessagingProperties properties,
+            PendingConfirms pendingConfirms,
+            EventTracer tracer,
+            MessageCompressor compressor,
+            PublishAdmission admission,
+            ShardRouter shardRouter,
+            ObjectProvider<OutboxLog> outbox
+    ) {
         this.rabbitTemplate = rabbitTemplate;
         this.properties = properties;
+        this.pendingConfirms = pendingConfirms;
+        this.tracer = tracer;
+        this.compressor = compressor;
+        this.admission = admission;
+        this.shardRouter = shardRouter;
+        this.outbox = outbox.getIfAvailable();
     }
 
     /**
      * 서비스별 exchange/prefix 규칙에 맞춰 이벤트를 발행한다.
      * <ul>
      *     <li>라우팅 키: {@code <prefix>.<eventName>} (예: {@code serviceA.order.created})</li>
-     *     <li>헤더: {@link #buildHeaders(String, String, String, MessagingProperties.Service, Instant)}에서 추적/라우팅용 헤더를 설정</li>
-     *     <li>바디: {@link #buildEnvelope(String, Object, MessagingProperties.Service, String, String, Instant)}에서 payload를 감싸고 메타데이터 생성</li>
-     *     <li>Confirm/Return: CorrelationData에 messageId를 넣어 confirm 로그에서 추적 가능</li>
+     *     <li>서비스가 샤딩되어 있으면 payload 의 {@code sharding.key} 값을 {@code x-shard-key} 헤더에 싣고, routing-key 전략이면
+     *     라우팅 키 끝에 샤드 번호를 붙인다 (예: {@code serviceA.order.created.3}). 자세한 규칙은 {@link ShardRouter}.
+     *     컨슈머 레인({@code consumer.lanes})이 켜져 있으면 {@code lanes.key}(없으면 {@code sharding.key}) 값을
+     *     {@code lanes.key-header}에 싣는다.</li>
+     *     <li>헤더: {@link #buildProperties(String, String, String, MessagingProperties.Service, EventPriority, Instant)}에서 추적/라우팅용 헤더를 설정</li>
+     *     <li>바디: {@link #buildEnvelope(String, Object, MessagingProperties.Service, String, String, EventPriority, Instant)}에서 payload를 감싸고 메타데이터 생성.
+     *     서비스 {@code encoding.format}(json/cbor/smile)으로 변환한 뒤, {@code encoding.compression-threshold} 이상이면 압축</li>
+     *     <li>Confirm/Return: CorrelationData에 messageId를 넣어 confirm 추적 로그({@link EventTracer})에서 추적 가능</li>
+     *     <li>{@code messaging.outbox.enabled=true}이면 브로커 대신 로컬 아웃박스 로그에 기록하고, fsync 가 끝나면 반환한다.
+     *     브로커 발행은 {@code OutboxRelay}가 이어서 하므로 호출 지연은 브로커 상태와 무관하다. 아웃박스가 가득 차면
+     *     {@link PublishFailedException.Reason#REJECTED}로 실패한다.</li>
+     *     <li>브로커로 바로 보낼 때는 {@link PublishAdmission}이 먼저 수락 여부를 정하며, 거절되면 메시지를 만들지 않고
+     *     {@link PublishRejectedException}을 던진다.</li>
      * </ul>
      * 사용 예:
      * <pre>{@code
@@ -50,8 +95,234 @@ public class EventPublisher {
      * @param <T>        페이로드 타입
      */
     public <T> void publish(String serviceKey, String eventName, T payload, String traceId) {
+        publish(serviceKey, eventName, payload, traceId, null);
+    }
+
+    /**
+     * {@link #publish(String, String, Object, String)}에 우선순위를 지정한다.
+     *
+     * @param priority null 이면 서비스 {@code priority.events} 설정값, 그것도 없으면 normal
+     */
+    public <T> void publish(String serviceKey, String eventName, T payload, String traceId, EventPriority priority) {
+        MessagingProperties.Service service = resolveService(serviceKey);
+        if (outbox != null) {
+            Outbound outbound = prepare(serviceKey, service, eventName, payload, traceId, priority);
+            byte[] record = new OutboxRecord(serviceKey, service.exchange(), outbound.routingKey(), outbound.message()).encode();
+            if (!outbox.append(record)) {
+                throw new PublishFailedException(outbound.messageId(), PublishFailedException.Reason.REJECTED,
+                        "outbox backlog exceeded " + properties.outbox().maxSize());
+            }
+            return;
+        }
+        admission.acquire(serviceKey);
+        CorrelationData correlationData;
+        try {
+            Outbound outbound = prepare(serviceKey, service, eventName, payload, traceId, priority);
+            correlationData = new PublishCorrelation(outbound.messageId(), serviceKey, eventName);
+            rabbitTemplate.send(service.exchange(), outbound.routingKey(), outbound.message(), correlationData);
+        } catch (RuntimeException ex) {
+            admission.release(serviceKey);
+            throw ex;
+        }
+        admission.releaseOnConfirm(serviceKey, correlationData);
+    }
+
+    /**
+     * {@link #publish(String, String, Object, String)}와 동일하게 발행하되, 브로커 confirm 결과를 future 로 돌려준다.
+     * <ul>
+     *     <li>호출 스레드는 전송까지만 수행하고 confirm 을 기다리지 않는다. future 는 AMQP 커넥션 스레드에서 완료된다.</li>
+     *     <li>ACK 시 {@link PublishResult}로 완료되고, NACK/return/timeout 또는 미확정 테이블 포화 시
+     *     {@link PublishFailedException}으로 실패한다. 자세한 규칙은 {@link PendingConfirms} 참고.</li>
+     *     <li>전송 자체가 실패하면(커넥션 오류, post processor 예외 등) 예외를 던지지 않고 실패한 future 를 반환한다.</li>
+     *     <li>{@link PublishAdmission}이 거절하면 메시지를 만들지 않고 {@link PublishRejectedException}으로 실패한 future 를 반환한다.</li>
+     * </ul>
+     *
+     * @param serviceKey messaging.services.* 설정 키 (예: serviceA, serviceB)
+     * @param eventName  라우팅 키에 붙을 이벤트 이름 (prefix 제외)
+     * @param payload    전송할 페이로드 객체/맵
+     * @param traceId    null이면 신규 생성
+     * @param <T>        페이로드 타입
+     * @return confirm 결과 future
+     */
+    public <T> CompletableFuture<PublishResult> publishAsync(String serviceKey, String eventName, T payload, String traceId) {
+        return publishAsync(serviceKey, eventName, payload, traceId, null);
+    }
+
+    /**
+     * {@link #publishAsync(String, String, Object, String)}에 우선순위를 지정한다.
+     *
+     * @param priority null 이면 서비스 {@code priority.events} 설정값, 그것도 없으면 normal
+     */
+    public <T> CompletableFuture<PublishResult> publishAsync(String serviceKey, String eventName, T payload, String traceId,
+                                                             EventPriority priority) {
+        MessagingProperties.Service service = resolveService(serviceKey);
+        try {
+            admission.acquire(serviceKey);
+        } catch (PublishRejectedException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        Outbound outbound;
+        CorrelationData correlationData;
+        CompletableFuture<PublishResult> result;
+        try {
+            outbound = prepare(serviceKey, service, eventName, payload, traceId, priority);
+            correlationData = new PublishCorrelation(outbound.messageId(), serviceKey, eventName);
+            result = pendingConfirms.register(correlationData, outbound.toResult(service));
+        } catch (RuntimeException ex) {
+            admission.release(serviceKey);
+            throw ex;
+        }
+        admission.releaseOnComplete(serviceKey, result);
+        if (result.isDone()) {
+            return result;
+        }
+        try {
+            rabbitTemplate.send(service.exchange(), outbound.routingKey(), outbound.message(), correlationData);
+        } catch (RuntimeException ex) {
+            // 커넥션 오류뿐 아니라 post processor 실패도 confirm timeout 까지 미확정 슬롯을 잡고 있지 않게 바로 끝낸다.
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    /**
+     * 여러 이벤트를 하나의 채널에서 파이프라이닝해 발행한다.
+     * <ul>
+     *     <li>{@link RabbitTemplate#invoke}로 채널을 고정하고, confirm 을 기다리지 않고 연속으로 전송한다.</li>
+     *     <li>미확정(in-flight) 메시지 수는 {@code messaging.publisher.max-in-flight}로 제한되며, 한도에 닿으면
+     *     앞선 confirm 이 도착할 때까지 호출 스레드가 대기한다.</li>
+     *     <li>반환된 future 의 완료/실패 규칙은 {@link #publishAsync(String, String, Object, String)}와 같다.
+     *     한 건의 변환/전송이 실패해도 그 건의 future 만 실패하고 나머지는 계속 보낸다.</li>
+     *     <li>배치 건수는 서비스 in-flight 에 더해지지만 {@code admission.max-in-flight}로 거절되지는 않는다 (흐름은 위 제한이 맡는다).
+     *     브로커가 막혀 있으면 해당 이벤트부터 {@link PublishRejectedException}으로 실패한다.</li>
+     * </ul>
+     * 사용 예:
+     * <pre>{@code
+     * List<CompletableFuture<PublishResult>> results = publisher.publishBatch("serviceA", List.of(
+     *         OutgoingEvent.of("order.created", order1),
+     *         OutgoingEvent.of("order.created", order2)));
+     * CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+     * }</pre>
+     *
+     * @param serviceKey messaging.services.* 설정 키 (예: serviceA, serviceB)
+     * @param events     발행할 이벤트 목록 (순서대로 전송)
+     * @return 입력 순서와 동일한 메시지별 confirm future 목록
+     */
+    public List<CompletableFuture<PublishResult>> publishBatch(String serviceKey, List<? extends OutgoingEvent<?>> events) {
+        MessagingProperties.Service service = resolveService(serviceKey);
+        Semaphore inFlight = new Semaphore(properties.publisher().maxInFlight());
+        List<CompletableFuture<PublishResult>> results = new ArrayList<>(events.size());
+
+        rabbitTemplate.invoke(operations -> {
+            for (OutgoingEvent<?> event : events) {
+                results.add(sendPermitted(inFlight, () -> {
+                    admission.acquireUnbounded(serviceKey);
+                    Outbound outbound;
+                    CorrelationData correlationData;
+                    CompletableFuture<PublishResult> result;
+                    try {
+                        outbound = prepare(serviceKey, service, event.eventName(), event.payload(), event.traceId(),
+                                event.priority());
+                        correlationData = new PublishCorrelation(outbound.messageId(), serviceKey, event.eventName());
+                        result = pendingConfirms.register(correlationData, outbound.toResult(service));
+                    } catch (RuntimeException ex) {
+                        admission.release(serviceKey);
+                        throw ex;
+                    }
+                    admission.releaseOnComplete(serviceKey, result);
+                    send(operations, service.exchange(), outbound.routingKey(), outbound.message(), correlationData, result);
+                    return result;
+                }));
+            }
+            return null;
+        });
+        return results;
+    }
+
+    /**
+     * 이미 직렬화된 메시지를 바디/속성 그대로 다시 발행한다. DLQ 재처리처럼 원본 messageId 를 보존해야 할 때 쓴다.
+     * 채널 고정, in-flight 제한, 반환 future 규칙은 {@link #publishBatch(String, List)}와 같다.
+     *
+     * @param messages 재발행 대상 (순서대로 전송)
+     * @return 입력 순서와 동일한 메시지별 confirm future 목록
+     */
+    public List<CompletableFuture<PublishResult>> republishBatch(List<Republish> messages) {
+        Semaphore inFlight = new Semaphore(properties.publisher().maxInFlight());
+        List<CompletableFuture<PublishResult>> results = new ArrayList<>(messages.size());
+
+        rabbitTemplate.invoke(operations -> {
+            for (Republish republish : messages) {
+                results.add(sendPermitted(inFlight, () -> {
+                    MessageProperties messageProperties = republish.message().getMessageProperties();
+                    String messageId = messageProperties.getMessageId() != null
+                            ? messageProperties.getMessageId() : UUID.randomUUID().toString();
+                    CorrelationData correlationData = republish.serviceKey() != null
+                            ? new PublishCorrelation(messageId, republish.serviceKey(), messageProperties.getType())
+                            : new CorrelationData(messageId);
+                    CompletableFuture<PublishResult> result = pendingConfirms.register(correlationData, new PublishResult(
+                            messageId, messageProperties.getCorrelationId(), republish.exchange(), republish.routingKey()));
+                    send(operations, republish.exchange(), republish.routingKey(), republish.message(), correlationData,
+                            result);
+                    return result;
+                }));
+            }
+            return null;
+        });
+        return results;
+    }
+
+    /**
+     * 배치의 한 건을 in-flight 허가를 받은 뒤 보낸다. 허가 대기/메시지 준비/등록 중 어디서 실패해도 예외를 던지지 않고
+     * 실패한 future 를 돌려주므로, 앞서 등록한 future 는 호출자에게 그대로 전달되고 나머지 건도 계속 보낸다.
+     * 허가는 반환 future 가 끝날 때(준비 중 실패면 즉시) 반납한다.
+     */
+    private static CompletableFuture<PublishResult> sendPermitted(Semaphore inFlight,
+                                                                  Supplier<CompletableFuture<PublishResult>> send) {
+        try {
+            acquire(inFlight);
+        } catch (AmqpException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        CompletableFuture<PublishResult> result;
+        try {
+            result = send.get();
+        } catch (RuntimeException ex) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(ex);
+        }
+        result.whenComplete((ignored, ex) -> inFlight.release());
+        return result;
+    }
+
+    /**
+     * 등록만 하고 이미 끝난(테이블 포화 등) 건은 보내지 않는다. 전송 실패는 해당 future 의 실패로 넘긴다.
+     */
+    private static void send(RabbitOperations operations, String exchange, String routingKey, Message message,
+                             CorrelationData correlationData, CompletableFuture<PublishResult> result) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            operations.send(exchange, routingKey, message, correlationData);
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private MessagingProperties.Service resolveService(String serviceKey) {
         MessagingProperties.Service service = properties.services().get(serviceKey);
         Assert.notNull(service, "Unknown service key: " + serviceKey);
+        return service;
+    }
+
+    private <T> Outbound prepare(
+            String serviceKey,
+            MessagingProperties.Service service,
+            String eventName,
+            T payload,
+            String traceId,
+            EventPriority requestedPriority
+    ) {
         Assert.hasText(eventName, "eventName must not be blank");
         String routingKey = service.prefix() + "." + eventName;
 
@@ -59,20 +330,44 @@ public class EventPublisher {
         String resolvedTraceId = StringUtils.hasText(traceId) ? traceId : UUID.randomUUID().toString();
         Instant now = Instant.now();
 
-        MessagePostProcessor headers = buildHeaders(messageId, resolvedTraceId, eventName, service, now);
-        EventEnvelope<T> envelope = buildEnvelope(eventName, payload, service, messageId, resolvedTraceId, now);
+        EventPriority priority = service.priority().resolve(eventName, requestedPriority);
 
-        System.out.printf("Publish: service=%s exchange=%s routingKey=%s eventType=%s messageId=%s traceId=%s%n",
-                serviceKey, service.exchange(), routingKey, eventName, messageId, resolvedTraceId);
+        MessageProperties messageProperties = buildProperties(messageId, resolvedTraceId, eventName, service, priority, now);
+        MessagingProperties.Sharding sharding = service.sharding();
+        if (sharding.enabled()) {
+            String shardKey = shardRouter.shardKey(sharding.key(), payload, messageId);
+            routingKey = shardRouter.routingKey(sharding, routingKey, shardKey);
+            messageProperties.setHeader(ShardRouter.SHARD_KEY_HEADER, shardKey);
+        }
+        MessagingProperties.Lanes lanes = service.consumer().lanes();
+        String laneKey = lanes.key() != null ? lanes.key() : sharding.key();
+        if (lanes.enabled() && laneKey != null) {
+            messageProperties.setHeader(lanes.keyHeader(), shardRouter.shardKey(laneKey, payload, messageId));
+        }
+        EventEnvelope<T> envelope = buildEnvelope(eventName, payload, service, messageId, resolvedTraceId, priority, now);
+        Message message = compressor.compress(
+                rabbitTemplate.getMessageConverter().toMessage(envelope, messageProperties), service.encoding());
 
-        rabbitTemplate.convertAndSend(service.exchange(), routingKey, envelope, headers, new CorrelationData(messageId));
+        tracer.publish(serviceKey, service.exchange(), routingKey, eventName, messageId, resolvedTraceId);
+        return new Outbound(messageId, resolvedTraceId, routingKey, message);
+    }
+
+    private static void acquire(Semaphore inFlight) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for publisher confirms", ex);
+        }
     }
 
     /**
-     * AMQP 프로퍼티/헤더를 설정하는 {@link MessagePostProcessor}를 생성한다.
+     * 변환 전에 AMQP 프로퍼티/헤더를 채운 {@link MessageProperties}를 생성한다.
      * <ul>
      *     <li>{@code messageId}, {@code correlationId(traceId)}, {@code type(eventName)}, {@code appId(sourceService)}</li>
-     *     <li>{@code timestamp}, {@code content-type=json}, {@code content-encoding=utf-8}, {@code deliveryMode=PERSISTENT}</li>
+     *     <li>{@code timestamp}, {@code deliveryMode=PERSISTENT}, {@code priority}({@link EventPriority#amqpPriority()})</li>
+     *     <li>{@code content-type}: 서비스 {@code encoding.format}. 컨버터가 이 값을 보고 형식을 고르며,
+     *     content-encoding 은 컨버터/압축 단계에서 정해진다.</li>
      *     <li>커스텀 헤더: {@code traceId}, {@code schema-version}</li>
      * </ul>
      *
@@ -80,30 +375,30 @@ public class EventPublisher {
      * @param traceId   추적/상관 ID
      * @param eventName 이벤트명(헤더 type)
      * @param service   서비스 설정(sourceService, schemaVersion 등)
+     * @param priority  이벤트 우선순위
      * @param timestamp 헤더 timestamp 설정에 사용될 시각
-     * @return 헤더를 설정하는 MessagePostProcessor
+     * @return 변환에 넘길 메시지 프로퍼티
      */
-    private MessagePostProcessor buildHeaders(
+    private MessageProperties buildProperties(
             String messageId,
             String traceId,
             String eventName,
             MessagingProperties.Service service,
+            EventPriority priority,
             Instant timestamp
     ) {
-        return message -> {
-            MessageProperties mp = message.getMessageProperties();
-            mp.setMessageId(messageId);
-            mp.setCorrelationId(traceId);
-            mp.setType(eventName);
-            mp.setAppId(service.sourceService());
-            mp.setTimestamp(Date.from(timestamp));
-            mp.setContentType(MessageProperties.CONTENT_TYPE_JSON);
-            mp.setContentEncoding("utf-8");
-            mp.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
-            mp.setHeader("traceId", traceId);
-            mp.setHeader("schema-version", service.schemaVersion());
-            return message;
-        };
+        MessageProperties mp = new MessageProperties();
+        mp.setMessageId(messageId);
+        mp.setCorrelationId(traceId);
+        mp.setType(eventName);
+        mp.setAppId(service.sourceService());
+        mp.setTimestamp(Date.from(timestamp));
+        mp.setContentType(service.encoding().format().contentType());
+        mp.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        mp.setPriority(priority.amqpPriority());
+        mp.setHeader("traceId", traceId);
+        mp.setHeader("schema-version", service.schemaVersion());
+        return mp;
     }
 
     /**
@@ -111,7 +406,7 @@ public class EventPublisher {
      * <ul>
      *     <li>{@code eventType} = eventName</li>
      *     <li>{@code occurredAt}/{@code publishedAt} = timestamp</li>
-     *     <li>{@code metadata}: messageId/traceId/sourceService/schemaVersion, priority=normal, sensitivity=internal</li>
+     *     <li>{@code metadata}: messageId/traceId/sourceService/schemaVersion, priority(등급 이름), sensitivity=internal</li>
      * </ul>
      *
      * @param eventName 라우팅 키에 붙는 이벤트명 (prefix 제외)
@@ -119,6 +414,7 @@ public class EventPublisher {
      * @param service   서비스별 설정 (prefix/sourceService/schemaVersion 등)
      * @param messageId 메시지 식별자(멱등/추적용)
      * @param traceId   추적용 ID (correlationId와 동일하게 사용)
+     * @param priority  이벤트 우선순위
      * @param timestamp 발생/발행 시각
      * @param <T>       페이로드 타입
      * @return 조립된 이벤트 래퍼
@@ -129,6 +425,7 @@ public class EventPublisher {
             MessagingProperties.Service service,
             String messageId,
             String traceId,
+            EventPriority priority,
             Instant timestamp
     ) {
         EventEnvelope<T> envelope = new EventEnvelope<>();
@@ -142,9 +439,21 @@ public class EventPublisher {
         metadata.setTraceId(traceId);
         metadata.setSourceService(service.sourceService());
         metadata.setSchemaVersion(service.schemaVersion());
-        metadata.setPriority("normal");
+        metadata.setPriority(priority.value());
         metadata.setSensitivity("internal");
         envelope.setMetadata(metadata);
         return envelope;
     }
+
+    private record Outbound(
+            String messageId,
+            String traceId,
+            String routingKey,
+            Message message
+    ) {
+
+        PublishResult toResult(MessagingProperties.Service service) {
+            return new PublishResult(messageId, traceId, service.exchange(), routingKey);
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.mqpoc.messaging.publisher;
+
+import com.example.mqpoc.messaging.model.EventPriority;
+
+/**
+ * 배치 발행 단위. {@link EventPublisher#publishBatch(String, java.util.List)} 에 넘긴다.
+ *
+ * @param eventName 라우팅 키에 붙을 이벤트 이름 (prefix 제외)
+ * @param payload   전송할 페이로드 객체/맵
+ * @param traceId   null이면 신규 생성
+ * @param priority  null이면 서비스 {@code priority.events} 설정값, 그것도 없으면 normal
+ * @param <T>       페이로드 타입
+ */
+public record OutgoingEvent<T>(
+        String eventName,
+        T payload,
+        String traceId,
+        EventPriority priority
+) {
+
+    public OutgoingEvent(String eventName, T payload, String traceId) {
+        this(eventName, payload, traceId, null);
+    }
+
+    public static <T> OutgoingEvent<T> of(String eventName, T payload) {
+        return new OutgoingEvent<>(eventName, payload, null);
+    }
+}
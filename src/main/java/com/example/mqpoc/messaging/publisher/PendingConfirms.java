@@ -0,0 +1,86 @@
+package com.example.mqpoc.messaging.publisher;
+
+import com.example.mqpoc.config.MessagingProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 아직 브로커 confirm 을 받지 못한 발행 건의 confirm future 를 만들고 건수를 제한한다.
+ * <ul>
+ *     <li>{@link CorrelationData#getFuture()}를 {@link PublishResult} future 로 변환해 등록한다.</li>
+ *     <li>미확정 건수는 {@code messaging.publisher.max-pending-confirms}로 제한되며, 가득 차면 등록 즉시
+ *     {@link PublishFailedException.Reason#REJECTED}로 실패한다.</li>
+ *     <li>{@code messaging.publisher.confirm-timeout} 안에 confirm 이 오지 않으면
+ *     {@link PublishFailedException.Reason#TIMEOUT}으로 실패하고 건수에서 빠진다.</li>
+ * </ul>
+ */
+@Component
+public class PendingConfirms {
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final long timeoutMillis;
+
+    public PendingConfirms(MessagingProperties properties) {
+        this.capacity = properties.publisher().maxPendingConfirms();
+        this.timeoutMillis = properties.publisher().confirmTimeout().toMillis();
+    }
+
+    /**
+     * 발행 직전에 호출해 confirm 결과 future 를 등록한다. 반환 future 가 완료되면 건수에서 빠진다.
+     *
+     * @param correlationData 발행에 사용할 CorrelationData (id = messageId)
+     * @param result          ACK 시 돌려줄 발행 결과
+     * @return ACK 시 완료, NACK/return/timeout/rejected 시 {@link PublishFailedException}으로 실패하는 future
+     */
+    public CompletableFuture<PublishResult> register(CorrelationData correlationData, PublishResult result) {
+        String messageId = result.messageId();
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return CompletableFuture.failedFuture(new PublishFailedException(messageId,
+                    PublishFailedException.Reason.REJECTED, "pending confirms exceeded " + capacity));
+        }
+        CompletableFuture<PublishResult> future = correlationData.getFuture()
+                .thenApply(confirm -> {
+                    if (!confirm.ack()) {
+                        throw new PublishFailedException(messageId, PublishFailedException.Reason.NACKED, confirm.reason());
+                    }
+                    // correlated confirm 모드에서는 return 이 ACK 보다 먼저 CorrelationData 에 기록된다.
+                    ReturnedMessage returned = correlationData.getReturned();
+                    if (returned != null) {
+                        throw new PublishFailedException(messageId, PublishFailedException.Reason.RETURNED,
+                                returned.getReplyCode() + " " + returned.getReplyText());
+                    }
+                    return result;
+                })
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof TimeoutException) {
+                        throw new PublishFailedException(messageId, PublishFailedException.Reason.TIMEOUT,
+                                "no confirm within " + timeoutMillis + "ms");
+                    }
+                    throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+                });
+        future.whenComplete((ignored, ex) -> size.decrementAndGet());
+        return future;
+    }
+
+    /**
+     * 현재 confirm 을 기다리는 발행 건 수.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
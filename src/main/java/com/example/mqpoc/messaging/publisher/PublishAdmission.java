@@ -0,0 +1,177 @@
+package com.example.mqpoc.messaging.publisher;
+
+import com.example.mqpoc.config.MessagingProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 브로커 발행 수락 제어. {@link EventPublisher}가 전송 전에 호출한다.
+ * <ul>
+ *     <li>서비스별로 confirm 을 기다리는 발행 건 수를 센다. confirm 이 느려지면 이 수가 늘어나므로 confirm 지연이 곧 한도로 이어진다.
+ *     {@code services.*.admission.max-in-flight}에 닿으면 {@link PublishRejectedException.Reason#SATURATED}로 거절한다.</li>
+ *     <li>브로커가 connection.blocked(메모리/디스크 알람)를 보내면 unblocked 까지 모든 서비스의 발행을
+ *     {@link PublishRejectedException.Reason#BLOCKED}로 거절한다. 막힌 채널에 보내면 전송 스레드가 멈추기 때문이다.</li>
+ *     <li>건수는 confirm(ACK/NACK) 또는 {@code messaging.publisher.confirm-timeout} 중 먼저 오는 시점에 돌려준다.</li>
+ * </ul>
+ * 지표: {@code messaging.publish.inflight}(service), {@code messaging.publish.rejected}(service, reason).
+ */
+@Component
+public class PublishAdmission implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PublishAdmission.class);
+
+    private final Map<String, Limit> limits = new HashMap<>();
+    private final Map<Connection, String> blockedConnections = new ConcurrentHashMap<>();
+    private final long confirmTimeoutMillis;
+
+    public PublishAdmission(MessagingProperties properties) {
+        properties.services().forEach((serviceKey, service) -> limits.put(serviceKey, new Limit(service.admission())));
+        this.confirmTimeoutMillis = properties.publisher().confirmTimeout().toMillis();
+    }
+
+    /**
+     * 발행 한 건을 수락하고 in-flight 건수를 하나 늘린다. 수락되면 반드시 {@link #releaseOnConfirm} 또는
+     * {@link #release}로 돌려줘야 한다.
+     *
+     * @throws PublishRejectedException 브로커가 막혀 있거나 서비스 한도에 닿은 경우
+     */
+    public void acquire(String serviceKey) {
+        Limit limit = limit(serviceKey);
+        checkNotBlocked(serviceKey, limit);
+        if (!limit.tryAcquire()) {
+            limit.saturated.incrementAndGet();
+            throw new PublishRejectedException(serviceKey, PublishRejectedException.Reason.SATURATED, limit.retryAfter,
+                    limit.inFlight.get() + " publishes awaiting confirm");
+        }
+    }
+
+    /**
+     * 한도와 상관없이 in-flight 건수만 늘린다. 배치 발행처럼 호출 측이 따로 흐름을 제어하는 경우에 쓰며,
+     * 늘어난 건수는 이후 {@link #acquire}에 반영된다. 브로커가 막혀 있으면 거절한다.
+     */
+    public void acquireUnbounded(String serviceKey) {
+        Limit limit = limit(serviceKey);
+        checkNotBlocked(serviceKey, limit);
+        limit.inFlight.incrementAndGet();
+    }
+
+    /**
+     * confirm 결과가 오거나 confirm-timeout 이 지나면 건수를 돌려준다. 전송이 성공한 뒤에 호출한다.
+     */
+    public void releaseOnConfirm(String serviceKey, CorrelationData correlationData) {
+        releaseOnComplete(serviceKey, correlationData.getFuture().copy().orTimeout(confirmTimeoutMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * {@code future}가 어떤 식으로든 끝나면 건수를 돌려준다.
+     */
+    public void releaseOnComplete(String serviceKey, CompletableFuture<?> future) {
+        future.whenComplete((ignored, ex) -> release(serviceKey));
+    }
+
+    /**
+     * 전송하지 못한 발행의 건수를 바로 돌려준다.
+     */
+    public void release(String serviceKey) {
+        limit(serviceKey).inFlight.decrementAndGet();
+    }
+
+    public boolean isBlocked() {
+        return !blockedConnections.isEmpty();
+    }
+
+    @EventListener
+    public void onBlocked(ConnectionBlockedEvent event) {
+        blockedConnections.put(event.getConnection(), event.getReason());
+        log.warn("Broker blocked publishing on {}: {}", event.getConnection(), event.getReason());
+    }
+
+    @EventListener
+    public void onUnblocked(ConnectionUnblockedEvent event) {
+        if (blockedConnections.remove(event.getConnection()) != null) {
+            log.info("Broker unblocked publishing on {}", event.getConnection());
+        }
+    }
+
+    private void checkNotBlocked(String serviceKey, Limit limit) {
+        if (blockedConnections.isEmpty()) {
+            return;
+        }
+        // unblocked 없이 닫힌 커넥션이 차단 상태로 남지 않게 한다.
+        blockedConnections.keySet().removeIf(connection -> !connection.isOpen());
+        String reason = blockedConnections.values().stream().findFirst().orElse(null);
+        if (reason != null) {
+            limit.blocked.incrementAndGet();
+            throw new PublishRejectedException(serviceKey, PublishRejectedException.Reason.BLOCKED, limit.retryAfter, reason);
+        }
+    }
+
+    private Limit limit(String serviceKey) {
+        Limit limit = limits.get(serviceKey);
+        Assert.notNull(limit, "Unknown service key: " + serviceKey);
+        return limit;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        limits.forEach((serviceKey, limit) -> {
+            Gauge.builder("messaging.publish.inflight", limit.inFlight, AtomicInteger::get)
+                    .description("Publishes awaiting a broker confirm")
+                    .tag("service", serviceKey)
+                    .register(registry);
+            FunctionCounter.builder("messaging.publish.rejected", limit.saturated, AtomicLong::get)
+                    .description("Publishes rejected by admission control before sending")
+                    .tags("service", serviceKey, "reason", "saturated")
+                    .register(registry);
+            FunctionCounter.builder("messaging.publish.rejected", limit.blocked, AtomicLong::get)
+                    .description("Publishes rejected by admission control before sending")
+                    .tags("service", serviceKey, "reason", "blocked")
+                    .register(registry);
+        });
+    }
+
+    private static final class Limit {
+
+        private final int maxInFlight;
+        private final Duration retryAfter;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong saturated = new AtomicLong();
+        private final AtomicLong blocked = new AtomicLong();
+
+        Limit(MessagingProperties.Admission admission) {
+            this.maxInFlight = admission.maxInFlight() > 0 ? admission.maxInFlight() : Integer.MAX_VALUE;
+            this.retryAfter = admission.retryAfter();
+        }
+
+        boolean tryAcquire() {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= maxInFlight) {
+                    return false;
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+            return true;
+        }
+    }
+}
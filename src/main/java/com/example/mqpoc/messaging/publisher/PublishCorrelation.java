@@ -0,0 +1,33 @@
+package com.example.mqpoc.messaging.publisher;
+
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+
+/**
+ * 발행 시각과 지표 태그를 함께 들고 다니는 {@link CorrelationData}.
+ * confirm 콜백에서 별도 조회 테이블 없이 publish → confirm 지연을 계산하는 데 쓴다.
+ */
+public class PublishCorrelation extends CorrelationData {
+
+    private final String serviceKey;
+    private final String eventType;
+    private final long startNanos;
+
+    public PublishCorrelation(String messageId, String serviceKey, String eventType) {
+        super(messageId);
+        this.serviceKey = serviceKey;
+        this.eventType = eventType;
+        this.startNanos = System.nanoTime();
+    }
+
+    public String getServiceKey() {
+        return serviceKey;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+}
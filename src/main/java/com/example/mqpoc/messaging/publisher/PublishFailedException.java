@@ -0,0 +1,37 @@
+package com.example.mqpoc.messaging.publisher;
+
+import org.springframework.amqp.AmqpException;
+
+/**
+ * 브로커가 메시지를 확정하지 않았을 때 발행 future 를 실패시키는 예외.
+ */
+public class PublishFailedException extends AmqpException {
+
+    public enum Reason {
+        /** 브로커가 basic.nack 으로 거부 */
+        NACKED,
+        /** mandatory 발행이 라우팅되지 않아 basic.return 으로 반송 */
+        RETURNED,
+        /** confirm-timeout 안에 confirm 이 도착하지 않음 */
+        TIMEOUT,
+        /** 미확정 confirm 테이블 또는 아웃박스가 가득 차 발행을 시도하지 않음 */
+        REJECTED
+    }
+
+    private final String messageId;
+    private final Reason reason;
+
+    public PublishFailedException(String messageId, Reason reason, String detail) {
+        super("Publish failed: messageId=" + messageId + " reason=" + reason + " detail=" + detail);
+        this.messageId = messageId;
+        this.reason = reason;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.mqpoc.messaging.publisher;
+
+import org.springframework.amqp.AmqpException;
+
+import java.time.Duration;
+
+/**
+ * 수락 제어({@link PublishAdmission})가 발행을 시도하기 전에 거절했을 때의 예외. 메시지는 만들어지지 않았으므로 messageId 가 없다.
+ */
+public class PublishRejectedException extends AmqpException {
+
+    public enum Reason {
+        /** 서비스의 confirm 대기 발행 건이 {@code admission.max-in-flight}에 닿음 */
+        SATURATED,
+        /** 브로커가 connection.blocked 로 발행을 막고 있음 (메모리/디스크 알람) */
+        BLOCKED
+    }
+
+    private final String serviceKey;
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public PublishRejectedException(String serviceKey, Reason reason, Duration retryAfter, String detail) {
+        super("Publish rejected: service=" + serviceKey + " reason=" + reason + " detail=" + detail);
+        this.serviceKey = serviceKey;
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getServiceKey() {
+        return serviceKey;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return 클라이언트가 다시 시도하기 전 기다릴 시간
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
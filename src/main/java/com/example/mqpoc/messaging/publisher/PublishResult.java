@@ -0,0 +1,17 @@
+package com.example.mqpoc.messaging.publisher;
+
+/**
+ * 브로커 ACK 로 확정된 발행 결과.
+ *
+ * @param messageId  발행된 메시지 ID (CorrelationData id 와 동일)
+ * @param traceId    추적/상관 ID
+ * @param exchange   발행 대상 exchange
+ * @param routingKey 발행 라우팅 키
+ */
+public record PublishResult(
+        String messageId,
+        String traceId,
+        String exchange,
+        String routingKey
+) {
+}
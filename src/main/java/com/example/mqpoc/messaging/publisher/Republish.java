@@ -0,0 +1,23 @@
+package com.example.mqpoc.messaging.publisher;
+
+import org.springframework.amqp.core.Message;
+
+/**
+ * 이미 직렬화된 메시지의 재발행 대상. 바디와 속성(messageId 포함)은 그대로 보낸다.
+ *
+ * @param serviceKey messaging.services.* 설정 키. 값이 있으면 confirm 지표({@code messaging.publish.confirm})에 기록한다.
+ * @param exchange   발행 대상 exchange (기본 exchange 는 "")
+ * @param routingKey 발행 라우팅 키
+ * @param message    보낼 메시지
+ */
+public record Republish(
+        String serviceKey,
+        String exchange,
+        String routingKey,
+        Message message
+) {
+
+    public Republish(String exchange, String routingKey, Message message) {
+        this(null, exchange, routingKey, message);
+    }
+}
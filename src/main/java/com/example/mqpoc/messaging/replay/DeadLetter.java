@@ -0,0 +1,61 @@
+package com.example.mqpoc.messaging.replay;
+
+import com.example.mqpoc.messaging.listener.RetryScheduler;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DLQ 메시지의 dead-letter 정보.
+ * <ul>
+ *     <li>사유/시각/원래 exchange·라우팅 키는 가장 최근 {@code x-death} 항목에서 읽는다.</li>
+ *     <li>재시도 단계를 거친 메시지는 {@link RetryScheduler}가 남긴 {@code x-original-*} 헤더가 우선이다.</li>
+ *     <li>재처리 중 DLQ 뒤로 옮긴 메시지는 {@code x-death}가 브로커 버전에 따라 보존되지 않을 수 있어
+ *     {@value #REASON_HEADER}/{@value #DEAD_AT_HEADER} 헤더에 복사해 둔다.</li>
+ * </ul>
+ *
+ * @param reason         dead-letter 사유 (알 수 없으면 null)
+ * @param exchange       원래 발행 exchange (알 수 없으면 null, 기본 exchange 는 "")
+ * @param routingKey     원래 라우팅 키
+ * @param traceId        {@code traceId} 헤더 (없으면 correlationId)
+ * @param deadLetteredAt dead-letter 시각 (없으면 메시지 timestamp)
+ */
+record DeadLetter(
+        String reason,
+        String exchange,
+        String routingKey,
+        String traceId,
+        Instant deadLetteredAt
+) {
+
+    static final String REASON_HEADER = "x-dead-reason";
+    static final String DEAD_AT_HEADER = "x-dead-at";
+
+    static DeadLetter of(MessageProperties properties) {
+        Map<?, ?> death = latestDeath(properties.getHeader("x-death"));
+        String reason = firstNonNull(properties.getHeader(REASON_HEADER), death.get("reason"));
+        String exchange = firstNonNull(properties.getHeader(RetryScheduler.ORIGINAL_EXCHANGE_HEADER), death.get("exchange"));
+        String routingKey = firstNonNull(properties.getHeader(RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER),
+                death.get("routing-keys") instanceof List<?> keys && !keys.isEmpty() ? keys.getFirst() : null);
+        String traceId = firstNonNull(properties.getHeader("traceId"), properties.getCorrelationId());
+        Object at = properties.getHeader(DEAD_AT_HEADER) != null ? properties.getHeader(DEAD_AT_HEADER) : death.get("time");
+        Instant deadLetteredAt = at instanceof Date date ? date.toInstant()
+                : properties.getTimestamp() != null ? properties.getTimestamp().toInstant() : null;
+        return new DeadLetter(reason, exchange, routingKey, traceId, deadLetteredAt);
+    }
+
+    private static Map<?, ?> latestDeath(Object header) {
+        if (header instanceof List<?> deaths && !deaths.isEmpty() && deaths.getFirst() instanceof Map<?, ?> death) {
+            return death;
+        }
+        return Map.of();
+    }
+
+    private static String firstNonNull(Object first, Object second) {
+        Object value = first != null ? first : second;
+        return value != null ? value.toString() : null;
+    }
+}
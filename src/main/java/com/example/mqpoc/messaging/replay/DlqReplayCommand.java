@@ -0,0 +1,39 @@
+package com.example.mqpoc.messaging.replay;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * 애플리케이션의 DLQ 재처리 CLI 모드. 웹 서버 없이 컨텍스트를 띄워 작업 하나를 끝까지 실행하고 종료한다.
+ * <pre>{@code
+ * java -jar mq-poc.jar --dlq-replay --replay.reasons=rejected --replay.routing-key=serviceA.# --replay.rate=1000
+ * }</pre>
+ * 조건은 {@code replay.*} 속성으로 주며 항목은 {@link ReplayRequest}와 같다. 모두 재발행했으면 0, 실패/취소 건이 있으면 1로 끝난다.
+ */
+public final class DlqReplayCommand {
+
+    public static final String FLAG = "--dlq-replay";
+
+    private DlqReplayCommand() {
+    }
+
+    public static boolean isRequested(String[] args) {
+        return Arrays.asList(args).contains(FLAG);
+    }
+
+    public static int run(Class<?> source, String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(source)
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+            ReplayRequest request = Binder.get(context.getEnvironment())
+                    .bind("replay", ReplayRequest.class)
+                    .orElseGet(() -> new ReplayRequest(null, null, null, null, null, null, null));
+            ReplayJob.Progress progress = context.getBean(DlqReplayService.class).run(request).progress();
+            return progress.status() == ReplayJob.Status.COMPLETED && progress.failed() == 0 ? 0 : 1;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.mqpoc.messaging.replay;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DLQ 재처리 actuator 엔드포인트 ({@code /actuator/dlqreplay}).
+ * <ul>
+ *     <li>{@code GET /actuator/dlqreplay}: 최근 작업 진행 상황</li>
+ *     <li>{@code GET /actuator/dlqreplay/{id}}: 작업 하나의 진행 상황</li>
+ *     <li>{@code POST /actuator/dlqreplay}: 작업 시작. JSON 바디 {@code {"reasons":"rejected","routingKey":"serviceA.#","rate":500}}</li>
+ *     <li>{@code DELETE /actuator/dlqreplay/{id}}: 현재 배치를 마치고 작업 중단</li>
+ * </ul>
+ * 인증 없이 재발행을 시작/중단할 수 있으므로 기본 web 노출 목록에는 없다. {@code replay-admin} 프로필에서만
+ * loopback 에 묶인 별도 management 포트(8081)로 노출한다.
+ */
+@Component
+@Endpoint(id = "dlqreplay")
+public class DlqReplayEndpoint {
+
+    private final DlqReplayService replayService;
+
+    public DlqReplayEndpoint(DlqReplayService replayService) {
+        this.replayService = replayService;
+    }
+
+    @ReadOperation
+    public List<ReplayJob.Progress> jobs() {
+        return replayService.jobs().stream().map(ReplayJob::progress).toList();
+    }
+
+    @ReadOperation
+    public ReplayJob.@Nullable Progress job(@Selector String id) {
+        ReplayJob job = replayService.job(id);
+        return job != null ? job.progress() : null;
+    }
+
+    /**
+     * @param reasons 쉼표로 구분한 dead-letter 사유
+     * @see ReplayRequest
+     */
+    @WriteOperation
+    public ReplayJob.Progress start(@Nullable String reasons, @Nullable String routingKey, @Nullable String traceId,
+                                    @Nullable Instant from, @Nullable Instant to, @Nullable Long limit,
+                                    @Nullable Integer rate) {
+        ReplayRequest request = new ReplayRequest(StringUtils.commaDelimitedListToSet(reasons), routingKey, traceId,
+                from, to, limit, rate);
+        return replayService.start(request).progress();
+    }
+
+    @DeleteOperation
+    public ReplayJob.@Nullable Progress cancel(@Selector String id) {
+        ReplayJob job = replayService.job(id);
+        if (job == null) {
+            return null;
+        }
+        job.cancel();
+        return job.progress();
+    }
+}
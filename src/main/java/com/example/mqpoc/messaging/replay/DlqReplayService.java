@@ -0,0 +1,282 @@
+package com.example.mqpoc.messaging.replay;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.messaging.listener.RetryScheduler;
+import com.example.mqpoc.messaging.publisher.EventPublisher;
+import com.example.mqpoc.messaging.publisher.PublishResult;
+import com.example.mqpoc.messaging.publisher.Republish;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 공용 DLQ 의 메시지를 조건에 따라 원래 exchange/라우팅 키로 다시 발행한다.
+ * <ul>
+ *     <li>전용 커넥션에서 {@code basicConsume}(prefetch = 배치 크기 x 2)으로 스트리밍하며, 시작 시점의 DLQ 메시지 수만큼만 읽는다.</li>
+ *     <li>조건에 맞는 메시지는 바디/messageId 를 그대로 두고 dead-letter/재시도 헤더만 지워 {@link EventPublisher#republishBatch}로
+ *     재발행한다. 맞지 않는 메시지는 같은 방식으로 DLQ 뒤로 옮긴다. 둘 다 배치 단위 confirm 을 받은 뒤 multiple ACK 하므로
+ *     중단되어도 메시지를 잃지 않는다 (confirm 실패 건은 requeue).</li>
+ *     <li>{@code rate}(초당 건수)를 넘지 않도록 재발행 간격을 벌린다. 대기는 재처리 스레드에서만 일어난다.</li>
+ *     <li>진행 상황은 {@code messaging.replay} 로거에 {@code messaging.replay.progress-interval}마다 기록한다.</li>
+ *     <li>같은 DLQ 를 동시에 훑으면 서로의 메시지를 옮기게 되므로 작업은 한 번에 하나만 실행한다.</li>
+ * </ul>
+ */
+@Component
+public class DlqReplayService {
+
+    public static final String REPLAY_JOB_HEADER = "x-replay-job";
+
+    private static final Logger log = LoggerFactory.getLogger("messaging.replay");
+    private static final Set<String> DEAD_LETTER_HEADERS = Set.of(
+            "x-death", "x-first-death-exchange", "x-first-death-queue", "x-first-death-reason",
+            "x-last-death-exchange", "x-last-death-queue", "x-last-death-reason",
+            DeadLetter.REASON_HEADER, DeadLetter.DEAD_AT_HEADER,
+            RetryScheduler.RETRY_COUNT_HEADER, RetryScheduler.ORIGINAL_EXCHANGE_HEADER,
+            RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER);
+    private static final int HISTORY_SIZE = 20;
+
+    private final CachingConnectionFactory connectionFactory;
+    private final EventPublisher publisher;
+    private final MessagingProperties properties;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final AtomicReference<ReplayJob> running = new AtomicReference<>();
+    private final Map<String, ReplayJob> history = new LinkedHashMap<>();
+
+    public DlqReplayService(CachingConnectionFactory connectionFactory, EventPublisher publisher,
+                            MessagingProperties properties) {
+        this.connectionFactory = connectionFactory;
+        this.publisher = publisher;
+        this.properties = properties;
+    }
+
+    /**
+     * 백그라운드 스레드에서 작업을 시작한다.
+     *
+     * @throws IllegalStateException 다른 작업이 실행 중일 때
+     */
+    public ReplayJob start(ReplayRequest request) {
+        ReplayJob job = register(request);
+        Thread.ofPlatform().name("dlq-replay-" + job.id()).daemon().start(() -> execute(job));
+        return job;
+    }
+
+    /**
+     * 호출 스레드에서 작업을 끝까지 실행한다. (CLI 모드)
+     *
+     * @throws IllegalStateException 다른 작업이 실행 중일 때
+     */
+    public ReplayJob run(ReplayRequest request) {
+        ReplayJob job = register(request);
+        execute(job);
+        return job;
+    }
+
+    public ReplayJob job(String id) {
+        synchronized (history) {
+            return history.get(id);
+        }
+    }
+
+    /**
+     * @return 최근 작업 목록 (오래된 순)
+     */
+    public List<ReplayJob> jobs() {
+        synchronized (history) {
+            return List.copyOf(history.values());
+        }
+    }
+
+    private ReplayJob register(ReplayRequest request) {
+        ReplayJob job = new ReplayJob(UUID.randomUUID().toString().substring(0, 8), request);
+        ReplayJob current = running.compareAndExchange(null, job);
+        if (current != null) {
+            throw new IllegalStateException("DLQ replay " + current.id() + " is already running");
+        }
+        synchronized (history) {
+            history.put(job.id(), job);
+            if (history.size() > HISTORY_SIZE) {
+                history.remove(history.keySet().iterator().next());
+            }
+        }
+        return job;
+    }
+
+    private void execute(ReplayJob job) {
+        MessagingProperties.Replay settings = properties.replay();
+        String dlq = properties.shared().dlq();
+        int rate = job.request().rate() != null ? job.request().rate() : settings.rate();
+        // 제한 속도의 0.1초 분량보다 큰 배치는 순간적으로 몰려 나가므로 배치를 줄인다.
+        int batchSize = rate > 0 ? Math.max(1, Math.min(settings.batchSize(), rate / 10)) : settings.batchSize();
+        Pacer pacer = new Pacer(rate);
+        long nextReport = System.nanoTime() + settings.progressInterval().toNanos();
+
+        try (Connection connection = connectionFactory.getRabbitConnectionFactory().newConnection("dlq-replay-" + job.id())) {
+            Channel channel = connection.createChannel();
+            job.started(channel.queueDeclarePassive(dlq).getMessageCount());
+            log.info("Replay {} started: dlq={} total={} request={}", job.id(), dlq, job.total(), job.request());
+
+            BlockingQueue<Delivery> deliveries = new LinkedBlockingQueue<>();
+            channel.basicQos(batchSize * 2);
+            channel.basicConsume(dlq, false, new DefaultConsumer(channel) {
+                @Override
+                public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties basicProperties,
+                                           byte[] body) {
+                    deliveries.add(new Delivery(envelope, basicProperties, body));
+                }
+            });
+
+            while (job.scanned() < job.total() && !job.isCancelRequested()) {
+                List<Delivery> batch = nextBatch(deliveries, (int) Math.min(batchSize, job.total() - job.scanned()),
+                        settings.idleTimeout().toMillis());
+                if (batch.isEmpty()) {
+                    // 다른 컨슈머가 DLQ 를 비웠거나 메시지가 더 이상 오지 않는다.
+                    break;
+                }
+                replayBatch(job, channel, batch, dlq, pacer);
+                if (System.nanoTime() >= nextReport) {
+                    logProgress(job);
+                    nextReport = System.nanoTime() + settings.progressInterval().toNanos();
+                }
+            }
+            // 커넥션을 닫으면 prefetch 로 받아 두고 처리하지 않은 메시지는 DLQ 로 돌아간다.
+            job.finish(job.isCancelRequested() ? ReplayJob.Status.CANCELLED : ReplayJob.Status.COMPLETED, null);
+        } catch (Exception ex) {
+            log.warn("Replay {} failed", job.id(), ex);
+            job.finish(ReplayJob.Status.FAILED, ex.toString());
+        } finally {
+            running.set(null);
+            logProgress(job);
+        }
+    }
+
+    private void replayBatch(ReplayJob job, Channel channel, List<Delivery> batch, String dlq, Pacer pacer)
+            throws Exception {
+        List<Republish> republishes = new ArrayList<>(batch.size());
+        boolean[] replay = new boolean[batch.size()];
+        int replays = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Delivery delivery = batch.get(i);
+            MessageProperties messageProperties = propertiesConverter.toMessageProperties(
+                    delivery.getProperties(), delivery.getEnvelope(), StandardCharsets.UTF_8.name());
+            DeadLetter letter = DeadLetter.of(messageProperties);
+            if (letter.exchange() != null && job.canReplay(replays) && job.request().matches(letter)) {
+                pacer.acquire();
+                messageProperties.getHeaders().keySet().removeAll(DEAD_LETTER_HEADERS);
+                // x-death 에서 읽힌 횟수가 retry-count 헤더로 다시 나가지 않도록 초기화한다.
+                messageProperties.setRetryCount(0);
+                messageProperties.setHeader(REPLAY_JOB_HEADER, job.id());
+                republishes.add(new Republish(letter.exchange(), letter.routingKey(),
+                        new Message(delivery.getBody(), messageProperties)));
+                replay[i] = true;
+                replays++;
+            } else {
+                keepDeadLetterInfo(messageProperties, letter);
+                republishes.add(new Republish("", dlq, new Message(delivery.getBody(), messageProperties)));
+            }
+        }
+
+        List<CompletableFuture<PublishResult>> results = publisher.republishBatch(republishes);
+        long lastAckTag = -1;
+        for (int i = 0; i < batch.size(); i++) {
+            long deliveryTag = batch.get(i).getEnvelope().getDeliveryTag();
+            boolean confirmed = results.get(i).handle((result, ex) -> ex == null).join();
+            if (confirmed) {
+                lastAckTag = deliveryTag;
+            } else {
+                // NACK 을 multiple ACK 보다 먼저 보내 실패 건이 ACK 범위에 섞이지 않게 한다.
+                channel.basicNack(deliveryTag, false, true);
+            }
+            job.settled(replay[i], confirmed);
+        }
+        if (lastAckTag >= 0) {
+            channel.basicAck(lastAckTag, true);
+        }
+    }
+
+    /**
+     * 클라이언트가 다시 발행한 {@code x-death}는 브로커 버전에 따라 무시되므로, DLQ 뒤로 옮긴 메시지도 다음 재처리에서
+     * 같은 조건으로 고를 수 있게 원래 정보를 별도 헤더로 남긴다.
+     */
+    private static void keepDeadLetterInfo(MessageProperties messageProperties, DeadLetter letter) {
+        putIfAbsent(messageProperties, DeadLetter.REASON_HEADER, letter.reason());
+        putIfAbsent(messageProperties, DeadLetter.DEAD_AT_HEADER,
+                letter.deadLetteredAt() != null ? Date.from(letter.deadLetteredAt()) : null);
+        putIfAbsent(messageProperties, RetryScheduler.ORIGINAL_EXCHANGE_HEADER, letter.exchange());
+        putIfAbsent(messageProperties, RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER, letter.routingKey());
+    }
+
+    private static void putIfAbsent(MessageProperties messageProperties, String name, Object value) {
+        if (value != null && messageProperties.getHeader(name) == null) {
+            messageProperties.setHeader(name, value);
+        }
+    }
+
+    private static List<Delivery> nextBatch(BlockingQueue<Delivery> deliveries, int max, long idleTimeoutMillis)
+            throws InterruptedException {
+        List<Delivery> batch = new ArrayList<>(max);
+        Delivery first = deliveries.poll(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        deliveries.drainTo(batch, max - 1);
+        return batch;
+    }
+
+    private static void logProgress(ReplayJob job) {
+        ReplayJob.Progress progress = job.progress();
+        log.info("Replay {} {}: scanned={}/{} replayed={} kept={} failed={} rate={}/s",
+                progress.id(), progress.status(), progress.scanned(), progress.total(), progress.replayed(),
+                progress.kept(), progress.failed(), Math.round(progress.replayedPerSecond()));
+    }
+
+    /**
+     * 초당 rate 건을 넘지 않도록 호출 간격을 맞춘다. rate 가 0 이하면 제한 없음.
+     */
+    private static final class Pacer {
+
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        Pacer(int rate) {
+            this.intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        }
+
+        void acquire() {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (next > now) {
+                LockSupport.parkNanos(next - now);
+            }
+            next = Math.max(next, now) + intervalNanos;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.mqpoc.messaging.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DLQ 재처리 작업 하나의 진행 상태.
+ * <p>{@code scanned}는 checkpoint 다. 그때까지 읽은 메시지는 재발행 또는 DLQ 뒤로 이동이 confirm 된 뒤 ACK 되었으므로,
+ * 작업이 중단되어도 같은 조건으로 다시 실행하면 남은 메시지부터 이어서 처리된다.</p>
+ */
+public class ReplayJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    private final String id;
+    private final ReplayRequest request;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong kept = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long total;
+    private volatile Status status = Status.RUNNING;
+    private volatile boolean cancelRequested;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    ReplayJob(String id, ReplayRequest request) {
+        this.id = id;
+        this.request = request;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public ReplayRequest request() {
+        return request;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * 현재 배치를 마치고 멈추도록 요청한다.
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    void started(long total) {
+        this.total = total;
+    }
+
+    long total() {
+        return total;
+    }
+
+    long scanned() {
+        return scanned.get();
+    }
+
+    /**
+     * @param pendingReplays 현재 배치에서 이미 재발행하기로 고른 건수
+     * @return 한 건 더 재발행해도 limit 을 넘지 않으면 true
+     */
+    boolean canReplay(long pendingReplays) {
+        return request.limit() == null || replayed.get() + pendingReplays < request.limit();
+    }
+
+    void settled(boolean replay, boolean success) {
+        scanned.incrementAndGet();
+        if (!success) {
+            failed.incrementAndGet();
+        } else if (replay) {
+            replayed.incrementAndGet();
+        } else {
+            kept.incrementAndGet();
+        }
+    }
+
+    void finish(Status status, String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    public Progress progress() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = Math.max(0.001, Duration.between(startedAt, end).toMillis() / 1000.0);
+        return new Progress(id, status, request, total, scanned.get(), replayed.get(), kept.get(), failed.get(),
+                replayed.get() / seconds, startedAt, finishedAt, error);
+    }
+
+    /**
+     * @param total             시작 시 DLQ 메시지 수 (이번 작업이 읽을 최대 건수)
+     * @param scanned           처리가 확정된 메시지 수 (checkpoint)
+     * @param replayed          원래 exchange 로 재발행한 수
+     * @param kept              조건에 맞지 않아 DLQ 뒤로 옮긴 수
+     * @param failed            confirm 실패로 DLQ 에 되돌린(requeue) 수
+     * @param replayedPerSecond 평균 재발행 속도
+     */
+    public record Progress(
+            String id,
+            Status status,
+            ReplayRequest request,
+            long total,
+            long scanned,
+            long replayed,
+            long kept,
+            long failed,
+            double replayedPerSecond,
+            Instant startedAt,
+            Instant finishedAt,
+            String error
+    ) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.mqpoc.messaging.replay;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * DLQ 재처리 조건. 조건끼리는 AND 이며 null/빈 값은 조건 없음을 뜻한다.
+ *
+ * @param reasons    dead-letter 사유 (rejected | expired | maxlen | delivery_limit)
+ * @param routingKey 원래 라우팅 키. AMQP topic 패턴을 쓸 수 있다 (예: {@code serviceA.order.#})
+ * @param traceId    {@code traceId} 헤더
+ * @param from       dead-letter 시각 하한 (포함)
+ * @param to         dead-letter 시각 상한 (제외)
+ * @param limit      최대 재발행 건수
+ * @param rate       초당 최대 재발행 건수 (null 이면 {@code messaging.replay.rate})
+ */
+public record ReplayRequest(
+        Set<String> reasons,
+        String routingKey,
+        String traceId,
+        Instant from,
+        Instant to,
+        Long limit,
+        Integer rate
+) {
+
+    public ReplayRequest {
+        reasons = reasons != null ? Set.copyOf(reasons) : Set.of();
+    }
+
+    boolean matches(DeadLetter letter) {
+        if (!reasons.isEmpty() && !reasons.contains(letter.reason())) {
+            return false;
+        }
+        if (routingKey != null && (letter.routingKey() == null || !topicMatches(routingKey, letter.routingKey()))) {
+            return false;
+        }
+        if (traceId != null && !traceId.equals(letter.traceId())) {
+            return false;
+        }
+        Instant at = letter.deadLetteredAt();
+        if (from != null && (at == null || at.isBefore(from))) {
+            return false;
+        }
+        return to == null || (at != null && at.isBefore(to));
+    }
+
+    /**
+     * AMQP topic 규칙: {@code *}는 단어 하나, {@code #}는 0개 이상의 단어와 매칭된다.
+     */
+    static boolean topicMatches(String pattern, String routingKey) {
+        return topicMatches(pattern.split("\\."), 0, routingKey.split("\\."), 0);
+    }
+
+    private static boolean topicMatches(String[] pattern, int p, String[] words, int w) {
+        if (p == pattern.length) {
+            return w == words.length;
+        }
+        String token = pattern[p];
+        if (token.equals("#")) {
+            for (int i = w; i <= words.length; i++) {
+                if (topicMatches(pattern, p + 1, words, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (w == words.length) {
+            return false;
+        }
+        return (token.equals("*") || token.equals(words[w])) && topicMatches(pattern, p + 1, words, w + 1);
+    }
+}
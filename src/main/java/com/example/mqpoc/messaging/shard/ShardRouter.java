@@ -0,0 +1,121 @@
+package com.example.mqpoc.messaging.shard;
+
+import com.example.mqpoc.config.MessagingProperties;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 샤딩된 서비스로 발행할 때 샤드 키와 라우팅 키를 정한다. ({@link MessagingProperties.Sharding})
+ * <ul>
+ *     <li>샤드 키는 payload 의 {@code sharding.key} 경로 값이다. payload 는 Map, record, getter 를 가진 객체를 지원하며
+ *     클래스별 접근 메서드는 처음 한 번만 찾는다.</li>
+ *     <li>routing-key 전략의 샤드 번호는 jump consistent hash 로 고른다. 샤드 수를 N 에서 N+1 로 늘리면
+ *     키의 1/(N+1)만 다른 샤드로 옮겨 간다.</li>
+ * </ul>
+ */
+@Component
+public class ShardRouter {
+
+    /** 샤드 키 헤더. consistent-hash 전략에서는 exchange 의 hash-header 로 쓰인다. */
+    public static final String SHARD_KEY_HEADER = "x-shard-key";
+
+    private final Map<Class<?>, Map<String, Optional<Method>>> accessors = new ConcurrentHashMap<>();
+
+    /**
+     * @param keyPath   payload 안의 키 경로 ({@code sharding.key} 또는 {@code consumer.lanes.key})
+     * @param payload   발행할 payload
+     * @param messageId 키 값이 없을 때 대신 쓸 값
+     * @return 샤드 키 (payload 에 값이 없으면 messageId)
+     */
+    public String shardKey(String keyPath, Object payload, String messageId) {
+        Object value = keyPath != null ? read(payload, keyPath) : null;
+        return value != null ? value.toString() : messageId;
+    }
+
+    /**
+     * @param sharding   서비스 샤딩 설정
+     * @param routingKey 샤딩 전 라우팅 키 ({@code <prefix>.<eventName>})
+     * @param shardKey   {@link #shardKey}로 구한 키
+     * @return 발행 라우팅 키. routing-key 전략이면 끝에 샤드 번호를 붙인다.
+     */
+    public String routingKey(MessagingProperties.Sharding sharding, String routingKey, String shardKey) {
+        if (sharding.strategy() != MessagingProperties.Sharding.Strategy.ROUTING_KEY) {
+            return routingKey;
+        }
+        return routingKey + "." + shard(shardKey, sharding.shards());
+    }
+
+    /**
+     * Jump consistent hash (Lamping, Veach). 키 해시는 {@link String#hashCode()}를 64비트로 섞어 쓰므로 JVM 과 무관하게 같다.
+     *
+     * @return 0 이상 {@code shards} 미만의 샤드 번호
+     */
+    public static int shard(String shardKey, int shards) {
+        long key = mix(shardKey.hashCode());
+        long bucket = -1;
+        long next = 0;
+        while (next < shards) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Object read(Object payload, String path) {
+        Object current = payload;
+        for (String name : path.split("\\.")) {
+            if (current == null) {
+                return null;
+            }
+            current = property(current, name);
+        }
+        return current;
+    }
+
+    private Object property(Object target, String name) {
+        if (target instanceof Map<?, ?> map) {
+            return map.get(name);
+        }
+        Optional<Method> accessor = accessors.computeIfAbsent(target.getClass(), type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(name, key -> findAccessor(target.getClass(), key));
+        if (accessor.isEmpty()) {
+            return null;
+        }
+        try {
+            return accessor.get().invoke(target);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            throw new IllegalStateException("Cannot read shard key '" + name + "' from " + target.getClass().getName(), ex);
+        }
+    }
+
+    private static Optional<Method> findAccessor(Class<?> type, String name) {
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                if (component.getName().equals(name)) {
+                    return Optional.of(component.getAccessor());
+                }
+            }
+            return Optional.empty();
+        }
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, name);
+        return Optional.ofNullable(descriptor != null ? descriptor.getReadMethod() : null);
+    }
+}
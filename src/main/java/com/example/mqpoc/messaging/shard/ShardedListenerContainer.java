@@ -0,0 +1,124 @@
+package com.example.mqpoc.messaging.shard;
+
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 샤드 큐마다 하나씩 만든 단일 컨슈머 컨테이너를 하나의 리스너 컨테이너로 묶는다.
+ * {@code RabbitListenerEndpointRegistry}가 시작/정지/정리를 이 객체에 요청하면 모든 샤드 컨테이너에 전달한다.
+ */
+public class ShardedListenerContainer implements MessageListenerContainer, DisposableBean {
+
+    private final List<SimpleMessageListenerContainer> containers;
+
+    ShardedListenerContainer(List<SimpleMessageListenerContainer> containers) {
+        this.containers = List.copyOf(containers);
+    }
+
+    /**
+     * @return 샤드 큐별 컨테이너 (큐 순서)
+     */
+    public List<SimpleMessageListenerContainer> getContainers() {
+        return containers;
+    }
+
+    @Override
+    public void setupMessageListener(MessageListener messageListener) {
+        containers.forEach(container -> container.setupMessageListener(messageListener));
+    }
+
+    /**
+     * 샤드 컨테이너는 큐 하나씩에 묶여 있으므로 큐를 바꾸지 않는다. 이미 맡고 있는 샤드 큐 전체(순서 무관)만 받고,
+     * 다른 큐가 섞이거나 빠지면 거절한다.
+     *
+     * @throws IllegalArgumentException 설정된 샤드 큐와 다른 경우
+     */
+    @Override
+    public void setQueueNames(String... queueNames) {
+        Set<String> shardQueues = containers.stream()
+                .flatMap(container -> Arrays.stream(container.getQueueNames()))
+                .collect(Collectors.toSet());
+        if (!Arrays.stream(queueNames).collect(Collectors.toSet()).equals(shardQueues)) {
+            throw new IllegalArgumentException("Shard containers are bound to " + shardQueues
+                    + ", cannot listen to " + Arrays.toString(queueNames));
+        }
+    }
+
+    @Override
+    public void setAutoStartup(boolean autoStartup) {
+        containers.forEach(container -> container.setAutoStartup(autoStartup));
+    }
+
+    @Override
+    public Object getMessageListener() {
+        return containers.getFirst().getMessageListener();
+    }
+
+    @Override
+    public void setListenerId(String id) {
+        containers.forEach(container -> container.setListenerId(id + "-" + container.getQueueNames()[0]));
+    }
+
+    @Override
+    public boolean isConsumerBatchEnabled() {
+        return containers.getFirst().isConsumerBatchEnabled();
+    }
+
+    @Override
+    public void lazyLoad() {
+        containers.forEach(SimpleMessageListenerContainer::lazyLoad);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        containers.forEach(SimpleMessageListenerContainer::afterPropertiesSet);
+    }
+
+    @Override
+    public void start() {
+        containers.forEach(SimpleMessageListenerContainer::start);
+    }
+
+    @Override
+    public void stop() {
+        containers.forEach(SimpleMessageListenerContainer::stop);
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        AtomicInteger remaining = new AtomicInteger(containers.size());
+        containers.forEach(container -> container.stop(() -> {
+            if (remaining.decrementAndGet() == 0) {
+                callback.run();
+            }
+        }));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return containers.stream().anyMatch(SimpleMessageListenerContainer::isRunning);
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return containers.getFirst().isAutoStartup();
+    }
+
+    @Override
+    public int getPhase() {
+        return containers.getFirst().getPhase();
+    }
+
+    @Override
+    public void destroy() {
+        containers.forEach(SimpleMessageListenerContainer::destroy);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.mqpoc.messaging.shard;
+
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 샤딩된 서비스의 리스너 컨테이너 팩토리. {@code @RabbitListener} 하나가 받는 큐마다 컨슈머 하나짜리 컨테이너를 만든다.
+ * <ul>
+ *     <li>한 큐는 한 컨슈머가 순서대로 처리하므로 샤드 키별 순서가 유지되고, 샤드끼리는 병렬로 처리된다.</li>
+ *     <li>prefetch/배치/ACK 등 나머지 설정은 감싼 서비스 팩토리를 그대로 따른다.</li>
+ * </ul>
+ * 컨슈머가 여럿인 컨테이너 하나에 샤드 큐를 모두 주면 같은 샤드를 여러 컨슈머가 나눠 받아 순서가 깨지므로 이렇게 나눈다.
+ */
+public class ShardedListenerContainerFactory implements RabbitListenerContainerFactory<ShardedListenerContainer> {
+
+    private final SimpleRabbitListenerContainerFactory delegate;
+
+    public ShardedListenerContainerFactory(SimpleRabbitListenerContainerFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ShardedListenerContainer createListenerContainer(RabbitListenerEndpoint endpoint) {
+        SimpleMessageListenerContainer first = delegate.createListenerContainer(endpoint);
+        String[] queues = first.getQueueNames();
+        List<SimpleMessageListenerContainer> containers = new ArrayList<>(queues.length);
+        for (int i = 0; i < queues.length; i++) {
+            SimpleMessageListenerContainer container = i == 0 ? first : delegate.createListenerContainer(endpoint);
+            container.setQueueNames(queues[i]);
+            container.setConcurrentConsumers(1);
+            container.setMaxConcurrentConsumers(1);
+            if (endpoint.getId() != null) {
+                container.setListenerId(endpoint.getId() + "-" + queues[i]);
+            }
+            containers.add(container);
+        }
+        return new ShardedListenerContainer(containers);
+    }
+}
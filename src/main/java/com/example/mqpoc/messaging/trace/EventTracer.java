@@ -0,0 +1,152 @@
+package com.example.mqpoc.messaging.trace;
+
+import com.example.mqpoc.config.MessagingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 발행/confirm/return/소비 이벤트를 비동기로 기록하는 추적기.
+ * <ul>
+ *     <li>핫패스에서는 레벨 체크 → 샘플링 → {@link TraceEvent} 생성 → 링 버퍼 offer 만 수행한다. 포맷팅과 I/O 는
+ *     백그라운드 드레인 스레드가 {@link TraceSink}로 처리하므로 메시징 스레드가 stdout 모니터에서 직렬화되지 않는다.</li>
+ *     <li>{@code messaging.trace.sample-rate}(0~1)로 정상 이벤트를 샘플링하며, NACK/return/핸들러 오류는 항상 기록한다.</li>
+ *     <li>버퍼가 가득 차면 이벤트를 버리고 {@link #droppedCount()}만 증가시킨다. 호출 스레드는 절대 대기하지 않는다.</li>
+ * </ul>
+ */
+@Component
+public class EventTracer implements SmartLifecycle {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final TraceSink sink;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final TraceRingBuffer buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running;
+    private Thread drainer;
+
+    public EventTracer(MessagingProperties properties, ObjectProvider<TraceSink> sinks) {
+        MessagingProperties.Trace trace = properties.trace();
+        this.sink = sinks.getIfAvailable(Slf4jTraceSink::new);
+        this.enabled = trace.enabled();
+        this.sampleRate = trace.sampleRate();
+        this.buffer = new TraceRingBuffer(trace.bufferSize());
+    }
+
+    public void publish(String serviceKey, String exchange, String routingKey, String eventType, String messageId, String traceId) {
+        if (accept(TraceEvent.Kind.PUBLISH)) {
+            record(new TraceEvent(TraceEvent.Kind.PUBLISH, System.currentTimeMillis(), serviceKey, exchange, routingKey,
+                    eventType, messageId, traceId, null));
+        }
+    }
+
+    public void confirm(String messageId, boolean ack, String cause) {
+        TraceEvent.Kind kind = ack ? TraceEvent.Kind.CONFIRM : TraceEvent.Kind.NACK;
+        if (accept(kind)) {
+            record(new TraceEvent(kind, System.currentTimeMillis(), null, null, null, null, messageId, null, cause));
+        }
+    }
+
+    public void returned(String exchange, String routingKey, String messageId, int replyCode, String replyText) {
+        if (accept(TraceEvent.Kind.RETURN)) {
+            record(new TraceEvent(TraceEvent.Kind.RETURN, System.currentTimeMillis(), null, exchange, routingKey, null,
+                    messageId, null, replyCode + " " + replyText));
+        }
+    }
+
+    /**
+     * @param payload null 이 아니면 싱크에서 문자열화해 함께 기록한다. (드레인 시점에 toString 호출)
+     */
+    public void consume(String listener, String routingKey, String eventType, String messageId, String traceId, Object payload) {
+        if (accept(TraceEvent.Kind.CONSUME)) {
+            record(new TraceEvent(TraceEvent.Kind.CONSUME, System.currentTimeMillis(), listener, null, routingKey, eventType,
+                    messageId, traceId, payload));
+        }
+    }
+
+    public void consumeError(String listener, String routingKey, String messageId, Throwable error) {
+        if (accept(TraceEvent.Kind.CONSUME_ERROR)) {
+            record(new TraceEvent(TraceEvent.Kind.CONSUME_ERROR, System.currentTimeMillis(), listener, null, routingKey, null,
+                    messageId, null, error));
+        }
+    }
+
+    /**
+     * 버퍼 포화로 버려진 이벤트 수.
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private boolean accept(TraceEvent.Kind kind) {
+        if (!enabled || !sink.isEnabled(kind)) {
+            return false;
+        }
+        return kind.isWarning() || sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void record(TraceEvent event) {
+        if (!buffer.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drainOnce() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drainOnce();
+    }
+
+    private int drainOnce() {
+        int drained = 0;
+        TraceEvent event;
+        while ((event = buffer.poll()) != null) {
+            try {
+                sink.write(event);
+            } catch (RuntimeException ex) {
+                // A broken sink must not kill the drainer; the event is lost.
+            }
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        drainer = Thread.ofPlatform().daemon().name("event-trace-drainer").start(this::drainLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (drainer != null) {
+            try {
+                drainer.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop after listener containers (KeyedLanes.LISTENER_PHASE) so their last events are flushed.
+        return Integer.MAX_VALUE - 1000;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.mqpoc.messaging.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 기본 싱크. {@code messaging.trace} 로거에 파라미터 방식으로 기록하며, 경고성 이벤트는 WARN, 나머지는 INFO 레벨이다.
+ */
+public class Slf4jTraceSink implements TraceSink {
+
+    private static final Logger log = LoggerFactory.getLogger("messaging.trace");
+
+    @Override
+    public boolean isEnabled(TraceEvent.Kind kind) {
+        return kind.isWarning() ? log.isWarnEnabled() : log.isInfoEnabled();
+    }
+
+    @Override
+    public void write(TraceEvent event) {
+        switch (event.kind()) {
+            case PUBLISH -> log.info("Publish: service={} exchange={} routingKey={} eventType={} messageId={} traceId={}",
+                    event.source(), event.exchange(), event.routingKey(), event.eventType(), event.messageId(), event.traceId());
+            case CONFIRM -> log.info("Confirm: ack=true messageId={}", event.messageId());
+            case NACK -> log.warn("Confirm: ack=false messageId={} cause={}", event.messageId(), event.detail());
+            case RETURN -> log.warn("Return: exchange={} routingKey={} messageId={} reply={}",
+                    event.exchange(), event.routingKey(), event.messageId(), event.detail());
+            case CONSUME -> log.info("{} consume: routingKey={} eventType={} messageId={} traceId={} payload={}",
+                    event.source(), event.routingKey(), event.eventType(), event.messageId(), event.traceId(), event.detail());
+            case CONSUME_ERROR -> log.warn("{} handler error: routingKey={} messageId={} error={}",
+                    event.source(), event.routingKey(), event.messageId(), event.detail());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.mqpoc.messaging.trace;
+
+/**
+ * 링 버퍼에 쌓이는 메시징 추적 이벤트. 문자열 조립은 드레인 스레드에서 싱크가 수행한다.
+ * <ul>
+ *     <li>{@code source}: 발행 서비스 키 또는 리스너 이름</li>
+ *     <li>{@code detail}: 종류별 부가 정보(confirm cause, return replyText, 예외, payload 등). 드레인 시점에 문자열화된다.</li>
+ * </ul>
+ */
+public record TraceEvent(
+        Kind kind,
+        long timestamp,
+        String source,
+        String exchange,
+        String routingKey,
+        String eventType,
+        String messageId,
+        String traceId,
+        Object detail
+) {
+
+    public enum Kind {
+        PUBLISH(false),
+        CONFIRM(false),
+        NACK(true),
+        RETURN(true),
+        CONSUME(false),
+        CONSUME_ERROR(true);
+
+        private final boolean warning;
+
+        Kind(boolean warning) {
+            this.warning = warning;
+        }
+
+        /**
+         * 경고성 이벤트는 샘플링하지 않고 항상 기록한다.
+         */
+        public boolean isWarning() {
+            return warning;
+        }
+    }
+}
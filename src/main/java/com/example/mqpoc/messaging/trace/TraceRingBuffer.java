@@ -0,0 +1,64 @@
+package com.example.mqpoc.messaging.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 다중 생산자/단일 소비자용 고정 크기 lock-free 링 버퍼 (슬롯별 시퀀스 번호 방식).
+ * <ul>
+ *     <li>생산자는 tail 을 CAS 로 선점한 뒤 슬롯을 채우고 시퀀스를 {@code pos + 1}로 공개한다.</li>
+ *     <li>버퍼가 가득 차면 기다리지 않고 {@code false}를 반환한다(호출 측에서 drop 처리).</li>
+ *     <li>{@link #poll()}은 드레인 스레드 하나에서만 호출해야 한다.</li>
+ * </ul>
+ */
+final class TraceRingBuffer {
+
+    private final int mask;
+    private final AtomicReferenceArray<TraceEvent> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    TraceRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1) << 1);
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(TraceEvent event) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.getAcquire(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.setPlain(index, event);
+                    sequences.setRelease(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    TraceEvent poll() {
+        int index = (int) (head & mask);
+        if (sequences.getAcquire(index) != head + 1) {
+            return null;
+        }
+        TraceEvent event = slots.getPlain(index);
+        slots.setPlain(index, null);
+        sequences.setRelease(index, head + mask + 1);
+        head++;
+        return event;
+    }
+}
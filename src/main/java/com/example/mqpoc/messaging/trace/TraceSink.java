@@ -0,0 +1,17 @@
+package com.example.mqpoc.messaging.trace;
+
+/**
+ * {@link EventTracer}가 드레인 스레드에서 이벤트를 넘기는 출력 대상. 빈으로 등록하면 기본 SLF4J 싱크를 대체한다.
+ */
+public interface TraceSink {
+
+    /**
+     * 이벤트 생성 전에 호출되는 레벨 체크. false 면 이벤트를 만들지도 큐에 넣지도 않는다.
+     */
+    boolean isEnabled(TraceEvent.Kind kind);
+
+    /**
+     * 드레인 스레드(단일)에서만 호출된다.
+     */
+    void write(TraceEvent event);
+}
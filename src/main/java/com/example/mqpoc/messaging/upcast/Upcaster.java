@@ -0,0 +1,46 @@
+package com.example.mqpoc.messaging.upcast;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 이벤트 타입 하나의 payload 를 한 schema-version 에서 다음 버전으로 바꾸는 변환 단계. 빈으로 등록하면
+ * {@link UpcasterChain}이 (eventType, fromVersion)별로 연결해 둔다.
+ * <p>
+ * payload 는 바인딩 전 JSON 트리로 받으므로, 예전 프로듀서가 보낸 필드 이름/구조를 현재 payload 클래스에 맞게 고칠 수 있다.
+ * <pre>
+ * &#64;Component
+ * class OrderCreatedV09Upcaster implements Upcaster {
+ *     public String eventType() { return "order.created"; }
+ *     public String fromVersion() { return "0.9"; }
+ *     public String toVersion() { return "1.0"; }
+ *     public JsonNode upcast(JsonNode payload) {
+ *         ObjectNode node = (ObjectNode) payload;
+ *         node.set("totalAmount", node.remove("amount"));
+ *         return node;
+ *     }
+ * }
+ * </pre>
+ */
+public interface Upcaster {
+
+    /**
+     * @return AMQP type (발행 이벤트명)
+     */
+    String eventType();
+
+    /**
+     * @return 입력 payload 의 schema-version
+     */
+    String fromVersion();
+
+    /**
+     * @return 변환 결과의 schema-version
+     */
+    String toVersion();
+
+    /**
+     * @param payload {@link #fromVersion()} 형식의 payload (수정해서 그대로 돌려줘도 된다)
+     * @return {@link #toVersion()} 형식의 payload
+     */
+    JsonNode upcast(JsonNode payload);
+}
@@ -0,0 +1,94 @@
+package com.example.mqpoc.messaging.upcast;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 등록된 {@link Upcaster} 빈을 이벤트 타입별로 이어, 예전 schema-version payload 를 더 이어질 단계가 없는 버전까지 올린다.
+ * <ul>
+ *     <li>(eventType, fromVersion)마다 거칠 단계 목록을 시작 시점에 한 번 만들어 두므로, 수신 시에는 해시 조회 두 번으로
+ *     변환 경로를 얻는다. 변환이 필요 없는 버전은 조회 결과가 null 이다.</li>
+ *     <li>같은 (eventType, fromVersion)에 단계가 둘이거나 단계가 순환하면 시작 시 실패한다.</li>
+ * </ul>
+ * 롤링 배포 중 예전 프로듀서가 보낸 메시지도 컨슈머는 현재 payload 클래스 하나로 바인딩할 수 있다.
+ */
+@Component
+public class UpcasterChain {
+
+    /** eventType → fromVersion → 변환 경로 */
+    private final Map<String, Map<String, Path>> paths;
+
+    public UpcasterChain(ObjectProvider<Upcaster> upcasters) {
+        Map<String, Map<String, Upcaster>> steps = new HashMap<>();
+        for (Upcaster upcaster : upcasters.orderedStream().toList()) {
+            Upcaster previous = steps.computeIfAbsent(upcaster.eventType(), key -> new HashMap<>())
+                    .putIfAbsent(upcaster.fromVersion(), upcaster);
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate upcaster for " + upcaster.eventType()
+                        + " from " + upcaster.fromVersion() + ": " + previous.getClass().getName()
+                        + ", " + upcaster.getClass().getName());
+            }
+        }
+        Map<String, Map<String, Path>> compiled = new HashMap<>();
+        steps.forEach((eventType, byVersion) -> {
+            Map<String, Path> typePaths = new HashMap<>();
+            byVersion.keySet().forEach(version -> typePaths.put(version, compile(eventType, version, byVersion)));
+            compiled.put(eventType, Map.copyOf(typePaths));
+        });
+        this.paths = Map.copyOf(compiled);
+    }
+
+    private static Path compile(String eventType, String fromVersion, Map<String, Upcaster> byVersion) {
+        List<Upcaster> chain = new ArrayList<>();
+        Set<String> visited = new LinkedHashSet<>();
+        String version = fromVersion;
+        while (byVersion.containsKey(version)) {
+            if (!visited.add(version)) {
+                throw new IllegalStateException("Upcaster cycle for " + eventType + ": " + visited + " -> " + version);
+            }
+            Upcaster step = byVersion.get(version);
+            chain.add(step);
+            version = step.toVersion();
+        }
+        return new Path(fromVersion, version, List.copyOf(chain));
+    }
+
+    /**
+     * @param eventType     AMQP type
+     * @param schemaVersion 수신 메시지의 schema-version 헤더
+     * @return 변환 경로, 변환할 단계가 없으면 null
+     */
+    public Path path(String eventType, String schemaVersion) {
+        if (eventType == null || schemaVersion == null) {
+            return null;
+        }
+        Map<String, Path> typePaths = paths.get(eventType);
+        return typePaths != null ? typePaths.get(schemaVersion) : null;
+    }
+
+    /**
+     * (eventType, fromVersion)에서 시작해 이어지는 변환 단계.
+     *
+     * @param fromVersion 입력 버전
+     * @param toVersion   마지막 단계의 결과 버전
+     * @param steps       적용 순서대로의 단계
+     */
+    public record Path(String fromVersion, String toVersion, List<Upcaster> steps) {
+
+        public JsonNode apply(JsonNode payload) {
+            JsonNode current = payload;
+            for (Upcaster step : steps) {
+                current = step.upcast(current);
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.mqpoc.web;
+
+import com.example.mqpoc.messaging.publisher.PublishFailedException;
+import com.example.mqpoc.messaging.publisher.PublishRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * 발행이 실패/거절되었을 때의 HTTP 응답 매핑.
+ * <ul>
+ *     <li>NACKED/RETURNED: 브로커가 메시지를 받지 않음 → 502</li>
+ *     <li>TIMEOUT: confirm 미도착(결과 불확실) → 504</li>
+ *     <li>REJECTED: 미확정 confirm 테이블 또는 아웃박스 포화 → 503</li>
+ *     <li>SATURATED: 서비스 in-flight 한도 도달 → 429 + Retry-After</li>
+ *     <li>BLOCKED: 브로커 connection.blocked → 503 + Retry-After</li>
+ * </ul>
+ */
+@RestControllerAdvice(assignableTypes = {ServiceAPublishController.class, ServiceBPublishController.class})
+public class PublishExceptionHandler {
+
+    @ExceptionHandler(PublishFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePublishFailed(PublishFailedException ex) {
+        HttpStatus status = switch (ex.getReason()) {
+            case NACKED, RETURNED -> HttpStatus.BAD_GATEWAY;
+            case TIMEOUT -> HttpStatus.GATEWAY_TIMEOUT;
+            case REJECTED -> HttpStatus.SERVICE_UNAVAILABLE;
+        };
+        return ResponseEntity.status(status).body(Map.of(
+                "messageId", ex.getMessageId(),
+                "reason", ex.getReason().name()
+        ));
+    }
+
+    @ExceptionHandler(PublishRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handlePublishRejected(PublishRejectedException ex) {
+        HttpStatus status = switch (ex.getReason()) {
+            case SATURATED -> HttpStatus.TOO_MANY_REQUESTS;
+            case BLOCKED -> HttpStatus.SERVICE_UNAVAILABLE;
+        };
+        // Retry-After 는 초 단위 정수라서 1초 미만은 올림한다.
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(Map.of(
+                        "service", ex.getServiceKey(),
+                        "reason", ex.getReason().name()
+                ));
+    }
+}
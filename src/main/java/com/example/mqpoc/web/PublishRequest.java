@@ -1,5 +1,6 @@
 package com.example.mqpoc.web;
 
+import com.example.mqpoc.messaging.model.EventPriority;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -15,6 +16,8 @@ public class PublishRequest {
 
     private String traceId;
 
+    private EventPriority priority;
+
     public String getEventType() {
         return eventType;
     }
@@ -38,4 +41,12 @@ public class PublishRequest {
     public void setTraceId(String traceId) {
         this.traceId = traceId;
     }
+
+    public EventPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(EventPriority priority) {
+        this.priority = priority;
+    }
 }
@@ -14,6 +14,7 @@ import com.example.mqpoc.messaging.model.payload.UserCreatedEvent;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/service-b/events")
@@ -30,13 +31,31 @@ public class ServiceBPublishController {
 
     @PostMapping
     public ResponseEntity<Map<String, Object>> publish(@Valid @RequestBody PublishRequest request) {
-        publisher.publish("serviceB", request.getEventType(), request.getPayload(), request.getTraceId());
+        publisher.publish("serviceB", request.getEventType(), request.getPayload(), request.getTraceId(),
+                request.getPriority());
         return ResponseEntity.accepted().body(Map.of(
                 "service", "serviceB",
                 "eventType", request.getEventType()
         ));
     }
 
+    /**
+     * {@code ?awaitConfirm=true}로 호출하면 브로커 confirm 을 받은 뒤 응답한다.
+     * 서블릿 스레드는 future 를 반환하는 즉시 풀로 돌아가고, confirm 이 도착하면 비동기 디스패치로 응답이 완료된다.
+     * 실패 시 응답 코드는 {@link PublishExceptionHandler}에서 결정한다.
+     */
+    @PostMapping(params = "awaitConfirm=true")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> publishConfirmed(@Valid @RequestBody PublishRequest request) {
+        return publisher.publishAsync("serviceB", request.getEventType(), request.getPayload(), request.getTraceId(),
+                        request.getPriority())
+                .thenApply(result -> ResponseEntity.ok(Map.of(
+                        "service", "serviceB",
+                        "eventType", request.getEventType(),
+                        "messageId", result.messageId(),
+                        "traceId", result.traceId()
+                )));
+    }
+
     @RequestMapping(method = RequestMethod.HEAD)
     public ResponseEntity<Void> publishSample() {
         UserCreatedEvent samplePayload = new UserCreatedEvent(
@@ -0,0 +1,36 @@
+package com.example.mqpoc.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RabbitConfigTest {
+
+    @Test
+    void streamOffsetMapsEachFormToTheBrokerArgumentType() {
+        assertThat(RabbitConfig.streamOffset("first")).isEqualTo("first");
+        assertThat(RabbitConfig.streamOffset("1h")).isEqualTo("1h");
+        assertThat(RabbitConfig.streamOffset("42")).isEqualTo(42L);
+        assertThat(RabbitConfig.streamOffset("2026-01-01T00:00:00Z"))
+                .isEqualTo(Date.from(Instant.parse("2026-01-01T00:00:00Z")));
+    }
+
+    @Test
+    void blankStreamOffsetFallsBackToNext() {
+        assertThat(RabbitConfig.streamOffset("")).isEqualTo("next");
+        assertThat(RabbitConfig.streamOffset("  ")).isEqualTo("next");
+        assertThat(RabbitConfig.streamOffset(null)).isEqualTo("next");
+        assertThat(RabbitConfig.streamOffset(" 42 ")).isEqualTo(42L);
+    }
+
+    @Test
+    void streamOffsetBeyondLongIsRejectedWithTheSettingName() {
+        assertThatThrownBy(() -> RabbitConfig.streamOffset("99999999999999999999"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("stream-offset");
+    }
+}
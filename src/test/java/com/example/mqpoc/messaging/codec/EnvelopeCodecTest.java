@@ -0,0 +1,140 @@
+package com.example.mqpoc.messaging.codec;
+
+import com.example.mqpoc.config.JacksonConfig;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.messaging.model.EventMetadata;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EnvelopeCodecTest {
+
+    private static final Instant OCCURRED_AT = Instant.parse("2026-01-02T03:04:05.123456789Z");
+    private static final Instant PUBLISHED_AT = Instant.parse("2026-01-02T03:04:06Z");
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final JavaType orderType = objectMapper.constructType(Order.class);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "cbor", "smile"})
+    void envelopeRoundTrips(String format) throws IOException {
+        EnvelopeCodec codec = new EnvelopeCodec(mapper(format));
+
+        EventEnvelope<Order> decoded = codec.decode(codec.encode(envelope()), orderType);
+
+        assertSameEnvelope(decoded, envelope());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "cbor", "smile"})
+    void isoDatesRoundTripWhenTimestampsAreDisabled(String format) throws IOException {
+        EnvelopeCodec codec = new EnvelopeCodec(mapper(format).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+        assertSameEnvelope(codec.decode(codec.encode(envelope()), orderType), envelope());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "cbor", "smile"})
+    void interoperatesWithDatabindEnvelopes(String format) throws IOException {
+        ObjectMapper mapper = mapper(format);
+        EnvelopeCodec codec = new EnvelopeCodec(mapper);
+        JavaType envelopeType = mapper.getTypeFactory().constructParametricType(EventEnvelope.class, Order.class);
+
+        // 코덱 도입 전 퍼블리셔가 ObjectMapper 로 쓴 메시지
+        assertSameEnvelope(codec.decode(mapper.writeValueAsBytes(envelope()), orderType), envelope());
+        // 아직 ObjectMapper 로 읽는 컨슈머
+        assertSameEnvelope(mapper.readValue(codec.encode(envelope()), envelopeType), envelope());
+    }
+
+    @Test
+    void payloadBeforeMetadataIsDecodedOnFirstAccess() throws IOException {
+        EnvelopeCodec codec = new EnvelopeCodec(objectMapper);
+        byte[] body = ("{\"payload\":{\"orderId\":\"ORD-1\",\"quantity\":3},\"eventType\":\"order.created\","
+                + "\"metadata\":{\"messageId\":\"message-1\",\"unknown\":{\"nested\":[1,2]}},"
+                + "\"occurredAt\":1767323045.123456789,\"extra\":[true]}").getBytes(StandardCharsets.UTF_8);
+
+        EventEnvelope<Order> decoded = codec.decode(body, orderType);
+
+        assertThat(decoded.getEventType()).isEqualTo("order.created");
+        assertThat(decoded.getMetadata().getMessageId()).isEqualTo("message-1");
+        assertThat(decoded.getOccurredAt()).isEqualTo(OCCURRED_AT);
+        assertThat(decoded.getPayload()).isEqualTo(new Order("ORD-1", 3));
+    }
+
+    @Test
+    void brokenPayloadFailsOnlyWhenItIsRead() throws IOException {
+        EnvelopeCodec codec = new EnvelopeCodec(objectMapper);
+        byte[] body = "{\"eventType\":\"order.created\",\"payload\":{\"quantity\":\"many\"}}".getBytes(StandardCharsets.UTF_8);
+
+        EventEnvelope<Order> decoded = codec.decode(body, orderType);
+
+        // 헤더 필드는 payload 를 건드리지 않고 읽힌다.
+        assertThat(decoded.getEventType()).isEqualTo("order.created");
+        assertThatThrownBy(decoded::getPayload).isInstanceOf(MessageConversionException.class);
+    }
+
+    @Test
+    void instantsFollowTheJsr310Rules() throws IOException {
+        EnvelopeCodec codec = new EnvelopeCodec(objectMapper);
+
+        assertThat(occurredAt(codec, "-1.5")).isEqualTo(Instant.ofEpochSecond(-1, -500_000_000));
+        assertThat(occurredAt(codec, "1767323045")).isEqualTo(Instant.ofEpochSecond(1767323045));
+        assertThat(occurredAt(codec, "\"1767323045.123456789\"")).isEqualTo(OCCURRED_AT);
+        assertThat(occurredAt(codec, "\"2026-01-02T03:04:05.123456789Z\"")).isEqualTo(OCCURRED_AT);
+        assertThat(occurredAt(codec, "null")).isNull();
+        assertThatThrownBy(() -> occurredAt(codec, "1e999999999")).isInstanceOf(IOException.class);
+    }
+
+    private static Instant occurredAt(EnvelopeCodec codec, String value) throws IOException {
+        byte[] body = ("{\"occurredAt\":" + value + "}").getBytes(StandardCharsets.UTF_8);
+        return codec.decode(body, codec.objectMapper().constructType(Order.class)).getOccurredAt();
+    }
+
+    private ObjectMapper mapper(String format) {
+        return switch (format) {
+            case "cbor" -> objectMapper.copyWith(new CBORFactory());
+            case "smile" -> objectMapper.copyWith(new SmileFactory());
+            default -> objectMapper.copy();
+        };
+    }
+
+    private static EventEnvelope<Order> envelope() {
+        EventMetadata metadata = new EventMetadata();
+        metadata.setSourceService("serviceA");
+        metadata.setTraceId("trace-1");
+        metadata.setMessageId("message-1");
+        metadata.setSchemaVersion("1.0");
+        metadata.setPriority("high");
+        EventEnvelope<Order> envelope = new EventEnvelope<>();
+        envelope.setEventType("order.created");
+        envelope.setOccurredAt(OCCURRED_AT);
+        envelope.setPublishedAt(PUBLISHED_AT);
+        envelope.setMetadata(metadata);
+        envelope.setPayload(new Order("ORD-1", 3));
+        return envelope;
+    }
+
+    private static void assertSameEnvelope(EventEnvelope<?> actual, EventEnvelope<Order> expected) {
+        assertThat(actual.getEventType()).isEqualTo(expected.getEventType());
+        assertThat(actual.getOccurredAt()).isEqualTo(expected.getOccurredAt());
+        assertThat(actual.getPublishedAt()).isEqualTo(expected.getPublishedAt());
+        assertThat(actual.getMetadata()).usingRecursiveComparison().isEqualTo(expected.getMetadata());
+        assertThat(actual.getPayload()).isEqualTo(expected.getPayload());
+    }
+
+    record Order(String orderId, int quantity) {
+    }
+}
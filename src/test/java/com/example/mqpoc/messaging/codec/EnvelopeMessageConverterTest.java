@@ -0,0 +1,139 @@
+package com.example.mqpoc.messaging.codec;
+
+import com.example.mqpoc.config.JacksonConfig;
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.config.MessagingProperties.Encoding.Format;
+import com.example.mqpoc.config.RabbitConfig;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.support.MessagingFixtures;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EnvelopeMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final EnvelopeMessageConverter converter = new RabbitConfig().messageConverter(objectMapper);
+    private final JavaType envelopeType =
+            objectMapper.getTypeFactory().constructParametricType(EventEnvelope.class, Order.class);
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void serviceEncodingSelectsTheContentTypeAndBodyFormat(Format format) throws Exception {
+        MessagingProperties.Service service = MessagingFixtures.messagingProperties(Map.of(
+                        "messaging.services.serviceA.encoding.format", format.name().toLowerCase()))
+                .services().get("serviceA");
+        MessageProperties properties = new MessageProperties();
+        // 퍼블리셔와 같이 서비스 인코딩의 content-type 을 미리 정한다.
+        properties.setContentType(service.encoding().format().contentType());
+
+        Message message = converter.toMessage(envelope(), properties);
+
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(format.contentType());
+        assertThat(message.getMessageProperties().getContentEncoding()).isEqualTo(format == Format.JSON ? "UTF-8" : null);
+        assertThat(message.getMessageProperties().getContentLength()).isEqualTo(message.getBody().length);
+        assertThat(message.getMessageProperties().getHeaders()).doesNotContainKey("__TypeId__");
+        EventEnvelope<Order> body = mapper(format).readValue(message.getBody(), envelopeType);
+        assertThat(body.getPayload()).isEqualTo(new Order("ORD-1", 3));
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {"text/plain", "application/octet-stream"})
+    void unknownOrMissingContentTypeIsPublishedAsJson(String contentType) throws Exception {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(contentType);
+
+        Message message = converter.toMessage(envelope(), properties);
+
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(Format.JSON.contentType());
+        EventEnvelope<Order> body = objectMapper.readValue(message.getBody(), envelopeType);
+        assertThat(body.getEventType()).isEqualTo("order.created");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void envelopeListenerReadsEachFormat(Format format) {
+        Message message = received(format.contentType() + "; charset=UTF-8", format);
+
+        Object converted = converter.fromMessage(message);
+
+        assertThat(converted).isInstanceOf(EventEnvelope.class);
+        assertThat(((EventEnvelope<?>) converted).getPayload()).isEqualTo(new Order("ORD-1", 3));
+    }
+
+    @Test
+    void nonEnvelopeListenerReadsBinaryFormats() throws Exception {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(Format.CBOR.contentType());
+        properties.setInferredArgumentType(Order.class);
+        Message message = new Message(mapper(Format.CBOR).writeValueAsBytes(new Order("ORD-2", 1)), properties);
+
+        assertThat(converter.fromMessage(message)).isEqualTo(new Order("ORD-2", 1));
+    }
+
+    @Test
+    void unknownContentTypeIsLeftToTheDelegate() {
+        byte[] body = "plain text".getBytes(StandardCharsets.UTF_8);
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType("text/plain");
+        properties.setInferredArgumentType(envelopeType);
+
+        assertThat(converter.fromMessage(new Message(body, properties))).isEqualTo(body);
+    }
+
+    @Test
+    void explicitDecodeRejectsUnknownContentTypes() {
+        JavaType orderType = converter.payloadType(Order.class);
+
+        assertThat(converter.<Order>decode(received(Format.SMILE.contentType(), Format.SMILE), orderType).getPayload())
+                .isEqualTo(new Order("ORD-1", 3));
+        Message message = received("text/plain", Format.JSON);
+        assertThatThrownBy(() -> converter.decode(message, orderType))
+                .isInstanceOf(MessageConversionException.class)
+                .hasMessageContaining("text/plain");
+    }
+
+    private Message received(String contentType, Format bodyFormat) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(bodyFormat.contentType());
+        byte[] body = converter.toMessage(envelope(), properties).getBody();
+        MessageProperties receivedProperties = new MessageProperties();
+        receivedProperties.setContentType(contentType);
+        receivedProperties.setInferredArgumentType(envelopeType);
+        return new Message(body, receivedProperties);
+    }
+
+    private ObjectMapper mapper(Format format) {
+        return switch (format) {
+            case JSON -> objectMapper;
+            case CBOR -> objectMapper.copyWith(new CBORFactory());
+            case SMILE -> objectMapper.copyWith(new SmileFactory());
+        };
+    }
+
+    private static EventEnvelope<Order> envelope() {
+        EventEnvelope<Order> envelope = new EventEnvelope<>();
+        envelope.setEventType("order.created");
+        envelope.setPayload(new Order("ORD-1", 3));
+        return envelope;
+    }
+
+    record Order(String orderId, int quantity) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.mqpoc.messaging.codec;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.support.MessagingFixtures;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageCompressorTest {
+
+    private static final int MAX_DECOMPRESSED = 4 * 1024;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "lz4", "zstd"})
+    void restoresBodiesWithinTheLimit(String algorithm) {
+        Setup setup = new Setup(algorithm);
+        byte[] body = "{\"orderId\":\"ORD-1\"}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        Message compressed = setup.compressor.compress(message(body), setup.encoding);
+        assertThat(compressed.getMessageProperties().getContentEncoding()).startsWith(algorithm).endsWith("UTF-8");
+
+        Message restored = setup.compressor.decompressor().postProcessMessage(compressed);
+        assertThat(restored.getBody()).isEqualTo(body);
+        assertThat(restored.getMessageProperties().getContentEncoding()).isEqualTo("UTF-8");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "lz4", "zstd"})
+    void refusesBodiesThatInflateBeyondTheLimit(String algorithm) {
+        Setup setup = new Setup(algorithm);
+        // 0 으로 채운 바디는 수십 바이트로 줄어들지만 풀면 한도의 4배다.
+        Message bomb = setup.compressor.compress(message(new byte[MAX_DECOMPRESSED * 4]), setup.encoding);
+
+        assertThat(bomb.getBody().length).isLessThan(MAX_DECOMPRESSED);
+        assertThatThrownBy(() -> setup.compressor.decompressor().postProcessMessage(bomb))
+                .isInstanceOf(AmqpException.class)
+                .hasMessageContaining("Refusing to decompress " + algorithm);
+    }
+
+    private static Message message(byte[] body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentEncoding("UTF-8");
+        return new Message(body, properties);
+    }
+
+    private static final class Setup {
+
+        final MessageCompressor compressor;
+        final MessagingProperties.Encoding encoding;
+
+        Setup(String algorithm) {
+            MessagingProperties properties = MessagingFixtures.messagingProperties(Map.of(
+                    "messaging.compression.max-decompressed-size", MAX_DECOMPRESSED + "B",
+                    "messaging.services.serviceA.encoding.compression", algorithm,
+                    "messaging.services.serviceA.encoding.compression-threshold", "0B"));
+            this.compressor = new MessageCompressor(properties);
+            this.encoding = properties.services().get("serviceA").encoding();
+        }
+    }
+}
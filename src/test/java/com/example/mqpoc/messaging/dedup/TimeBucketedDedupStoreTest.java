@@ -0,0 +1,125 @@
+package com.example.mqpoc.messaging.dedup;
+
+import com.example.mqpoc.messaging.dedup.DedupStore.Claim;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeBucketedDedupStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void completedMessageIsReportedAsDuplicate() {
+        TimeBucketedDedupStore store = store(1_000);
+        String id = UUID.randomUUID().toString();
+
+        assertThat(store.claim("serviceA", id)).isEqualTo(Claim.ACQUIRED);
+        store.complete("serviceA", id);
+
+        assertThat(store.claim("serviceA", id)).isEqualTo(Claim.COMPLETED);
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.inProgress()).isZero();
+    }
+
+    @Test
+    void concurrentDuplicateIsInProgressUntilTheFirstAttemptFinishes() {
+        TimeBucketedDedupStore store = store(1_000);
+        String id = UUID.randomUUID().toString();
+        store.claim("serviceA", id);
+
+        assertThat(store.claim("serviceA", id)).isEqualTo(Claim.IN_PROGRESS);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void failedAttemptReleasesTheClaim() {
+        TimeBucketedDedupStore store = store(1_000);
+        String id = UUID.randomUUID().toString();
+        store.claim("serviceA", id);
+
+        store.remove("serviceA", id);
+
+        assertThat(store.claim("serviceA", id)).isEqualTo(Claim.ACQUIRED);
+    }
+
+    @Test
+    void removeForgetsACompletedMessage() {
+        TimeBucketedDedupStore store = store(1_000);
+        String id = UUID.randomUUID().toString();
+        store.claim("serviceA", id);
+        store.complete("serviceA", id);
+
+        store.remove("serviceA", id);
+
+        assertThat(store.claim("serviceA", id)).isEqualTo(Claim.ACQUIRED);
+    }
+
+    @Test
+    void completedMessageIsRememberedForTtlAndForgottenAfterAllBucketsRotate() {
+        TimeBucketedDedupStore store = store(1_000);
+        String id = UUID.randomUUID().toString();
+        store.claim("serviceA", id);
+        store.complete("serviceA", id);
+
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThat(store.claim("serviceA", id)).isEqualTo(Claim.COMPLETED);
+
+        // 기록한 구간 + ttl/buckets 만큼 더 지나면 그 구간이 비워진다.
+        now.addAndGet(Duration.ofSeconds(15).toNanos());
+        assertThat(store.claim("serviceA", id)).isEqualTo(Claim.ACQUIRED);
+    }
+
+    @Test
+    void fullBucketRotatesEarlyAndDropsTheOldestEntries() {
+        // 구간 5개, 구간당 2건
+        TimeBucketedDedupStore store = store(10);
+        for (int i = 0; i < 10; i++) {
+            String id = "message-" + i;
+            store.claim("serviceA", id);
+            store.complete("serviceA", id);
+        }
+        assertThat(store.earlyRotations()).isEqualTo(4);
+
+        store.claim("serviceA", "message-10");
+        store.complete("serviceA", "message-10");
+
+        assertThat(store.earlyRotations()).isEqualTo(5);
+        assertThat(store.claim("serviceA", "message-0")).isEqualTo(Claim.ACQUIRED);
+        assertThat(store.claim("serviceA", "message-2")).isEqualTo(Claim.COMPLETED);
+        assertThat(store.size()).isEqualTo(9);
+    }
+
+    @Test
+    void scopesAreIndependent() {
+        TimeBucketedDedupStore store = store(1_000);
+        String id = UUID.randomUUID().toString();
+        store.claim("serviceA", id);
+        store.complete("serviceA", id);
+
+        assertThat(store.claim("serviceB", id)).isEqualTo(Claim.ACQUIRED);
+    }
+
+    @Test
+    void nonUuidIdsAreDistinguished() {
+        TimeBucketedDedupStore store = store(1_000);
+        // UUID 모양이지만 16진수가 아닌 값
+        String notHex = "zzzzzzzz-zzzz-zzzz-zzzz-zzzzzzzzzzzz";
+        store.claim("serviceA", "order-1");
+        store.complete("serviceA", "order-1");
+        store.claim("serviceA", notHex);
+        store.complete("serviceA", notHex);
+
+        assertThat(store.claim("serviceA", "order-1")).isEqualTo(Claim.COMPLETED);
+        assertThat(store.claim("serviceA", notHex)).isEqualTo(Claim.COMPLETED);
+        assertThat(store.claim("serviceA", "order-2")).isEqualTo(Claim.ACQUIRED);
+    }
+
+    private TimeBucketedDedupStore store(int maxEntries) {
+        return new TimeBucketedDedupStore(Duration.ofMinutes(1), maxEntries, 4, now::get);
+    }
+}
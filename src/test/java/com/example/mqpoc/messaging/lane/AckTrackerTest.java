@@ -0,0 +1,110 @@
+package com.example.mqpoc.messaging.lane;
+
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class AckTrackerTest {
+
+    private final Channel channel = mock(Channel.class);
+    private final AckTracker tracker = new AckTracker(channel);
+
+    @Test
+    void outOfOrderCompletionsAreAckedOnceTheLowestTagFinishes() throws Exception {
+        register(1, 2, 3);
+
+        tracker.complete(3, true);
+        tracker.complete(2, true);
+        verifyNoInteractions(channel);
+
+        tracker.complete(1, true);
+        verify(channel).basicAck(3, true);
+        verifyNoMoreInteractions(channel);
+        assertThat(tracker.inFlight()).isZero();
+    }
+
+    @Test
+    void ackStopsBelowTheLowestPendingTag() throws Exception {
+        register(1, 2, 3);
+
+        tracker.complete(1, true);
+        tracker.complete(3, true);
+
+        verify(channel).basicAck(1, true);
+        verifyNoMoreInteractions(channel);
+        // 2 는 처리 중, 3 은 ACK 대기
+        assertThat(tracker.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void failedTagIsNackedImmediatelyAndBeforeTheCoveringAck() throws Exception {
+        register(1, 2, 3);
+
+        tracker.complete(2, false);
+        verify(channel).basicNack(2, false, false);
+
+        tracker.complete(3, true);
+        tracker.complete(1, true);
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(2, false, false);
+        order.verify(channel).basicAck(3, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void requeuedTagDoesNotHoldBackLaterAcks() throws Exception {
+        register(1, 2);
+
+        tracker.complete(2, true);
+        tracker.requeue(1);
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(1, false, true);
+        order.verify(channel).basicAck(2, true);
+        verifyNoMoreInteractions(channel);
+        assertThat(tracker.inFlight()).isZero();
+    }
+
+    @Test
+    void unknownAndAlreadySettledTagsAreIgnored() throws Exception {
+        register(1);
+
+        tracker.complete(7, true);
+        tracker.complete(1, true);
+        tracker.complete(1, false);
+        tracker.requeue(1);
+
+        verify(channel).basicAck(1, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void channelFailureIsSwallowed() throws Exception {
+        doThrow(new IOException("channel closed")).when(channel).basicAck(anyLong(), anyBoolean());
+        register(1, 2);
+
+        tracker.complete(1, true);
+        tracker.complete(2, false);
+
+        verify(channel).basicNack(2, false, false);
+    }
+
+    private void register(long... tags) {
+        for (long tag : tags) {
+            tracker.register(tag);
+        }
+    }
+}
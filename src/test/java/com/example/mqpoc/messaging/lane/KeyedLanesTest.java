@@ -0,0 +1,167 @@
+package com.example.mqpoc.messaging.lane;
+
+import com.example.mqpoc.messaging.shard.ShardRouter;
+import com.example.mqpoc.support.MessagingFixtures;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class KeyedLanesTest {
+
+    private final Channel channel = mock(Channel.class);
+    private final KeyedLanes lanes = lanes(Map.of());
+
+    @AfterEach
+    void tearDown() {
+        lanes.stop();
+    }
+
+    @Test
+    void sameKeyIsProcessedInDeliveryOrderAndAckedTogether() throws Exception {
+        lanes.start();
+        List<Long> processed = new CopyOnWriteArrayList<>();
+
+        for (long tag = 1; tag <= 50; tag++) {
+            long deliveryTag = tag;
+            lanes.submit("serviceA", channel, deliveryTag, "order-1", () -> {
+                processed.add(deliveryTag);
+                return CompletableFuture.completedFuture(true);
+            });
+        }
+
+        verify(channel, timeout(5_000).atLeastOnce()).basicAck(50, true);
+        assertThat(processed).isSorted().hasSize(50);
+    }
+
+    @Test
+    void submissionAfterStopIsRequeuedAndCounted() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        lanes.bindTo(registry);
+        lanes.start();
+        lanes.stop();
+
+        lanes.submit("serviceA", channel, 1, "order-1", () -> CompletableFuture.completedFuture(true));
+
+        verify(channel).basicNack(1, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        assertThat(registry.get("messaging.consume.lanes.rejected").tag("service", "serviceA").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void stopWaitsForInFlightWorkBeforeRunningTheCallback() throws Exception {
+        lanes.start();
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        lanes.submit("serviceA", channel, 1, "order-1", () -> {
+            started.countDown();
+            return result;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        lanes.stop(stopped::countDown);
+        assertThat(lanes.isRunning()).isFalse();
+        // 처리 결과가 나오기 전에는 리스너 컨테이너가 채널을 닫지 않도록 콜백을 미룬다.
+        assertThat(stopped.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        result.complete(true);
+        assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(channel).basicAck(1, true);
+    }
+
+    @Test
+    void lanesRunForTheWholeLifeOfTheirListenerContainers() {
+        KeyedLanes contextLanes = lanes(Map.of());
+        List<Boolean> lanesRunning = new CopyOnWriteArrayList<>();
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            context.registerBean(KeyedLanes.class, () -> contextLanes);
+            context.registerBean(LaneDrainer.class, () -> new LaneDrainer(contextLanes));
+            context.registerBean("listenerContainer", SmartLifecycle.class,
+                    () -> new ListenerContainer(contextLanes, lanesRunning));
+            context.refresh();
+        }
+
+        // 컨테이너가 시작할 때는 레인이 이미 받고 있고, 컨테이너가 멈출 때는 레인이 이미 비워져 있다.
+        assertThat(lanesRunning).containsExactly(true, false);
+    }
+
+    @Test
+    void laneKeyMayNotOverwriteADifferentShardKey() {
+        assertThatIllegalStateException()
+                .isThrownBy(() -> lanes(Map.of(
+                        "messaging.services.serviceA.sharding.shards", "4",
+                        "messaging.services.serviceA.sharding.key", "customerId",
+                        "messaging.services.serviceA.consumer.lanes.key", "orderId",
+                        "messaging.services.serviceA.consumer.lanes.key-header", ShardRouter.SHARD_KEY_HEADER)))
+                .withMessageContaining("lanes.key-header");
+
+        // 같은 키를 싣는다면 헤더를 공유해도 된다.
+        assertThatNoException().isThrownBy(() -> lanes(Map.of(
+                "messaging.services.serviceA.sharding.shards", "4",
+                "messaging.services.serviceA.sharding.key", "orderId",
+                "messaging.services.serviceA.consumer.lanes.key-header", ShardRouter.SHARD_KEY_HEADER)));
+    }
+
+    /** 레인 상태만 기록하는 리스너 컨테이너 대역 */
+    private static final class ListenerContainer implements SmartLifecycle {
+
+        private final KeyedLanes lanes;
+        private final List<Boolean> lanesRunning;
+        private volatile boolean running;
+
+        ListenerContainer(KeyedLanes lanes, List<Boolean> lanesRunning) {
+            this.lanes = lanes;
+            this.lanesRunning = lanesRunning;
+        }
+
+        @Override
+        public void start() {
+            lanesRunning.add(lanes.isRunning());
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            lanesRunning.add(lanes.isRunning());
+            running = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public int getPhase() {
+            return KeyedLanes.LISTENER_PHASE;
+        }
+    }
+
+    private static KeyedLanes lanes(Map<String, String> overrides) {
+        Map<String, String> source = new HashMap<>(overrides);
+        source.put("messaging.services.serviceA.consumer.lanes.count", "2");
+        return new KeyedLanes(MessagingFixtures.messagingProperties(source));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.mqpoc.messaging.listener;
+
+import com.example.mqpoc.config.JacksonConfig;
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.config.MessagingProperties.Filter;
+import com.example.mqpoc.config.RabbitConfig;
+import com.example.mqpoc.messaging.codec.MessageCompressor;
+import com.example.mqpoc.messaging.dedup.TimeBucketedDedupStore;
+import com.example.mqpoc.messaging.lane.KeyedLanes;
+import com.example.mqpoc.messaging.metrics.MessagingMetrics;
+import com.example.mqpoc.messaging.trace.EventTracer;
+import com.example.mqpoc.messaging.trace.TraceSink;
+import com.example.mqpoc.support.MessagingFixtures;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class BatchDeliveryProcessorTest {
+
+    private final Channel channel = mock(Channel.class);
+    private final EventFilter filter = mock(EventFilter.class);
+    private final TimeBucketedDedupStore dedupStore = new TimeBucketedDedupStore(Duration.ofMinutes(1), 1_000, 4);
+    private BatchDeliveryProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        MessagingProperties properties = MessagingFixtures.messagingProperties(Map.of());
+        when(filter.evaluate(any(), any(), any(), any())).thenReturn(Filter.Action.ACCEPT);
+        processor = new BatchDeliveryProcessor(
+                new EventTracer(properties, new DefaultListableBeanFactory().getBeanProvider(TraceSink.class)),
+                new MessagingMetrics(new SimpleMeterRegistry(), properties),
+                dedupStore,
+                new RetryScheduler(mock(RabbitTemplate.class), properties, new MessageCompressor(properties)),
+                filter,
+                new RabbitConfig().messageConverter(new JacksonConfig().objectMapper()),
+                new KeyedLanes(properties),
+                properties);
+    }
+
+    @Test
+    void nacksFailedTagsBeforeOneMultipleAckOfTheHighestSuccess() throws Exception {
+        Set<Long> rejected = Set.of(2L, 3L);
+
+        processor.processInbound("serviceA", messages(1, 2, 3, 4), channel, event -> {
+            if (rejected.contains(event.deliveryTag())) {
+                throw new AmqpRejectAndDontRequeueException("rejected " + event.deliveryTag());
+            }
+        });
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(2, false, false);
+        order.verify(channel).basicNack(3, false, false);
+        order.verify(channel).basicAck(4, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void acksUpToTheLastSuccessWhenTheBatchEndsWithAFailure() throws Exception {
+        processor.processInbound("serviceA", messages(1, 2, 3), channel, event -> {
+            if (event.deliveryTag() == 3) {
+                throw new IllegalStateException("handler failed");
+            }
+        });
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(3, false, false);
+        order.verify(channel).basicAck(2, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void exceptionOutsideTheHandlerNacksOnlyThatDelivery() throws Exception {
+        when(filter.enabled("serviceA")).thenReturn(true);
+        when(filter.evaluate(eq("serviceA"), eq("broken.event"), any(), any()))
+                .thenThrow(new IllegalArgumentException("bad pattern"));
+        List<Message> messages = messages(1, 2, 3);
+        messages.get(1).getMessageProperties().setType("broken.event");
+
+        processor.processInbound("serviceA", messages, channel, event -> {
+        });
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(2, false, false);
+        order.verify(channel).basicAck(3, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void sendsNoAckWhenEveryDeliveryFailed() throws Exception {
+        processor.processInbound("serviceA", messages(1, 2), channel, event -> {
+            throw new AmqpRejectAndDontRequeueException("rejected");
+        });
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(1, false, false);
+        order.verify(channel).basicNack(2, false, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void duplicateOfAMessageStillBeingHandledIsNotAcked() throws Exception {
+        // 다른 컨슈머가 message-2 를 처리 중
+        dedupStore.claim("serviceA", "message-2");
+        List<Long> handled = new ArrayList<>();
+
+        processor.processInbound("serviceA", messages(1, 2, 3), channel, event -> handled.add(event.deliveryTag()));
+
+        assertThat(handled).containsExactly(1L, 3L);
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(2, false, false);
+        order.verify(channel).basicAck(3, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void redeliveryAfterAFailedAttemptIsHandledAgainAndOnlyThenAcked() throws Exception {
+        List<Long> handled = new ArrayList<>();
+        processor.processInbound("serviceA", messages(1), channel, event -> {
+            throw new AmqpRejectAndDontRequeueException("rejected");
+        });
+
+        processor.processInbound("serviceA", messages(1), channel, event -> handled.add(event.deliveryTag()));
+        processor.processInbound("serviceA", messages(1), channel, event -> handled.add(event.deliveryTag()));
+
+        // 실패한 첫 시도는 완료로 남지 않고, 성공한 두 번째 이후에만 중복으로 ACK 된다.
+        assertThat(handled).containsExactly(1L);
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(1, false, false);
+        order.verify(channel, times(2)).basicAck(1, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    static List<Message> messages(long... deliveryTags) {
+        return Arrays.stream(deliveryTags).mapToObj(BatchDeliveryProcessorTest::message).toList();
+    }
+
+    static Message message(long deliveryTag) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        properties.setConsumerQueue("serviceA.main");
+        properties.setReceivedRoutingKey("serviceA.order.created");
+        properties.setType("order.created");
+        properties.setMessageId("message-" + deliveryTag);
+        return new Message("{}".getBytes(), properties);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.mqpoc.messaging.listener;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.messaging.codec.MessageCompressor;
+import com.example.mqpoc.support.MessagingFixtures;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RetrySchedulerTest {
+
+    private static final byte[] BODY = "{\"orderId\":\"ORD-1\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RetryScheduler scheduler = scheduler(Map.of("messaging.services.serviceA.retry.delays", "1s,10s,1m"));
+
+    @Test
+    void firstFailureGoesToTheFirstWaitQueueWithTheOriginalRoute() {
+        CompletableFuture<Boolean> result = scheduler.schedule("serviceA", received("serviceA.main", Map.of()));
+
+        Sent sent = sent("serviceA.main.retry.1");
+        MessageProperties properties = sent.message().getMessageProperties();
+        assertThat(properties.<Integer>getHeader(RetryScheduler.RETRY_COUNT_HEADER)).isEqualTo(1);
+        assertThat(properties.<String>getHeader(RetryScheduler.ORIGINAL_EXCHANGE_HEADER)).isEqualTo("serviceA.events");
+        assertThat(properties.<String>getHeader(RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER))
+                .isEqualTo("serviceA.order.created");
+        assertThat(properties.getDeliveryMode()).isEqualTo(MessageDeliveryMode.PERSISTENT);
+        assertThat(properties.getMessageId()).isEqualTo("message-1");
+        assertThat(sent.message().getBody()).isEqualTo(BODY);
+        assertThat(sent.correlation().getId()).isEqualTo("message-1:retry-1");
+
+        assertThat(result).isNotDone();
+        sent.correlation().getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertThat(result).isCompletedWithValue(true);
+    }
+
+    @Test
+    void laterAttemptsMoveToTheNextTierAndKeepTheFirstRoute() {
+        // 대기 큐에서 돌아온 메시지는 받은 라우팅 키가 대기 큐 이름이다.
+        Message message = received("serviceA.main", Map.of(
+                RetryScheduler.RETRY_COUNT_HEADER, 1,
+                RetryScheduler.ORIGINAL_EXCHANGE_HEADER, "serviceA.events",
+                RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER, "serviceA.order.created"));
+        message.getMessageProperties().setReceivedExchange("");
+        message.getMessageProperties().setReceivedRoutingKey("serviceA.main.retry.1");
+
+        scheduler.schedule("serviceA", message);
+
+        MessageProperties properties = sent("serviceA.main.retry.2").message().getMessageProperties();
+        assertThat(properties.<Integer>getHeader(RetryScheduler.RETRY_COUNT_HEADER)).isEqualTo(2);
+        assertThat(properties.<String>getHeader(RetryScheduler.ORIGINAL_EXCHANGE_HEADER)).isEqualTo("serviceA.events");
+        assertThat(properties.<String>getHeader(RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER))
+                .isEqualTo("serviceA.order.created");
+    }
+
+    @Test
+    void retryCountWrittenAsTextIsStillCounted() {
+        scheduler.schedule("serviceA", received("serviceA.main", Map.of(RetryScheduler.RETRY_COUNT_HEADER, "2")));
+
+        sent("serviceA.main.retry.3");
+    }
+
+    @Test
+    void exhaustedTiersAreLeftToTheCallerToDeadLetter() {
+        Message message = received("serviceA.main", Map.of(RetryScheduler.RETRY_COUNT_HEADER, 3));
+
+        assertThat(scheduler.schedule("serviceA", message)).isNull();
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void serviceWithoutDelaysNeverSchedules() {
+        RetryScheduler noRetry = scheduler(Map.of());
+
+        assertThat(noRetry.schedule("serviceA", received("serviceA.main", Map.of()))).isNull();
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void shardQueueUsesItsOwnWaitQueue() {
+        scheduler.schedule("serviceA", received("serviceA.main.2", Map.of()));
+
+        sent("serviceA.main.2.retry.1");
+    }
+
+    @Test
+    void redeliveryCountFromTheBrokerIsNotPublishedAgain() {
+        Message message = received("serviceA.main", Map.of());
+        message.getMessageProperties().setRetryCount(5);
+
+        scheduler.schedule("serviceA", message);
+
+        assertThat(sent("serviceA.main.retry.1").message().getMessageProperties().getRetryCount()).isZero();
+    }
+
+    @Test
+    void nackedOrReturnedRepublishIsNotConfirmed() {
+        CompletableFuture<Boolean> nacked = scheduler.schedule("serviceA", received("serviceA.main", Map.of()));
+        sent("serviceA.main.retry.1").correlation().getFuture().complete(new CorrelationData.Confirm(false, "nack"));
+        assertThat(nacked).isCompletedWithValue(false);
+
+        CompletableFuture<Boolean> returned = scheduler.schedule("serviceA", received("serviceA.main", Map.of()));
+        CorrelationData correlation = lastCorrelation();
+        correlation.setReturned(new ReturnedMessage(new Message(BODY), 312, "NO_ROUTE", "", "serviceA.main.retry.1"));
+        correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertThat(returned).isCompletedWithValue(false);
+    }
+
+    @Test
+    void unconfirmedRepublishTimesOutAsFailed() {
+        RetryScheduler scheduler = scheduler(Map.of(
+                "messaging.services.serviceA.retry.delays", "1s",
+                "messaging.publisher.confirm-timeout", "50ms"));
+
+        CompletableFuture<Boolean> result = scheduler.schedule("serviceA", received("serviceA.main", Map.of()));
+
+        assertThat(result.join()).isFalse();
+    }
+
+    private RetryScheduler scheduler(Map<String, String> overrides) {
+        MessagingProperties properties = MessagingFixtures.messagingProperties(overrides);
+        return new RetryScheduler(rabbitTemplate, properties, new MessageCompressor(properties));
+    }
+
+    private Sent sent(String retryQueue) {
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        ArgumentCaptor<CorrelationData> correlation = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate).send(eq(""), eq(retryQueue), message.capture(), correlation.capture());
+        return new Sent(message.getValue(), correlation.getValue());
+    }
+
+    private CorrelationData lastCorrelation() {
+        ArgumentCaptor<CorrelationData> correlation = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, atLeastOnce())
+                .send(anyString(), anyString(), any(Message.class), correlation.capture());
+        return correlation.getValue();
+    }
+
+    private static Message received(String consumerQueue, Map<String, Object> headers) {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue(consumerQueue);
+        properties.setReceivedExchange("serviceA.events");
+        properties.setReceivedRoutingKey("serviceA.order.created");
+        properties.setMessageId("message-1");
+        properties.setContentType("application/json");
+        headers.forEach(properties::setHeader);
+        return new Message(BODY, properties);
+    }
+
+    private record Sent(Message message, CorrelationData correlation) {
+    }
+}
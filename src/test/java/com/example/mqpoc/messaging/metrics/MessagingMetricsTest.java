@@ -0,0 +1,41 @@
+package com.example.mqpoc.messaging.metrics;
+
+import com.example.mqpoc.support.MessagingFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessagingMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MessagingMetrics metrics = new MessagingMetrics(registry,
+            MessagingFixtures.messagingProperties(Map.of("messaging.metrics.max-event-types", "2")));
+
+    @Test
+    void eventTypesBeyondTheLimitShareTheOtherTag() {
+        metrics.recordDedup("serviceA", "serviceA.main", "order.created", "unique");
+        metrics.recordDedup("serviceA", "serviceA.main", "order.paid", "unique");
+        metrics.recordDedup("serviceA", "serviceA.main", "random-1", "unique");
+        metrics.recordDedup("serviceA", "serviceA.main", "random-2", "unique");
+        metrics.recordDedup("serviceA", "serviceA.main", "order.created", "unique");
+
+        assertThat(registry.get("messaging.consume.dedup").counters())
+                .extracting(counter -> counter.getId().getTag("eventType"))
+                .containsExactlyInAnyOrder("order.created", "order.paid", MessagingMetrics.OTHER);
+        assertThat(registry.get("messaging.consume.dedup").tag("eventType", MessagingMetrics.OTHER).counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void missingQueueAndEventTypeAreTaggedUnknown() {
+        metrics.recordConsume("serviceA", null, null, System.nanoTime(), true);
+
+        assertThat(registry.get("messaging.consume.duration")
+                .tag("queue", MessagingMetrics.UNKNOWN)
+                .tag("eventType", MessagingMetrics.UNKNOWN)
+                .timer().count()).isEqualTo(1);
+    }
+}
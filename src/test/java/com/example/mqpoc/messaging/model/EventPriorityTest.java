@@ -0,0 +1,53 @@
+package com.example.mqpoc.messaging.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class EventPriorityTest {
+
+    @Test
+    void everyLevelRoundTripsThroughItsAmqpPriority() {
+        for (EventPriority priority : EventPriority.values()) {
+            assertThat(EventPriority.fromAmqp(priority.amqpPriority())).isEqualTo(priority);
+        }
+    }
+
+    @Test
+    void everyLevelHasANonZeroAmqpPriority() {
+        // 헤더 매퍼는 priority 0 을 옮기지 않으므로 0 인 등급은 변환 경로에서 normal 로 읽힌다.
+        for (EventPriority priority : EventPriority.values()) {
+            assertThat(priority.amqpPriority()).isPositive();
+        }
+    }
+
+    @Test
+    void valuesBetweenLevelsMapToTheHighestLevelNotAboveThem() {
+        assertThat(EventPriority.fromAmqp(0)).isEqualTo(EventPriority.LOW);
+        assertThat(EventPriority.fromAmqp(3)).isEqualTo(EventPriority.LOW);
+        assertThat(EventPriority.fromAmqp(5)).isEqualTo(EventPriority.NORMAL);
+        assertThat(EventPriority.fromAmqp(8)).isEqualTo(EventPriority.HIGH);
+        assertThat(EventPriority.fromAmqp(255)).isEqualTo(EventPriority.URGENT);
+    }
+
+    @Test
+    void missingPriorityIsNormal() {
+        assertThat(EventPriority.fromAmqp(null)).isEqualTo(EventPriority.NORMAL);
+    }
+
+    @Test
+    void quorumQueuesSplitLowNormalFromHighUrgent() {
+        // quorum 큐는 4 이하를 normal, 5 이상을 high 로 꺼낸다.
+        assertThat(EventPriority.NORMAL.amqpPriority()).isLessThanOrEqualTo(4);
+        assertThat(EventPriority.HIGH.amqpPriority()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void namesAreParsedCaseInsensitively() {
+        assertThat(EventPriority.of(" Urgent ")).isEqualTo(EventPriority.URGENT);
+        assertThat(EventPriority.of(null)).isNull();
+        assertThat(EventPriority.LOW.value()).isEqualTo("low");
+        assertThatIllegalArgumentException().isThrownBy(() -> EventPriority.of("critical"));
+    }
+}
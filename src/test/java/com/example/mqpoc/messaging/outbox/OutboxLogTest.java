@@ -0,0 +1,148 @@
+package com.example.mqpoc.messaging.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxLogTest {
+
+    private static final Duration NO_WAIT = Duration.ZERO;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsSurviveReopen() throws Exception {
+        try (OutboxLog log = open(4096)) {
+            append(log, "first", "second");
+        }
+
+        try (OutboxLog log = open(4096)) {
+            assertThat(texts(log.read(0, 10, NO_WAIT))).containsExactly("first", "second");
+        }
+    }
+
+    @Test
+    void tornLastRecordIsTruncatedOnRecoveryAndOverwrittenByTheNextAppend() throws Exception {
+        long tornOffset;
+        try (OutboxLog log = open(4096)) {
+            append(log, "first", "second", "third");
+            tornOffset = log.read(0, 10, NO_WAIT).get(2).offset();
+        }
+        // 마지막 레코드의 바이트 하나가 디스크에 반영되지 않은 상태
+        corrupt(segment(0), tornOffset + OutboxLog.RECORD_HEADER_SIZE);
+
+        try (OutboxLog log = open(4096)) {
+            List<OutboxLog.Entry> recovered = log.read(0, 10, NO_WAIT);
+            assertThat(texts(recovered)).containsExactly("first", "second");
+            assertThat(recovered.get(1).nextOffset()).isEqualTo(tornOffset);
+
+            append(log, "fourth");
+            assertThat(texts(log.read(0, 10, NO_WAIT))).containsExactly("first", "second", "fourth");
+        }
+        try (OutboxLog log = open(4096)) {
+            assertThat(texts(log.read(0, 10, NO_WAIT))).containsExactly("first", "second", "fourth");
+        }
+    }
+
+    @Test
+    void lengthPointingPastTheSegmentEndIsTreatedAsTorn() throws Exception {
+        long tornOffset;
+        try (OutboxLog log = open(4096)) {
+            append(log, "first", "second");
+            tornOffset = log.read(0, 10, NO_WAIT).get(1).offset();
+        }
+        writeInt(segment(0), tornOffset, Integer.MAX_VALUE);
+
+        try (OutboxLog log = open(4096)) {
+            assertThat(texts(log.read(0, 10, NO_WAIT))).containsExactly("first");
+        }
+    }
+
+    @Test
+    void recoveryResumesFromTheCommittedOffsetAndDropsFullyCommittedSegments() throws Exception {
+        // 세그먼트 하나에 레코드 두 건 (헤더 8 + 6 바이트씩)
+        try (OutboxLog log = open(28)) {
+            append(log, "rec-01", "rec-02", "rec-03", "rec-04", "rec-05");
+            assertThat(log.segmentCount()).isEqualTo(3);
+
+            List<OutboxLog.Entry> entries = log.read(0, 10, NO_WAIT);
+            assertThat(texts(entries)).containsExactly("rec-01", "rec-02", "rec-03", "rec-04", "rec-05");
+            log.commit(entries.get(2).nextOffset());
+            assertThat(log.segmentCount()).isEqualTo(2);
+            assertThat(segmentFiles()).isEqualTo(2);
+        }
+
+        try (OutboxLog log = open(28)) {
+            assertThat(log.segmentCount()).isEqualTo(2);
+            assertThat(texts(log.read(log.committedOffset(), 10, NO_WAIT))).containsExactly("rec-04", "rec-05");
+        }
+    }
+
+    @Test
+    void appendIsRefusedWhenTheUncommittedBacklogExceedsMaxSize() throws Exception {
+        try (OutboxLog log = OutboxLog.open(directory, 4096, 40, NO_WAIT)) {
+            assertThat(log.append(bytes("rec-01"))).isTrue();
+            assertThat(log.append(bytes("rec-02"))).isTrue();
+            assertThat(log.append(bytes("rec-03"))).isFalse();
+
+            log.commit(log.read(0, 1, NO_WAIT).getFirst().nextOffset());
+            assertThat(log.append(bytes("rec-03"))).isTrue();
+        }
+    }
+
+    private OutboxLog open(long segmentSize) throws IOException {
+        return OutboxLog.open(directory, segmentSize, Long.MAX_VALUE, NO_WAIT);
+    }
+
+    private static void append(OutboxLog log, String... records) {
+        for (String record : records) {
+            assertThat(log.append(bytes(record))).isTrue();
+        }
+    }
+
+    private Path segment(long base) {
+        return directory.resolve(String.format("%020d.log", base));
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    private static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) (buffer.get(0) ^ 0xff));
+            channel.write(buffer.rewind(), position);
+        }
+    }
+
+    private static void writeInt(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value), position);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> texts(List<OutboxLog.Entry> entries) {
+        return entries.stream().map(entry -> new String(entry.data(), StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.mqpoc.messaging.publisher;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.messaging.codec.MessageCompressor;
+import com.example.mqpoc.messaging.model.EventEnvelope;
+import com.example.mqpoc.messaging.outbox.OutboxLog;
+import com.example.mqpoc.messaging.shard.ShardRouter;
+import com.example.mqpoc.messaging.trace.EventTracer;
+import com.example.mqpoc.messaging.trace.TraceSink;
+import com.example.mqpoc.support.MessagingFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventPublisherTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOperations operations = mock(RabbitOperations.class);
+    private final FailingConverter converter = new FailingConverter();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        // 한 채널에 confirm 대기 1건만 허용: 실패한 건이 허가를 반납하지 않으면 다음 건에서 멈춘다.
+        MessagingProperties properties = MessagingFixtures.messagingProperties(Map.of(
+                "messaging.publisher.max-in-flight", "1",
+                "messaging.services.serviceA.admission.max-in-flight", "1"));
+        when(rabbitTemplate.getMessageConverter()).thenReturn(converter);
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class))).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(operations).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        PublishAdmission admission = new PublishAdmission(properties);
+        admission.bindTo(registry);
+        publisher = new EventPublisher(rabbitTemplate, properties, new PendingConfirms(properties),
+                new EventTracer(properties, new DefaultListableBeanFactory().getBeanProvider(TraceSink.class)),
+                new MessageCompressor(properties), admission, new ShardRouter(),
+                new DefaultListableBeanFactory().getBeanProvider(OutboxLog.class));
+    }
+
+    @Test
+    void publishBatchFailsOnlyTheEventThatCannotBeConverted() {
+        List<CompletableFuture<PublishResult>> results = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                publisher.publishBatch("serviceA", List.of(
+                        OutgoingEvent.of("order.created", "first"),
+                        OutgoingEvent.of("order.created", FailingConverter.UNCONVERTIBLE),
+                        OutgoingEvent.of("order.created", "third"))));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0)).isCompleted();
+        assertThat(results.get(1)).isCompletedExceptionally();
+        assertThat(results.get(1).exceptionNow()).isInstanceOf(MessageConversionException.class);
+        assertThat(results.get(2)).isCompleted();
+    }
+
+    @Test
+    void publishBatchFailsOnlyTheEventWhoseSendFailed() {
+        doAnswer(invocation -> {
+            throw new AmqpConnectException(new ConnectException("connection reset"));
+        }).doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(operations).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        List<CompletableFuture<PublishResult>> results = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                publisher.publishBatch("serviceA", List.of(
+                        OutgoingEvent.of("order.created", "first"),
+                        OutgoingEvent.of("order.created", "second"))));
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).exceptionNow()).isInstanceOf(AmqpConnectException.class);
+        assertThat(results.get(1)).isCompleted();
+    }
+
+    @Test
+    void conversionFailureReturnsTheAdmissionSlot() {
+        assertThatThrownBy(() -> publisher.publish("serviceA", "order.created", FailingConverter.UNCONVERTIBLE, null))
+                .isInstanceOf(MessageConversionException.class);
+        assertThatThrownBy(() -> publisher.publishAsync("serviceA", "order.created", FailingConverter.UNCONVERTIBLE, null))
+                .isInstanceOf(MessageConversionException.class);
+        List<CompletableFuture<PublishResult>> results = publisher.publishBatch("serviceA", List.of(
+                OutgoingEvent.of("order.created", FailingConverter.UNCONVERTIBLE),
+                OutgoingEvent.of("order.created", "second")));
+
+        assertThat(results.get(0)).isCompletedExceptionally();
+        assertThat(results.get(1)).isCompleted();
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void rejectedPublishDoesNotBuildTheMessage() {
+        // confirm 이 오지 않아 서비스 한도(1)를 계속 차지한다.
+        publisher.publish("serviceA", "order.created", "first", null);
+        int conversions = converter.conversions;
+
+        assertThatThrownBy(() -> publisher.publish("serviceA", "order.created", "second", null))
+                .isInstanceOf(PublishRejectedException.class);
+        assertThat(publisher.publishAsync("serviceA", "order.created", "third", null)).isCompletedExceptionally();
+
+        assertThat(converter.conversions).isEqualTo(conversions);
+        assertThat(inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void publishAsyncFailsAtOnceWhenSendThrowsANonAmqpException() {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("post processor failed");
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        CompletableFuture<PublishResult> result = publisher.publishAsync("serviceA", "order.created", "first", null);
+
+        // confirm timeout 을 기다리지 않고 끝나, 미확정 슬롯과 서비스 한도를 바로 돌려준다.
+        assertThat(result).isCompletedExceptionally();
+        assertThat(result.exceptionNow()).isInstanceOf(IllegalStateException.class);
+        assertThat(inFlight()).isZero();
+    }
+
+    private double inFlight() {
+        return registry.get("messaging.publish.inflight").tag("service", "serviceA").gauge().value();
+    }
+
+    /**
+     * payload 가 {@link #UNCONVERTIBLE}이면 변환에 실패하는 컨버터.
+     */
+    private static final class FailingConverter implements MessageConverter {
+
+        static final String UNCONVERTIBLE = "unconvertible";
+
+        int conversions;
+
+        @Override
+        public Message toMessage(Object object, MessageProperties messageProperties) {
+            conversions++;
+            if (object instanceof EventEnvelope<?> envelope && UNCONVERTIBLE.equals(envelope.getPayload())) {
+                throw new MessageConversionException("cannot convert " + UNCONVERTIBLE);
+            }
+            return new Message(new byte[0], messageProperties);
+        }
+
+        @Override
+        public Object fromMessage(Message message) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
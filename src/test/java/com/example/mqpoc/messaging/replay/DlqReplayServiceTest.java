@@ -0,0 +1,294 @@
+package com.example.mqpoc.messaging.replay;
+
+import com.example.mqpoc.messaging.listener.RetryScheduler;
+import com.example.mqpoc.messaging.publisher.EventPublisher;
+import com.example.mqpoc.messaging.publisher.PublishResult;
+import com.example.mqpoc.messaging.publisher.Republish;
+import com.example.mqpoc.support.MessagingFixtures;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DlqReplayServiceTest {
+
+    private static final Date DEAD_AT = Date.from(Instant.parse("2026-01-02T03:04:05Z"));
+
+    private final Channel channel = mock(Channel.class);
+    private final EventPublisher publisher = mock(EventPublisher.class);
+    private final List<Dead> dlq = new ArrayList<>();
+    /** delivery tag → confirm 성공 여부. 없으면 성공 */
+    private final Map<Long, Boolean> confirms = new HashMap<>();
+    private DlqReplayService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        CachingConnectionFactory connectionFactory = mock(CachingConnectionFactory.class);
+        ConnectionFactory rabbitConnectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.getRabbitConnectionFactory()).thenReturn(rabbitConnectionFactory);
+        when(rabbitConnectionFactory.newConnection(anyString())).thenReturn(connection);
+        when(connection.createChannel()).thenReturn(channel);
+        when(channel.queueDeclarePassive("shared.dlq")).thenAnswer(invocation -> {
+            AMQP.Queue.DeclareOk declareOk = mock(AMQP.Queue.DeclareOk.class);
+            when(declareOk.getMessageCount()).thenReturn(dlq.size());
+            return declareOk;
+        });
+        // 구독하자마자 DLQ 에 쌓인 메시지를 순서대로 전달한다.
+        when(channel.basicConsume(eq("shared.dlq"), eq(false), any(Consumer.class))).thenAnswer(invocation -> {
+            Consumer consumer = invocation.getArgument(2);
+            for (Dead dead : dlq) {
+                consumer.handleDelivery("consumer-1", new Envelope(dead.tag(), false, "", "shared.dlq"),
+                        dead.properties(), dead.body());
+            }
+            return "consumer-1";
+        });
+        when(publisher.republishBatch(any())).thenAnswer(invocation -> {
+            List<Republish> republishes = invocation.getArgument(0);
+            List<CompletableFuture<PublishResult>> results = new ArrayList<>();
+            for (int i = 0; i < republishes.size(); i++) {
+                long tag = dlq.get(i).tag();
+                results.add(confirms.getOrDefault(tag, true)
+                        ? CompletableFuture.completedFuture(new PublishResult("message-" + tag, null, "", ""))
+                        : CompletableFuture.failedFuture(new IllegalStateException("nack")));
+            }
+            return results;
+        });
+        service = new DlqReplayService(connectionFactory, publisher,
+                MessagingFixtures.messagingProperties(Map.of("messaging.replay.idle-timeout", "100ms")));
+    }
+
+    @Test
+    void matchingLetterGoesBackToItsOriginalRouteWithoutDeadLetterHeaders() throws Exception {
+        dlq.add(rejected(1, "serviceA.events", "serviceA.order.created"));
+
+        ReplayJob job = service.run(request(null, "serviceA.order.#", null));
+
+        Republish republish = republished().getFirst();
+        assertThat(republish.exchange()).isEqualTo("serviceA.events");
+        assertThat(republish.routingKey()).isEqualTo("serviceA.order.created");
+        assertThat(republish.message().getBody()).isEqualTo(dlq.getFirst().body());
+        MessageProperties properties = republish.message().getMessageProperties();
+        assertThat(properties.getMessageId()).isEqualTo("message-1");
+        assertThat(properties.getHeaders()).doesNotContainKeys("x-death", "x-first-death-reason",
+                "x-last-death-queue", DeadLetter.REASON_HEADER, DeadLetter.DEAD_AT_HEADER);
+        assertThat(properties.getRetryCount()).isZero();
+        assertThat(properties.<String>getHeader(DlqReplayService.REPLAY_JOB_HEADER)).isEqualTo(job.id());
+        assertThat(properties.<String>getHeader("traceId")).isEqualTo("trace-1");
+        assertThat(job.progress().replayed()).isEqualTo(1);
+        verify(channel).basicAck(1, true);
+    }
+
+    @Test
+    void retriedLetterIsReplayedToItsFirstRouteWithTheRetryHeadersCleared() throws Exception {
+        // 재시도를 다 쓴 메시지는 대기 큐에서 돌아온 경로로 dead-letter 되므로 원래 경로는 x-original-* 에만 있다.
+        Dead dead = dead(1, Map.of(
+                "x-death", List.of(death("rejected", "", "serviceA.main.retry.3")),
+                RetryScheduler.RETRY_COUNT_HEADER, 3,
+                RetryScheduler.ORIGINAL_EXCHANGE_HEADER, "serviceA.events",
+                RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER, "serviceA.order.created"));
+        dlq.add(dead);
+
+        service.run(request(null, "serviceA.order.*", null));
+
+        Republish republish = republished().getFirst();
+        assertThat(republish.exchange()).isEqualTo("serviceA.events");
+        assertThat(republish.routingKey()).isEqualTo("serviceA.order.created");
+        assertThat(republish.message().getMessageProperties().getHeaders()).doesNotContainKeys(
+                RetryScheduler.RETRY_COUNT_HEADER, RetryScheduler.ORIGINAL_EXCHANGE_HEADER,
+                RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER);
+    }
+
+    @Test
+    void lettersOutsideTheFilterMoveToTheBackOfTheDlqWithTheirDeadLetterInfo() throws Exception {
+        dlq.add(rejected(1, "serviceA.events", "serviceA.order.created"));
+        dlq.add(rejected(2, "serviceA.events", "serviceA.payment.failed"));
+        dlq.add(dead(3, Map.of("x-death", List.of(death("expired", "serviceA.events", "serviceA.order.created")))));
+
+        ReplayJob job = service.run(request(Set.of("rejected"), "serviceA.order.*", null));
+
+        List<Republish> republishes = republished();
+        assertThat(republishes).extracting(Republish::exchange, Republish::routingKey).containsExactly(
+                tuple("serviceA.events", "serviceA.order.created"),
+                tuple("", "shared.dlq"),
+                tuple("", "shared.dlq"));
+        MessageProperties kept = republishes.get(1).message().getMessageProperties();
+        assertThat(kept.<String>getHeader(DeadLetter.REASON_HEADER)).isEqualTo("rejected");
+        assertThat(kept.<Date>getHeader(DeadLetter.DEAD_AT_HEADER)).isEqualTo(DEAD_AT);
+        assertThat(kept.<String>getHeader(RetryScheduler.ORIGINAL_EXCHANGE_HEADER)).isEqualTo("serviceA.events");
+        assertThat(kept.<String>getHeader(RetryScheduler.ORIGINAL_ROUTING_KEY_HEADER))
+                .isEqualTo("serviceA.payment.failed");
+        assertThat(kept.getHeaders()).doesNotContainKey(DlqReplayService.REPLAY_JOB_HEADER);
+        // 옮긴 메시지를 다음 작업에서 읽어도 같은 조건으로 골라진다.
+        assertThat(DeadLetter.of(kept)).isEqualTo(DeadLetter.of(properties(dlq.get(1))));
+        assertThat(republishes.get(2).message().getMessageProperties().<String>getHeader(DeadLetter.REASON_HEADER))
+                .isEqualTo("expired");
+        assertThat(job.progress().replayed()).isEqualTo(1);
+        assertThat(job.progress().kept()).isEqualTo(2);
+        verify(channel).basicAck(3, true);
+    }
+
+    @Test
+    void traceIdAndTimeRangeNarrowTheReplay() {
+        dlq.add(rejected(1, "serviceA.events", "serviceA.order.created"));
+        ReplayRequest otherTrace = new ReplayRequest(null, null, "trace-2", null, null, null, null);
+        ReplayRequest before = new ReplayRequest(null, null, null, null, DEAD_AT.toInstant(), null, null);
+        ReplayRequest inRange = new ReplayRequest(null, null, "trace-1", DEAD_AT.toInstant(),
+                DEAD_AT.toInstant().plusSeconds(1), null, null);
+        DeadLetter letter = DeadLetter.of(properties(dlq.getFirst()));
+
+        assertThat(otherTrace.matches(letter)).isFalse();
+        assertThat(before.matches(letter)).isFalse();
+        assertThat(inRange.matches(letter)).isTrue();
+    }
+
+    @Test
+    void topicPatternsFollowTheAmqpRules() {
+        assertThat(ReplayRequest.topicMatches("serviceA.order.*", "serviceA.order.created")).isTrue();
+        assertThat(ReplayRequest.topicMatches("serviceA.order.*", "serviceA.order")).isFalse();
+        assertThat(ReplayRequest.topicMatches("serviceA.order.*", "serviceA.order.created.v2")).isFalse();
+        assertThat(ReplayRequest.topicMatches("serviceA.#", "serviceA")).isTrue();
+        assertThat(ReplayRequest.topicMatches("serviceA.#", "serviceA.order.created.v2")).isTrue();
+        assertThat(ReplayRequest.topicMatches("#.created", "serviceA.order.created")).isTrue();
+        assertThat(ReplayRequest.topicMatches("*.created", "serviceA.order.created")).isFalse();
+    }
+
+    @Test
+    void lettersWithoutAnOriginalExchangeOrOverTheLimitAreKept() throws Exception {
+        dlq.add(dead(1, Map.of()));
+        dlq.add(rejected(2, "serviceA.events", "serviceA.order.created"));
+        dlq.add(rejected(3, "serviceA.events", "serviceA.order.created"));
+
+        ReplayJob job = service.run(new ReplayRequest(null, null, null, null, null, 1L, null));
+
+        assertThat(republished()).extracting(Republish::routingKey)
+                .containsExactly("shared.dlq", "serviceA.order.created", "shared.dlq");
+        assertThat(job.progress().replayed()).isEqualTo(1);
+        assertThat(job.progress().kept()).isEqualTo(2);
+    }
+
+    @Test
+    void failedConfirmIsRequeuedBeforeTheMultipleAckOfTheRest() throws Exception {
+        dlq.add(rejected(1, "serviceA.events", "serviceA.order.created"));
+        dlq.add(rejected(2, "serviceA.events", "serviceA.order.created"));
+        dlq.add(rejected(3, "serviceA.events", "serviceA.order.created"));
+        confirms.put(2L, false);
+
+        ReplayJob job = service.run(request(null, null, null));
+
+        // multiple ACK(3)이 먼저 나가면 재발행되지 않은 2번까지 DLQ 에서 지워진다.
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(2, false, true);
+        order.verify(channel).basicAck(3, true);
+        verify(channel, never()).basicAck(eq(1L), anyBoolean());
+        verify(channel, never()).basicNack(eq(1L), anyBoolean(), anyBoolean());
+        verify(channel, never()).basicNack(eq(3L), anyBoolean(), anyBoolean());
+        assertThat(job.progress().failed()).isEqualTo(1);
+        assertThat(job.progress().replayed()).isEqualTo(2);
+    }
+
+    @Test
+    void batchWithOnlyFailedConfirmsIsNotAcked() throws Exception {
+        dlq.add(rejected(1, "serviceA.events", "serviceA.order.created"));
+        dlq.add(rejected(2, "serviceA.events", "serviceA.order.created"));
+        confirms.put(1L, false);
+        confirms.put(2L, false);
+
+        ReplayJob job = service.run(request(null, null, null));
+
+        verify(channel).basicNack(1, false, true);
+        verify(channel).basicNack(2, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        assertThat(job.progress().failed()).isEqualTo(2);
+        assertThat(job.status()).isEqualTo(ReplayJob.Status.COMPLETED);
+    }
+
+    @Test
+    void lastFailedConfirmStillAcksTheConfirmedPrefix() throws Exception {
+        dlq.add(rejected(1, "serviceA.events", "serviceA.order.created"));
+        dlq.add(rejected(2, "serviceA.events", "serviceA.order.created"));
+        confirms.put(2L, false);
+
+        service.run(request(null, null, null));
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).basicNack(2, false, true);
+        order.verify(channel).basicAck(1, true);
+        verify(channel).basicQos(anyInt());
+    }
+
+    private List<Republish> republished() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Republish>> captor = ArgumentCaptor.forClass(List.class);
+        verify(publisher).republishBatch(captor.capture());
+        return captor.getValue();
+    }
+
+    private static ReplayRequest request(Set<String> reasons, String routingKey, String traceId) {
+        return new ReplayRequest(reasons, routingKey, traceId, null, null, null, null);
+    }
+
+    private static Dead rejected(long tag, String exchange, String routingKey) {
+        return dead(tag, Map.of(
+                "x-death", List.of(death("rejected", exchange, routingKey)),
+                "x-first-death-reason", "rejected",
+                "x-last-death-queue", "serviceA.main",
+                "traceId", "trace-1"));
+    }
+
+    private static Dead dead(long tag, Map<String, Object> headers) {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .messageId("message-" + tag)
+                .contentType("application/json")
+                .deliveryMode(2)
+                .headers(headers)
+                .build();
+        return new Dead(tag, properties, ("{\"orderId\":\"ORD-" + tag + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Object> death(String reason, String exchange, String routingKey) {
+        return Map.of("reason", reason, "exchange", exchange, "queue", "serviceA.main",
+                "routing-keys", List.of(routingKey), "time", DEAD_AT, "count", 1L);
+    }
+
+    private static MessageProperties properties(Dead dead) {
+        return new DefaultMessagePropertiesConverter().toMessageProperties(
+                dead.properties(), new Envelope(dead.tag(), false, "", "shared.dlq"), "UTF-8");
+    }
+
+    private record Dead(long tag, AMQP.BasicProperties properties, byte[] body) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.mqpoc.messaging.shard;
+
+import com.example.mqpoc.config.MessagingProperties;
+import com.example.mqpoc.support.MessagingFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ShardRouterTest {
+
+    private static final int KEYS = 100_000;
+
+    private final ShardRouter router = new ShardRouter();
+
+    @Test
+    void shardIsStableAndWithinRange() {
+        for (int i = 0; i < KEYS; i++) {
+            int shard = ShardRouter.shard("order-" + i, 7);
+            assertThat(shard).isBetween(0, 6);
+            assertThat(ShardRouter.shard("order-" + i, 7)).isEqualTo(shard);
+        }
+        assertThat(ShardRouter.shard("order-1", 1)).isZero();
+    }
+
+    @Test
+    void keysSpreadEvenlyAcrossShards() {
+        int[] counts = new int[8];
+        for (int i = 0; i < KEYS; i++) {
+            counts[ShardRouter.shard("order-" + i, counts.length)]++;
+        }
+
+        for (int count : counts) {
+            assertThat((double) count).isCloseTo(KEYS / 8.0, within(KEYS / 8.0 * 0.05));
+        }
+    }
+
+    @Test
+    void addingAShardMovesOnlyItsShareOfKeysAndOnlyToTheNewShard() {
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            int before = ShardRouter.shard("order-" + i, 4);
+            int after = ShardRouter.shard("order-" + i, 5);
+            if (before != after) {
+                // 옮겨 가는 키는 새 샤드로만 간다.
+                assertThat(after).isEqualTo(4);
+                moved++;
+            }
+        }
+
+        assertThat((double) moved).isCloseTo(KEYS / 5.0, within(KEYS / 5.0 * 0.05));
+    }
+
+    @Test
+    void routingKeyStrategyAppendsTheShardNumber() {
+        MessagingProperties.Sharding sharding = sharding("routing-key");
+
+        assertThat(router.routingKey(sharding, "serviceA.order.created", "order-1"))
+                .isEqualTo("serviceA.order.created." + ShardRouter.shard("order-1", 4));
+    }
+
+    @Test
+    void consistentHashStrategyKeepsTheRoutingKey() {
+        MessagingProperties.Sharding sharding = sharding("consistent-hash");
+
+        assertThat(router.routingKey(sharding, "serviceA.order.created", "order-1")).isEqualTo("serviceA.order.created");
+    }
+
+    @Test
+    void shardKeyIsReadFromMapsRecordsAndBeans() {
+        assertThat(router.shardKey("order.id", Map.of("order", Map.of("id", "ORD-1")), "message-1")).isEqualTo("ORD-1");
+        assertThat(router.shardKey("customer.id", new Order(new Customer("C-1")), "message-1")).isEqualTo("C-1");
+        assertThat(router.shardKey("name", new Account("A-1"), "message-1")).isEqualTo("A-1");
+    }
+
+    @Test
+    void shardKeyFallsBackToTheMessageIdWhenThePathIsMissing() {
+        assertThat(router.shardKey("order.id", Map.of("order", Map.of()), "message-1")).isEqualTo("message-1");
+        assertThat(router.shardKey("missing", new Order(null), "message-1")).isEqualTo("message-1");
+        assertThat(router.shardKey(null, Map.of(), "message-1")).isEqualTo("message-1");
+    }
+
+    private static MessagingProperties.Sharding sharding(String strategy) {
+        return MessagingFixtures.messagingProperties(Map.of(
+                        "messaging.services.serviceA.sharding.shards", "4",
+                        "messaging.services.serviceA.sharding.strategy", strategy))
+                .services().get("serviceA").sharding();
+    }
+
+    record Order(Customer customer) {
+    }
+
+    record Customer(String id) {
+    }
+
+    public static class Account {
+
+        private final String name;
+
+        Account(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.mqpoc.messaging.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ShardedListenerContainerFactoryTest {
+
+    @Test
+    void createsOneSingleConsumerContainerPerShardQueue() {
+        ShardedListenerContainer container = createContainer("serviceA.main.0", "serviceA.main.1", "serviceA.main.2");
+
+        assertThat(container.getContainers())
+                .extracting(shard -> shard.getQueueNames()[0])
+                .containsExactly("serviceA.main.0", "serviceA.main.1", "serviceA.main.2");
+        assertThat(container.getContainers()).allSatisfy(shard -> assertThat(shard.getQueueNames()).hasSize(1));
+    }
+
+    @Test
+    void acceptsTheConfiguredShardQueuesInAnyOrder() {
+        ShardedListenerContainer container = createContainer("serviceA.main.0", "serviceA.main.1");
+
+        container.setQueueNames("serviceA.main.1", "serviceA.main.0");
+
+        assertThat(container.getContainers())
+                .extracting(SimpleMessageListenerContainer::getQueueNames)
+                .containsExactly(new String[]{"serviceA.main.0"}, new String[]{"serviceA.main.1"});
+    }
+
+    @Test
+    void rejectsQueuesOtherThanTheConfiguredShards() {
+        ShardedListenerContainer container = createContainer("serviceA.main.0", "serviceA.main.1");
+
+        assertThatThrownBy(() -> container.setQueueNames("serviceA.main.0"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> container.setQueueNames("serviceA.main.0", "serviceA.main.1", "serviceB.main"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("serviceB.main");
+    }
+
+    private static ShardedListenerContainer createContainer(String... queues) {
+        SimpleRabbitListenerContainerFactory delegate = new SimpleRabbitListenerContainerFactory();
+        delegate.setConnectionFactory(mock(ConnectionFactory.class));
+        delegate.setConcurrentConsumers(4);
+        SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+        endpoint.setId("serviceA");
+        endpoint.setQueueNames(queues);
+        endpoint.setMessageListener(message -> {
+        });
+        return new ShardedListenerContainerFactory(delegate).createListenerContainer(endpoint);
+    }
+}
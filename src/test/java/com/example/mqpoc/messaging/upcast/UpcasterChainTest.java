@@ -0,0 +1,94 @@
+package com.example.mqpoc.messaging.upcast;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpcasterChainTest {
+
+    @Test
+    void chainsStepsUntilNoFurtherVersionIsRegistered() {
+        UpcasterChain chain = chain(
+                new RenameField("order.created", "0.8", "0.9", "total", "amount"),
+                new RenameField("order.created", "0.9", "1.0", "amount", "totalAmount"));
+
+        UpcasterChain.Path path = chain.path("order.created", "0.8");
+        ObjectNode payload = JsonNodeFactory.instance.objectNode().put("total", 12000);
+
+        assertThat(path.toVersion()).isEqualTo("1.0");
+        assertThat(path.steps()).hasSize(2);
+        assertThat(path.apply(payload).get("totalAmount").asInt()).isEqualTo(12000);
+        assertThat(chain.path("order.created", "0.9").steps()).hasSize(1);
+    }
+
+    @Test
+    void currentVersionsAndUnknownTypesNeedNoPath() {
+        UpcasterChain chain = chain(new RenameField("order.created", "0.9", "1.0", "amount", "totalAmount"));
+
+        assertThat(chain.path("order.created", "1.0")).isNull();
+        assertThat(chain.path("user.created", "0.9")).isNull();
+        assertThat(chain.path("order.created", null)).isNull();
+        assertThat(chain.path(null, "0.9")).isNull();
+    }
+
+    @Test
+    void duplicateStepForTheSameVersionFailsAtStartup() {
+        assertThatThrownBy(() -> chain(
+                new RenameField("order.created", "0.9", "1.0", "amount", "totalAmount"),
+                new RenameField("order.created", "0.9", "1.1", "amount", "total")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Duplicate upcaster for order.created from 0.9");
+    }
+
+    @Test
+    void cycleFailsAtStartup() {
+        assertThatThrownBy(() -> chain(
+                new RenameField("order.created", "0.9", "1.0", "a", "b"),
+                new RenameField("order.created", "1.0", "1.1", "b", "c"),
+                new RenameField("order.created", "1.1", "0.9", "c", "a")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Upcaster cycle for order.created");
+    }
+
+    @Test
+    void stepBackToItsOwnVersionIsACycle() {
+        assertThatThrownBy(() -> chain(new RenameField("order.created", "1.0", "1.0", "a", "b")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Upcaster cycle");
+    }
+
+    @Test
+    void sameVersionsOfDifferentTypesAreIndependent() {
+        UpcasterChain chain = chain(
+                new RenameField("order.created", "0.9", "1.0", "amount", "totalAmount"),
+                new RenameField("user.created", "0.9", "1.0", "mail", "email"));
+
+        ObjectNode user = JsonNodeFactory.instance.objectNode().put("mail", "user1@example.com");
+
+        assertThat(chain.path("user.created", "0.9").apply(user).get("email").asText()).isEqualTo("user1@example.com");
+    }
+
+    private static UpcasterChain chain(Upcaster... upcasters) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        for (int i = 0; i < upcasters.length; i++) {
+            beanFactory.registerSingleton("upcaster" + i, upcasters[i]);
+        }
+        return new UpcasterChain(beanFactory.getBeanProvider(Upcaster.class));
+    }
+
+    private record RenameField(String eventType, String fromVersion, String toVersion, String from, String to)
+            implements Upcaster {
+
+        @Override
+        public JsonNode upcast(JsonNode payload) {
+            ObjectNode node = (ObjectNode) payload;
+            node.set(to, node.remove(from));
+            return node;
+        }
+    }
+}
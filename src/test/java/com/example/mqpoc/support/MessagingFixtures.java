@@ -0,0 +1,36 @@
+package com.example.mqpoc.support;
+
+import com.example.mqpoc.config.MessagingProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 테스트 공통 설정 생성기.
+ */
+public final class MessagingFixtures {
+
+    private MessagingFixtures() {
+    }
+
+    /**
+     * application.yml 의 serviceA 기본 항목만 바인딩한다. 나머지 항목은 레코드 기본값을 따른다.
+     */
+    public static MessagingProperties messagingProperties(Map<String, String> overrides) {
+        Map<String, String> source = new LinkedHashMap<>();
+        source.put("messaging.shared.dlx", "shared.dlx");
+        source.put("messaging.shared.dlq", "shared.dlq");
+        source.put("messaging.trace.enabled", "false");
+        source.put("messaging.services.serviceA.prefix", "serviceA");
+        source.put("messaging.services.serviceA.exchange", "serviceA.events");
+        source.put("messaging.services.serviceA.queue", "serviceA.main");
+        source.put("messaging.services.serviceA.schema-version", "1.0");
+        source.put("messaging.services.serviceA.source-service", "serviceA");
+        source.putAll(overrides);
+        return new Binder(new MapConfigurationPropertySource(source))
+                .bind("messaging", MessagingProperties.class)
+                .get();
+    }
+}